@@ -24,9 +24,13 @@
 package edu.cmu.hcii.citrus;
 
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.zip.GZIPOutputStream;
 
 import edu.cmu.hcii.citrus.views.ElementView;
 import edu.cmu.hcii.citrus.views.Transition;
@@ -43,6 +47,12 @@ public abstract class AbstractElement<T extends Element> implements Element<T> {
 
     // Observers that this element has declared
     protected LinkedList<Listener> listenersDeclared;
+
+	// Elements held by many properties at once, such as the values properties hold before
+	// they're initialized, have no owner or users, since they couldn't point back to all of them.
+	private boolean shared = false;
+	public final boolean isShared() { return shared; }
+	static <E extends AbstractElement<?>> E shared(E element) { ((AbstractElement<?>)element).shared = true; return element; }
     
 	// TYPE
 	public abstract Namespace<?> getType();
@@ -78,7 +88,7 @@ public abstract class AbstractElement<T extends Element> implements Element<T> {
 	
 	// EQUALITY
 	public abstract Bool isEquivalentTo(Element<?> o);
-	public Bool is(Element o) { return new Bool(this == o); }
+	public Bool is(Element o) { return Bool.valueOf(this == o); }
 
 	// PREDICATES
 	public abstract boolean isValid();
@@ -88,6 +98,8 @@ public abstract class AbstractElement<T extends Element> implements Element<T> {
 	// OWNERS AND USERS
 	public void registerProperty(Property<?> p) {
 
+		if(shared) return;
+
 		// If the property may own this and we don't have an owner, then make this the owner.
 		if(!p.getDeclaration().isReferenceOnly() && getPropertyOwner() == null) {
 			if(p.owner == this) throw new ElementError("Creating ownership cycle!", null);// " + this + " owns " + p + "!", this);
@@ -103,6 +115,8 @@ public abstract class AbstractElement<T extends Element> implements Element<T> {
 	
 	public void unregisterProperty(Property<?> p) {
 		
+		if(shared) return;
+
 		// If this property was the owner, nullify the owner.
 		if(getPropertyOwner() == p) {
 			setPropertyOwner(null);
@@ -133,16 +147,16 @@ public abstract class AbstractElement<T extends Element> implements Element<T> {
 
 		// We only disown ourselves
 		if(this == e) {
-			return new Bool(e.getPropertyOwner().set(new Nothing(), t));
+			return Bool.valueOf(e.getPropertyOwner().set(new Nothing(), t));
 		}
-		else return new Bool(false);
+		else return Bool.valueOf(false);
 		
 	}
 	// Ask property owner to disown
 	public Bool emancipate() { 
 	
 		Property<?> propertyOwner = getPropertyOwner();
-		if(propertyOwner == null) return new Bool(false);
+		if(propertyOwner == null) return Bool.valueOf(false);
 		else return propertyOwner.disown(this, null);
 		
 	}
@@ -157,6 +171,9 @@ public abstract class AbstractElement<T extends Element> implements Element<T> {
 
 	public void addView(ElementView newView) { 
 		
+		// Shared values would collect the views of every property holding them, in every window.
+		if(shared) return;
+
 		if(views == null) views = new WeakSet<ElementView>(newView);
 		else views.include(newView);
 		
@@ -336,60 +353,53 @@ public abstract class AbstractElement<T extends Element> implements Element<T> {
 	//
 	public abstract Text toCitrus();
 
-	public Text toXML() {
-
-		Text typeReference = getType().toCitrusReference();
-		
-		// Write type tag
-		String s = "<" + typeReference + ">\n";
-
-		// Write all of the properties, ignoring those that haven't been requested yet.
-		for(Property<?> p : getProperties()) {
-			if(p.getDeclaration() != BaseElement.environment &&
-			   p.getValueFunction() == null && !p.getDeclaration().isReferenceOnly())
-			s = "" + s + p.toXML() + "\n";
-		}
-		
-		// Close type tag
-		s = s + "</" + typeReference + ">";
-		
-		return new Text(s);
-		
-	}
+	public Text toXML() { return XMLWriter.toXML(this); }
 	
-	private Set<Text> gatherLanguagesUsed(Set<Text> languagesUsed) {
-
-		// What language does this use?
-		languagesUsed.add(((Unit)getType().ownerOfType(Boot.LANGUAGE)).get(Unit.language));
-		System.err.println("Languages used is " + languagesUsed);
-		for(Property<?> p : getProperties())
+	// Adds the names of the languages of this element's type and of the types of everything it
+	// owns. This walks the properties themselves, rather than sets of them, since for a list
+	// that set would have every item, and making it would take time quadratic in its length.
+	private LinkedHashSet<String> gatherLanguagesUsed(LinkedHashSet<String> languagesUsed) {
+
+		// What language does this use? Types parsed from source belong to units, and types
+		// reflected from Java belong to the language for their package.
+		Element<?> language = getType().ownerOfType(Boot.LANGUAGE);
+		if(language instanceof Unit) languagesUsed.add(((Unit)language).get(Unit.language).value);
+		else if(language instanceof Language) languagesUsed.add(((Language)language).getName());
+
+		Iterator<? extends Property<?>> properties;
+		if(this instanceof BaseElement) properties = ((BaseElement<?>)this).getPropertiesInPlace().iterator();
+		else if(this instanceof Group) properties = ((Group<?,?>)this).propertyIterator();
+		else properties = getProperties().iterator();
+		while(properties.hasNext()) {
+			Property<?> p = properties.next();
 			if(!p.isReference())
 				((AbstractElement<?>)p.get()).gatherLanguagesUsed(languagesUsed);
+		}
 		return languagesUsed;
 		
 	}
 
 	public Bool writeXMLTo(Text path) {
 		
-		Set<Text> languagesUsed = gatherLanguagesUsed(new Set<Text>());
-
-		Text xml = toXML();
-		String fileWrapper = "<File>\n";
-		for(Text language : languagesUsed)
-			fileWrapper = fileWrapper + "<uses>" + language + "</uses>\n";
-		fileWrapper = fileWrapper + "</File>\n";
-
-		xml = new Text(fileWrapper + xml);
+		java.util.List<Text> languagesUsed = new LinkedList<Text>();
+		for(String language : gatherLanguagesUsed(new LinkedHashSet<String>()))
+			languagesUsed.add(new Text(language));
 
+		// Paths ending in .gz are compressed; XMLParser.readXMLFrom() reads them the same way.
 		try {
-			FileWriter writer = new FileWriter(new File(path.value));
-			writer.write(xml.value);
-			writer.close();
-			return new Bool(true);
+			OutputStream stream = new FileOutputStream(new File(path.value));
+			if(path.value.endsWith(".gz")) stream = new GZIPOutputStream(stream, 1 << 16);
+			XMLWriter writer = new XMLWriter(stream);
+			try {
+				writer.writeHeader(languagesUsed);
+				writer.write(this);
+			}
+			finally { writer.close(); }
+			return Bool.valueOf(true);
 		}
 		catch(IOException e) {
 			System.err.println("Couldn't write to " + path + ": " + e);
-			return new Bool(false);
+			return Bool.valueOf(false);
 		}
 		
 	}
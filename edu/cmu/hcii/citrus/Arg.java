@@ -27,7 +27,7 @@ package edu.cmu.hcii.citrus;
 public class Arg extends BaseElement<Arg> {
 
 	public static final BootDec<Text> param = new BootDec<Text>(new Text(""));
-	public static final BootDec<Bool> valueIsConstraint = new BootDec<Bool>(new Bool(false));
+	public static final BootDec<Bool> valueIsConstraint = new BootDec<Bool>(Bool.valueOf(false));
 	public static final BootDec<Element<?>> value = new BootDec<Element<?>>(new Nothing());
 
 	public Arg() {}
@@ -35,7 +35,7 @@ public class Arg extends BaseElement<Arg> {
 	public Arg(String newParam, boolean newValueIsConstraint, Element<?> newValue) {
 
 		set(param, new Text(newParam));
-		set(valueIsConstraint, new Bool(newValueIsConstraint));
+		set(valueIsConstraint, Bool.valueOf(newValueIsConstraint));
 		set(value, newValue);
 		
 	}
@@ -90,13 +90,7 @@ public class Array<ItemType extends Element<?>> extends BootElement<Array> {
 	
 	public String toString() { return toCitrus().value; }
 
-	public Text toXML() {
-
-		String s = "";
-		for(Property<ItemType> item : items) s = s + item.get().toXML() + "\n";
-		return new Text(s);
-		
-	}
+	public Text toXML() { return XMLWriter.toXML(this); }
 
 	public Array<ItemType> evaluate(Element<?> env) { return this; }
 
@@ -114,6 +108,6 @@ public class Array<ItemType extends Element<?>> extends BootElement<Array> {
 		
 	}
 	
-	public Bool isEquivalentTo(Element<?> o) { return new Bool(this.equals(o)); }
+	public Bool isEquivalentTo(Element<?> o) { return Bool.valueOf(this.equals(o)); }
 
 }
\ No newline at end of file
@@ -24,6 +24,7 @@
 
 package edu.cmu.hcii.citrus;
 
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.Hashtable;
 
@@ -48,11 +49,21 @@ public class BaseElement<T extends Element> extends AbstractElement<T> {
 	//
 	/////////////////////////////////////////////////
 
-	// Points to the owner of the property that current owns this element.
-	protected final Property<Property<Element>> propertyOwner;
+	// Points to the owner of the property that current owns this element. Most elements are
+	// never owned, or never asked, so we don't make this until we have to. See ownerProperty().
+	private Property<Property<Element>> propertyOwner = null;
 
 	// This is the table of properties
 	private final Hashtable<String, Property<?>> properties;
+
+	// The same properties, indexed by their declaration's slot, so that looking up a property
+	// by declaration is an array load instead of a synchronized hash lookup. A slot may be empty
+	// if its property hasn't been made yet, and properties whose declarations have no slot
+	// (or a slot in some other type's layout) are only in the table.
+	private Property<?>[] slots;
+
+	// The enclosing instance property, if there is one, which we look for often.
+	private Property<Element> enclosingInstanceProperty = null;
 	
 	private LinkedList<ViewState> viewStateList = null;
 	
@@ -78,10 +89,6 @@ public class BaseElement<T extends Element> extends AbstractElement<T> {
 	public BaseElement(ArgumentList arguments) { this(null, arguments); }
 	public BaseElement(Namespace type, ArgumentList arguments) {
 
-		// Make a new element owner property to point to the owner.
-		propertyOwner = new Property<Property<Element>>(this, owner);
-		propertyOwner.initialize(null, false, null);
-
 		// If no type was provided, get one from this element's class.
 		if(type == null) namespace = Reflection.getJavaType(getClass());
 		// Otherwise, use the type provided.
@@ -90,7 +97,7 @@ public class BaseElement<T extends Element> extends AbstractElement<T> {
 		// Make the table of an appropriate size. One extra for the element owner
 		// and one extra for the enclosing instance.
 		properties = new Hashtable<String,Property<?>>(namespace.getNumberOfDeclarations() + 2);
-		Property<?>[] propertyList = new Property[namespace.getNumberOfDeclarations()];
+		slots = new Property<?>[namespace.getNumberOfDeclarations()];
 
 		// Is there an inclosing instance in the arguments?
 		if(arguments != null) {
@@ -165,6 +172,12 @@ public class BaseElement<T extends Element> extends AbstractElement<T> {
 		// Put the relation in the properties table
 		properties.put(newProperty.getName().value, newProperty);
 		
+		// And in its slot, if it has one that's free in this element.
+		DecInterface<?> declaration = newProperty.getDeclaration();
+		int slot = declaration.getSlot();
+		if(slot >= 0 && slot < slots.length && slots[slot] == null) slots[slot] = newProperty;
+		if(declaration == environment) enclosingInstanceProperty = (Property<Element>)newProperty;
+
 		return newProperty;
 		
 	}
@@ -172,35 +185,70 @@ public class BaseElement<T extends Element> extends AbstractElement<T> {
 	// Contructs a set view of this Element's property table's values.
 	public Set<Property<?>> getProperties() { return new Set<Property<?>>(properties.values()); }
 
+	// The properties themselves, for walking them without making a set of them. See XMLWriter.
+	Collection<Property<?>> getPropertiesInPlace() { return properties.values(); }
+
 	// A typesafe, but slower way to access a property. This uses the declaration's type variables to return a type
 	// of the appropriate type.
 	public <ValueType extends Element> Property<ValueType> getPropertyByDeclaration(DecInterface<ValueType> declaration) {
 
 		// We can't be sure that the property of the given name is of the appropriate type.
-		return (Property<ValueType>)getProperty(declaration.getName());
+		return (Property<ValueType>)propertyFor(declaration);
 		
 	}
 
+	// Finds the property for the given declaration in its slot, falling back to a search by name.
+	// The property in the slot may have been made from a declaration that overrides this one, 
+	// which is fine, as long as it has the same name.
+	private Property<?> propertyFor(DecInterface<?> declaration) {
+
+		int slot = declaration.getSlot();
+		if(slot >= 0 && slot < slots.length) {
+			Property<?> p = slots[slot];
+			if(p != null) {
+				DecInterface<?> declarationInSlot = p.getDeclaration();
+				if(declarationInSlot == declaration || declarationInSlot.getName().value.equals(declaration.getName().value))
+					return p;
+			}
+		}
+		return getProperty(declaration.getName());
+
+	}
+
+	// True if this element hasn't made a property for the given declaration and its type doesn't
+	// override it, so the property could only have the declaration's default. Lets paint and the
+	// like check rarely set properties without making one on every element they visit.
+	public boolean hasOnlyDefault(DecInterface<?> declaration) {
+
+		String name = declaration.getName().value;
+		int slot = declaration.getSlot();
+		Property<?> p = slot >= 0 && slot < slots.length ? slots[slot] : null;
+		if(p != null && p.getDeclaration().getName().value.equals(name)) return false;
+		if(properties.containsKey(name)) return false;
+		return namespace.getDeclarationOf(declaration.getName()) == declaration;
+
+	}
+
 	// A typesafe, but slower way to access a property's value, using the declaration's type variables.
-	public String text(DecInterface<Text> declaration) { return ((Text)(getProperty(declaration.getName()).get())).value; }
-	public char character(DecInterface<Char> declaration) { return ((Char)(getProperty(declaration.getName()).get())).value; }
-	public int integer(DecInterface<Int> declaration) { return ((Int)(getProperty(declaration.getName()).get())).value; }
-	public boolean bool(DecInterface<Bool> declaration) { return ((Bool)(getProperty(declaration.getName()).get())).value; }
-	public double real(DecInterface<Real> declaration) { return ((Real)(getProperty(declaration.getName()).get())).value; }
+	public String text(DecInterface<Text> declaration) { return ((Text)(propertyFor(declaration).get())).value; }
+	public char character(DecInterface<Char> declaration) { return ((Char)(propertyFor(declaration).get())).value; }
+	public int integer(DecInterface<Int> declaration) { return ((Int)(propertyFor(declaration).get())).value; }
+	public boolean bool(DecInterface<Bool> declaration) { return ((Bool)(propertyFor(declaration).get())).value; }
+	public double real(DecInterface<Real> declaration) { return ((Real)(propertyFor(declaration).get())).value; }
 
 	public <ValueType extends Element<?>> ValueType get(DecInterface<ValueType> declaration) {
-		return (ValueType)getProperty(declaration.getName()).get();		
+		return (ValueType)propertyFor(declaration).get();		
 	}
 
 	public <ValueType extends Element<?>> ValueType peek(DecInterface<ValueType> declaration) {
-		return (ValueType)getProperty(declaration.getName()).peek();
+		return (ValueType)propertyFor(declaration).peek();
 		
 	}
 
 	// We can't be sure that the property of the given name is of the appropriate type.
 	public <ValueType extends Element<?>> boolean set(DecInterface<ValueType> property, ValueType value) { return getPropertyByDeclaration(property).set(value); }
 	public <ValueType extends Element<?>> boolean set(DecInterface<ValueType> property, ValueType value, Transition t) { return getPropertyByDeclaration(property).set(value, t); }
-	public boolean set(String name, boolean value) { return ((Property)getProperty(new Text(name))).set(new Bool(value)); }
+	public boolean set(String name, boolean value) { return ((Property)getProperty(new Text(name))).set(Bool.valueOf(value)); }
 	public boolean set(String name, String value) { return ((Property)getProperty(new Text(name))).set(new Text(value)); }
 	
 	// Searches the hashtable for a property of the given name.
@@ -235,20 +283,20 @@ public class BaseElement<T extends Element> extends AbstractElement<T> {
 	public Bool hasa(Text name) { 
 	
 		for(DecInterface<?> pd : namespace.getDeclarationsToInstantiate())
-			if(pd.getName().equals(name)) return new Bool(true);
-		return new Bool(false);
+			if(pd.getName().equals(name)) return Bool.valueOf(true);
+		return Bool.valueOf(false);
 		
 	}
 	
 	public Element<?> getEnclosingInstance() {
 
-		Property<Element> enclosing = (Property<Element>)properties.get(environment.getName().value);
+		Property<Element> enclosing = enclosingInstanceProperty;
 		if(enclosing == null) return null;
 		else return enclosing.peek();
 
 	}
 
-	public Bool isEquivalentTo(Element<?> e) { return new Bool(this.equals(e)); }
+	public Bool isEquivalentTo(Element<?> e) { return Bool.valueOf(this.equals(e)); }
 
 	public <ElementType extends Element> ElementType getOwnerOfType(Class<ElementType> c) {
 		
@@ -323,7 +371,7 @@ public class BaseElement<T extends Element> extends AbstractElement<T> {
 
 		if(oldElement == this) {
 
-			Property pOwner = propertyOwner.get();
+			Property pOwner = getPropertyOwner();
 			if(pOwner == null) System.err.println("Nothing owns " + this);
 			else pOwner.set(newElement, t);
 			return newElement;		
@@ -346,8 +394,35 @@ public class BaseElement<T extends Element> extends AbstractElement<T> {
 		
 	}
 
-	public Property getPropertyOwner() { return propertyOwner.get(); }
-	protected void setPropertyOwner(Property p) { propertyOwner.set(p); }
+	// If a constraint asks for the owner, it has to depend on the owner property, so we make it.
+	// Otherwise, an owner that was never set is just null.
+	public Property getPropertyOwner() { 
+		
+		if(propertyOwner == null && !EvaluationContext.current().isDoing(EvaluationContext.Action.evaluate)) return null;
+		return ownerProperty().get(); 
+		
+	}
+	protected void setPropertyOwner(Property p) { 
+		
+		if(propertyOwner == null && p == null) return;
+		ownerProperty().set(p); 
+		
+	}
+
+	// Makes a new element owner property to point to the owner, if we haven't yet.
+	private synchronized Property<Property<Element>> ownerProperty() {
+		
+		if(propertyOwner == null) {
+			Property<Property<Element>> newOwner = new Property<Property<Element>>(this, owner);
+			newOwner.initialize(null, false, null);
+			propertyOwner = newOwner;
+		}
+		return propertyOwner;
+		
+	}
+
+	// The property that owns this element, without depending on it.
+	Property<?> peekPropertyOwner() { return propertyOwner == null ? null : propertyOwner.peek(); }
 	
 	// An element is valid if all of its properties are valid.
 	public boolean isValid() {
@@ -376,7 +451,7 @@ public class BaseElement<T extends Element> extends AbstractElement<T> {
 		Element owner = this;
 		while(owner != null && !owner.getType().isTypeOf(t).value) {
 			if(owner instanceof BaseElement) {
-				Property pOwner = (Property)((BaseElement)owner).propertyOwner.peek();
+				Property pOwner = ((BaseElement)owner).peekPropertyOwner();
 				if(pOwner == null) return null;
 				owner = pOwner.getElementOwner();
 			}
@@ -29,7 +29,7 @@ public class BaseFunction extends BaseElement<Function> implements Function {
 
 	public static final Dec<Text> name = new Dec<Text>(new Text(""));
 	public static final Dec<List<DecInterface>> arguments = new Dec<List<DecInterface>>(new NewList<DecInterface>());
-	public static final Dec<Bool> isStatic = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> isStatic = new Dec<Bool>(Bool.valueOf(false));
 	public static final Dec<TypeExpression> returnType = new Dec<TypeExpression>();
 	public static final Dec<Element> expression = new Dec<Element>();
 
@@ -43,7 +43,7 @@ public class BaseFunction extends BaseElement<Function> implements Function {
 		// We don't do lazy evaluation for functions.
 		for(DecInterface dec : peek(arguments)) env.get(dec);
 		
-		Element<?> result = expr.evaluate(env);
+		Element<?> result = Compiler.evaluate(expr, env);
 
 		return result;
 
@@ -56,7 +56,7 @@ public class BaseFunction extends BaseElement<Function> implements Function {
 	public String getName() { return peek(name).value; }
 	public boolean isStatic() { return peek(isStatic).value; }
 	public String toString() { return "fun " + getName(); }
-	public Bool isTypeOf(Namespace t) { return new Bool(t == this); }
+	public Bool isTypeOf(Namespace t) { return Bool.valueOf(t == this); }
 	public Language getLanguage() { return getOwnerOfType(Language.class); }
 	public int getNumberOfDeclarations() { return peek(arguments).length().value; }
 
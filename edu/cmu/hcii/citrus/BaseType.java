@@ -41,6 +41,11 @@ public class BaseType extends BaseElement<Type> implements Type {
 	private Constructor<?> constructorWithTypeAndArguments;
 	private Constructor<?> constructorWithArguments;
 	private Constructor<?> constructorWithoutArguments;
+
+	// The constructors above, bound when they're found, or null if they couldn't be. See Reflection.handleFor().
+	private Reflection.Handle newWithTypeAndArguments;
+	private Reflection.Handle newWithArguments;
+	private Reflection.Handle newWithoutArguments;
 	//////////////////////////////////
 
 	public static final BootDec<Text> name = new BootDec<Text>(new Text(""));
@@ -52,9 +57,9 @@ public class BaseType extends BaseElement<Type> implements Type {
 	public static final BootDec<List<Function>> staticFunctions = new BootDec<List<Function>>(new List<Function>());
 	public static final BootDec<List<When>> handlers = new BootDec<List<When>>(new List<When>());
 	public static final BootDec<List<DecInterface<?>>> staticProperties = new BootDec<List<DecInterface<?>>>(new List<DecInterface<?>>());
-	public static final BootDec<Bool> concrete = new BootDec<Bool>(new Bool(true));
+	public static final BootDec<Bool> concrete = new BootDec<Bool>(Bool.valueOf(true));
 	public static final BootDec<Expression> evaluation = new BootDec<Expression>(null);
-	public static final BootDec<Bool> debug = new BootDec<Bool>(new Bool(true));
+	public static final BootDec<Bool> debug = new BootDec<Bool>(Bool.valueOf(true));
 
 	// A pointer to the type that contains this type.
 	public Type enclosingType = null;	
@@ -63,6 +68,15 @@ public class BaseType extends BaseElement<Type> implements Type {
 	// Null indicates that this hasn't been consolidated yet.
 	private Hashtable<String, DecInterface> declarationsToInstantiate = null;
 
+	// The declarations to instantiate, in slot order. See layOutSlots().
+	private DecInterface<?>[] slotLayout = new DecInterface<?>[0];
+
+	// Incremented whenever any type gains a declaration, type or function, or is consolidated,
+	// so that anything caching the results of name resolution (such as Ref) knows to start over.
+	private static volatile int definitionVersion = 0;
+	public static int getDefinitionVersion() { return definitionVersion; }
+	public static void definitionsChanged() { definitionVersion++; }
+
 	public BaseType() { this((ArgumentList)null); }
 	public BaseType(Class<?> newJavaElementClass) { 
 
@@ -133,6 +147,7 @@ public class BaseType extends BaseElement<Type> implements Type {
 					throw new ElementError("" + this + " already has a declaration with name " + declaration.getName(), null);			
 			get(properties).append(declaration);
 		}
+		definitionsChanged();
 		return null;
 		
 	}
@@ -145,6 +160,7 @@ public class BaseType extends BaseElement<Type> implements Type {
 //				throw new ElementError("" + this + " already has a type with the name " + newType.getName() + ": " + newType, this);
 			}
 		get(types).append(newType);
+		definitionsChanged();
 		return null;
 	}
 	
@@ -156,6 +172,7 @@ public class BaseType extends BaseElement<Type> implements Type {
 				System.err.println("Warning: not overwriting existing definition of " + newFunction.getName());
 
 		functionListToAppendTo.append(newFunction);			
+		definitionsChanged();
 		return null;
 	}
 	
@@ -226,29 +243,23 @@ public class BaseType extends BaseElement<Type> implements Type {
 				
 				if(arguments != null && !arguments.isEmpty()) {
 				
-					if(constructorWithTypeAndArguments != null) {
-						Object[] args = { this, arguments };
-						newElement = (Element)constructorWithTypeAndArguments.newInstance(args);
-					}
-					else if(constructorWithArguments != null) {
-						Object[] args = { arguments };
-						newElement = (Element)constructorWithArguments.newInstance(args);	
-					}
+					if(constructorWithTypeAndArguments != null)
+						newElement = constructWithTypeAndArguments(arguments);
+					else if(constructorWithArguments != null)
+						newElement = constructWithArguments(arguments);
 					else throw new ElementError("" + javaElementClass + " has no constructor that takes arguments, but I have these arguments " + arguments, this);
 	
 				}
 				else {
-					if(constructorWithTypeAndArguments != null) {
-						Object[] args = { this, new ArgumentList() };
-						newElement = (Element)constructorWithTypeAndArguments.newInstance(args);
-					}
+					if(constructorWithTypeAndArguments != null)
+						newElement = constructWithTypeAndArguments(new ArgumentList());
 					else if(constructorWithoutArguments == null)
 						if(constructorWithArguments == null)
 							throw new ElementError("" + javaElementClass + " has no constructor with no arguments!", this);
-						else { 			
-							Object[] args = { arguments };
-							newElement = (BaseElement)constructorWithArguments.newInstance(args);	
-						}
+						else 
+							newElement = (BaseElement)constructWithArguments(arguments);	
+					else if(newWithoutArguments != null)
+						newElement = (BaseElement)Reflection.invoke(newWithoutArguments);
 					else {
 						newElement = (BaseElement)javaElementClass.newInstance();
 					}
@@ -276,6 +287,22 @@ public class BaseType extends BaseElement<Type> implements Type {
 
 	}
 
+	private Element<?> constructWithTypeAndArguments(ArgumentList arguments) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+
+		if(newWithTypeAndArguments != null) return (Element)Reflection.invoke(newWithTypeAndArguments, this, arguments);
+		Object[] args = { this, arguments };
+		return (Element)constructorWithTypeAndArguments.newInstance(args);
+
+	}
+
+	private Element<?> constructWithArguments(ArgumentList arguments) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+
+		if(newWithArguments != null) return (Element)Reflection.invoke(newWithArguments, arguments);
+		Object[] args = { arguments };
+		return (Element)constructorWithArguments.newInstance(args);
+
+	}
+
 	// Constructs a canonical list of property declarations that should be used to instantiate
 	// elements of this type, by searching through this type's prototypes and finding all of the
 	// property declarations that need to be instantiated, and in what order.
@@ -283,6 +310,8 @@ public class BaseType extends BaseElement<Type> implements Type {
 	// Also sets each property's declaration overriden, based on the property's type's supertype.
 	public void consolidate() {
 		
+		definitionsChanged();
+
 		// If we haven't consolidated yet, instantiate a new table of declarations to instantiate.
 		if(declarationsToInstantiate == null) declarationsToInstantiate = new Hashtable<String,DecInterface>(20);
 		// Otherwise, we'll start from scratch.
@@ -312,6 +341,9 @@ public class BaseType extends BaseElement<Type> implements Type {
 			try { constructorWithTypeAndArguments = javaElementClass.getConstructor(typeTableArguments); } catch(NoSuchMethodException e) {}		
 			try { constructorWithoutArguments = javaElementClass.getConstructor(noArguments); } catch(NoSuchMethodException e) {}		
 			try { constructorWithArguments = javaElementClass.getConstructor(tableArgument); } catch(NoSuchMethodException nsme) {}
+			newWithTypeAndArguments = Reflection.handleFor(constructorWithTypeAndArguments);
+			newWithArguments = Reflection.handleFor(constructorWithArguments);
+			newWithoutArguments = Reflection.handleFor(constructorWithoutArguments);
 		}
 
 		while(prototype != ELEMENT && prototype != null) {
@@ -344,6 +376,8 @@ public class BaseType extends BaseElement<Type> implements Type {
 			
 		}	
 		
+		slotLayout = layOutSlots(get(BaseType.prototype).getBaseType(), getDeclarationsDeclared(), declarationsToInstantiate);
+
 		// Now that we're done, consolidate this type's inner types.
 		for(Type type : get(BaseType.types)) type.consolidate();
 				
@@ -354,6 +388,38 @@ public class BaseType extends BaseElement<Type> implements Type {
 
 	}
 
+	DecInterface<?>[] getSlotLayout() { return slotLayout; }
+
+	// Gives each declaration to instantiate a slot, the index of its property in the elements
+	// of this type, so that elements can find properties by declaration with an array index
+	// rather than a hash lookup by name. Names keep the slots their prototype gave them, so that
+	// a declaration has the same slot in every type that inherits or overrides it.
+	static DecInterface<?>[] layOutSlots(Type prototype, Iterable<DecInterface> declared, Hashtable<String,DecInterface> declarationsToInstantiate) {
+
+		DecInterface<?>[] inherited = 
+			prototype instanceof BaseType ? ((BaseType)prototype).getSlotLayout() :
+			prototype instanceof BootType ? ((BootType)prototype).getSlotLayout() : null;
+
+		DecInterface<?>[] layout = new DecInterface<?>[declarationsToInstantiate.size()];
+		HashSet<String> placed = new HashSet<String>();
+		int size = 0;
+
+		// First the names our prototype laid out, then the names this type declares, then any others.
+		if(inherited != null)
+			for(DecInterface<?> dec : inherited) {
+				DecInterface<?> declaration = declarationsToInstantiate.get(dec.getName().value);
+				if(declaration != null && placed.add(dec.getName().value)) layout[size++] = declaration;
+			}
+		for(DecInterface<?> dec : declared)
+			if(declarationsToInstantiate.get(dec.getName().value) == dec && placed.add(dec.getName().value)) layout[size++] = dec;
+		for(DecInterface<?> dec : declarationsToInstantiate.values())
+			if(placed.add(dec.getName().value)) layout[size++] = dec;
+
+		for(int slot = 0; slot < size; slot++) layout[slot].setSlot(slot);
+		return layout;
+
+	}
+
 	// Creates a subclass that overrides all of this type's declarations with duplicate value functions
 	public BaseType createSubType(Text name) {
 
@@ -25,16 +25,16 @@ package edu.cmu.hcii.citrus;
 
 public class Bool extends BootElement<Bool> {
 
-	// Both set in Boot.java
-	public static Bool TRUE, FALSE;
+	// The canonical true and false, which are shared by everything, and so have no owners or users.
+	public static final Bool TRUE = shared(new Bool(true)), FALSE = shared(new Bool(false));
 	
 	public final boolean value;
 
 	public Bool(boolean newValue) { value = newValue; }
 
 	public Bool not() { return value ? FALSE : TRUE; }
-	public Bool and(Bool operand) { return new Bool(value && operand.value); }
-	public Bool or(Bool operand) { return new Bool(value || operand.value); }
+	public Bool and(Bool operand) { return valueOf(value && operand.value); }
+	public Bool or(Bool operand) { return valueOf(value || operand.value); }
 
 	public Boolean valueFromString(String s) { 
 		
@@ -46,7 +46,7 @@ public class Bool extends BootElement<Bool> {
 	
 	public Namespace<?> getType() { return Boot.BOOL; }
 
-	public Bool isEquivalentTo(Element<?> e) { return new Bool(e instanceof Bool && ((Bool)e).value == value); }
+	public Bool isEquivalentTo(Element<?> e) { return valueOf(e instanceof Bool && ((Bool)e).value == value); }
 	public Element duplicate() { return new Bool(value); }
 	
 	public Text toCitrus() { return new Text("" + value); }
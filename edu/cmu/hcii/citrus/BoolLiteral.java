@@ -31,8 +31,8 @@ public class BoolLiteral extends Expression<Bool> {
 	public static final Dec<Bool> value = new Dec<Bool>(true, new BaseElement<Bool>() {
 		public Bool evaluate(Element<?> env) {
 			
-			if(env.get(token).value.equals("true")) return new Bool(true);
-			else return new Bool(false);
+			if(env.get(token).value.equals("true")) return Bool.valueOf(true);
+			else return Bool.valueOf(false);
 			
 		}
 	});
@@ -148,9 +148,6 @@ public class Boot {
 		BaseType.prototype.defaultValue = new BaseTypeExpression(Boot.ELEMENT);
 		Dec.typeExpression.defaultValue = new BaseTypeExpression(ELEMENT);
 
-		Bool.TRUE = new Bool(true);
-		Bool.FALSE = new Bool(false);
-
 		// TypeExpression base type names must be valid type names
 //		BaseTypeExpression.name.is(new PropertyRestriction("(name matches \"[a-zA-Z]*\")", "name"));
 
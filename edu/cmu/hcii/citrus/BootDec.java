@@ -49,6 +49,11 @@ public class BootDec<ValueType extends Element> extends BootElement<DecInterface
 	// NAME
 	public Text getName() { return name; }
 
+	// SLOT
+	private int slot = -1;
+	public int getSlot() { return slot; }
+	public void setSlot(int newSlot) { slot = newSlot; }
+
 	// MODIFIERS
 	public boolean isStatic() { return false; }
 	public boolean isOverridable() { return false; }
@@ -164,7 +169,7 @@ public class BootDec<ValueType extends Element> extends BootElement<DecInterface
 
 	public Element duplicate() { throw new RuntimeException("Can't duplicate a bootstrapped property declaration"); }
 	
-	public Bool isEquivalentTo(Element<?> e) { return new Bool(this == e); }
+	public Bool isEquivalentTo(Element<?> e) { return Bool.valueOf(this == e); }
 
 	public DecInterface evaluate(Element<?> env) { return this; }
 	
@@ -38,7 +38,7 @@ public abstract class BootElement<T extends Element> extends AbstractElement<T>
 	// PROPERTIES
 	public Set<Property<?>> getProperties() { return new Set<Property<?>>(); }
 	public Property getProperty(Text name) { return null; }
-	public Bool hasa(Text name) { System.err.println("Haven't actually implemented hasPropertyNamed() for BootElement."); return new Bool(false); }
+	public Bool hasa(Text name) { System.err.println("Haven't actually implemented hasPropertyNamed() for BootElement."); return Bool.valueOf(false); }
 	public Element<?> getEnclosingInstance() { return null; }
 
 	// GETTING
@@ -53,7 +53,7 @@ public abstract class BootElement<T extends Element> extends AbstractElement<T>
 	}
 
 	// EQUALITY
-	public Bool isEquivalentTo(Element<?> e) { return this == e ? new Bool(true) : new Bool(false); }
+	public Bool isEquivalentTo(Element<?> e) { return this == e ? Bool.valueOf(true) : Bool.valueOf(false); }
 	
 	// PREDICATES
 	public boolean isValid() { return true; }
@@ -46,6 +46,9 @@ public class BootType extends BootElement<Type> implements Type {
 	public Class<? extends Object> javaClass;
 	private Hashtable<String, DecInterface> declarationsToInstantiate = null;
 
+	// The declarations to instantiate, in slot order. See BaseType.layOutSlots().
+	private DecInterface<?>[] slotLayout = new DecInterface<?>[0];
+
 	public BootType(Class javaClass, Class ... otherClasses) {
 		
 		this.javaClass = javaClass;
@@ -102,7 +105,7 @@ public class BootType extends BootElement<Type> implements Type {
 		
 		if(nameToFind.value.equals("name")) return new Text(name);
 		else if(nameToFind.value.equals("prototype")) return prototype;
-		else if(nameToFind.value.equals("concrete")) return new Bool(concrete);
+		else if(nameToFind.value.equals("concrete")) return Bool.valueOf(concrete);
 		else return null;
 		
 	}
@@ -112,7 +115,7 @@ public class BootType extends BootElement<Type> implements Type {
 		
 		if(declaration == BaseType.name) return (ValueType)new Text(name);
 		else if(declaration == BaseType.prototype) return (ValueType)prototype;
-		else if(declaration == BaseType.concrete) return (ValueType)(new Bool(concrete));
+		else if(declaration == BaseType.concrete) return (ValueType)(Bool.valueOf(concrete));
 		else if(declaration == BaseType.types) return (ValueType)new List();
 		else throw new ElementError("Couldn't find property named " + declaration + " in bootstrapped type ", this);
 
@@ -133,7 +136,7 @@ public class BootType extends BootElement<Type> implements Type {
 	public Element duplicate() { return this; }
 
 	// EQUIVALENCE
-	public Bool isEquivalentTo(Element<?> e) { return new Bool(e == this); }
+	public Bool isEquivalentTo(Element<?> e) { return Bool.valueOf(e == this); }
 
 	// EVALUATION
 	public Type evaluate(Element<?> env) { return this; }	
@@ -158,11 +161,11 @@ public class BootType extends BootElement<Type> implements Type {
 	// Returns true if this type, or it's prototype's type, etc. is the given type.
 	public Bool isTypeOf(Namespace t) {
 
-		if(this == t) return new Bool(true);
+		if(this == t) return Bool.valueOf(true);
 		// Otherwise, if this has a prototype, ask if its prototype if the prototype is of the given type.
 		else if(getPrototype() != null) return getPrototype().isTypeOf(t);
 		// Otherwise, its not a prototype
-		else return new Bool(false);
+		else return Bool.valueOf(false);
 
 	}
 	
@@ -273,9 +276,13 @@ public class BootType extends BootElement<Type> implements Type {
 			proto = proto.getPrototype();
 			
 		}
+
+		slotLayout = BaseType.layOutSlots(getPrototype(), getDeclarationsDeclared(), declarationsToInstantiate);
 				
 	}
 
+	DecInterface<?>[] getSlotLayout() { return slotLayout; }
+
 	public boolean needsConsolidation() { return declarationsToInstantiate == null; }
 	
 	public int getNumberOfDeclarations() { 
@@ -48,8 +48,8 @@ public class BootTypeExpression extends BootElement<TypeExpression> implements T
 	// EQUIVALENCE
 	public Bool isEquivalentTo(Element<?> o) { 
 
-		if(!(o instanceof TypeExpression)) return new Bool(false);
-		else return new Bool(false);
+		if(!(o instanceof TypeExpression)) return Bool.valueOf(false);
+		else return Bool.valueOf(false);
 	
 	}
 
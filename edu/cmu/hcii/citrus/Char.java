@@ -29,6 +29,13 @@ public class Char extends BootElement<Char> {
 
 	public Char(char newValue) { value = newValue; }
 
+	// Canonical instances of the ASCII characters, shared by everything, and so without owners
+	// or users. Use new Char() for a character that something will own.
+	private static final Char[] cache = new Char[128];
+	static { for(char c = 0; c < cache.length; c++) cache[c] = shared(new Char(c)); }
+
+	public static Char valueOf(char value) { return value < cache.length ? cache[value] : new Char(value); }
+
 	public Boolean valueFromString(String s) { 
 		
 		throw new ElementError("Not parsing chars yet.", this);
@@ -37,7 +44,7 @@ public class Char extends BootElement<Char> {
 	
 	public Namespace<?> getType() { return Boot.CHAR; }
 
-	public Bool isEquivalentTo(Element<?> e) { return new Bool(e.getType() == getType() && ((Char)e).value == value); }
+	public Bool isEquivalentTo(Element<?> e) { return Bool.valueOf(e.getType() == getType() && ((Char)e).value == value); }
 	public Element duplicate() { return new Char(value); }
 	
 	public Text toCitrus() { return new Text("" + value); }
@@ -45,14 +52,14 @@ public class Char extends BootElement<Char> {
 	public String toString() { return "`" + value + "`"; }
 	public Text toText() { return toCitrus(); }
 	public Text toXML() { return toCitrus(); }
-	public Bool isALetter() { return new Bool(Character.isLetter(value)); }	
+	public Bool isALetter() { return Bool.valueOf(Character.isLetter(value)); }	
 
 
-	public Bool isWhitespace() { return new Bool(Character.isWhitespace(value)); }
-	public Bool isLetter() { return new Bool(Character.isLetter(value)); }
-	public Bool isDigit() { return new Bool(Character.isDigit(value)); }
+	public Bool isWhitespace() { return Bool.valueOf(Character.isWhitespace(value)); }
+	public Bool isLetter() { return Bool.valueOf(Character.isLetter(value)); }
+	public Bool isDigit() { return Bool.valueOf(Character.isDigit(value)); }
 	public Bool isVowel() { 
-		return new Bool(value == 'a' || value == 'A' ||
+		return Bool.valueOf(value == 'a' || value == 'A' ||
 						value == 'e' || value == 'E' ||
 						value == 'i' || value == 'I' ||
 						value == 'o' || value == 'O' ||
@@ -277,9 +277,20 @@ public class CitrusParser {
 
 	}
 	
-	public static Unit unit(File file) {
+	public static Unit unit(File file) { return unit(file, tokenize(file)); }
 
-		char[] text = XMLParser.readCharactersFrom(file); 
+	// Reads and tokenizes the given file, returning null if it couldn't be read. Tokenizing 
+	// doesn't touch anything shared, so files can be tokenized on any thread.
+	public static TokenList tokenize(File file) {
+
+		char[] text = XMLParser.readCharactersFrom(file);
+		return text == null ? null : tokenize(text);
+
+	}
+
+	// Parses the tokens read from the given file. Parsing creates types and may load the 
+	// languages the unit uses, so units must be parsed one at a time.
+	public static Unit unit(File file, TokenList tokens) {
 
 		System.err.println("");
 		for(int i = 0; i < levels; i++)
@@ -288,8 +299,8 @@ public class CitrusParser {
 		levels++;
 		
 		Unit newUnit = null;
-		if(text != null)
-			newUnit = unit(file.getName(), text);
+		if(tokens != null)
+			newUnit = unit(file.getName(), tokens);
 
 		levels--;
 		return newUnit;
@@ -425,8 +436,8 @@ public class CitrusParser {
 		
 		// Eat "has", "refs", or "rule"
 		String tok = tokens.eat(TokenType.NAME);
-		if(tok.equals(HAS_KEYWORD)) newDeclaration.set(Dec.isReference, new Bool(false));
-		else if(tok.equals(REFS_KEYWORD)) newDeclaration.set(Dec.isReference, new Bool(true));
+		if(tok.equals(HAS_KEYWORD)) newDeclaration.set(Dec.isReference, Bool.valueOf(false));
+		else if(tok.equals(REFS_KEYWORD)) newDeclaration.set(Dec.isReference, Bool.valueOf(true));
 		else throw new ElementError("Only \"" + HAS_KEYWORD + "\" or \"" + REFS_KEYWORD + "\" are allowed here." + context(tokens), null);
 
 		while(tokens.currentToken().equals("undoable") ||
@@ -457,9 +468,9 @@ public class CitrusParser {
 		
 			String operator = tokens.eat(TokenType.ARGUMENT);
 			if(operator.equals("" + DEFAULT))
-				newDeclaration.set(Dec.functionIsConstraint, new Bool(false));
+				newDeclaration.set(Dec.functionIsConstraint, Bool.valueOf(false));
 			else if(operator.equals(CONSTRAINT))
-				newDeclaration.set(Dec.functionIsConstraint, new Bool(true));
+				newDeclaration.set(Dec.functionIsConstraint, Bool.valueOf(true));
 			else throw new ElementError("Declarations can only be assigned using = or <-", null);
 			
 			// Is it code or a parameter?
@@ -516,9 +527,9 @@ public class CitrusParser {
 		// Eat the type of the declaration if its not a rule
 		newDeclaration.set(Dec.typeExpression, new BaseTypeExpression(Boot.BOOL));
 
-		newDeclaration.set(Dec.isRule, new Bool(true));
-		newDeclaration.set(Dec.isReference, new Bool(false));
-		newDeclaration.set(Dec.functionIsConstraint, new Bool(true));
+		newDeclaration.set(Dec.isRule, Bool.valueOf(true));
+		newDeclaration.set(Dec.isReference, Bool.valueOf(false));
+		newDeclaration.set(Dec.functionIsConstraint, Bool.valueOf(true));
 		newDeclaration.set(Dec.valueExpression, (Expression)code(tokens));
 
 		// This value must be true.
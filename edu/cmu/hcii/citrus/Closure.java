@@ -60,7 +60,7 @@ public class Closure extends BaseElement<Function> implements Function {
 	public Iterable<DecInterface> getDeclarationsDeclared() { return fun.getDeclarationsDeclared(); }
 	public String getName() { return fun.getName(); }
 	public String toString() { return "fun " + getName(); }
-	public Bool isTypeOf(Namespace t) { return new Bool(t == this); }
+	public Bool isTypeOf(Namespace t) { return Bool.valueOf(t == this); }
 	public Language getLanguage() { return fun.getLanguage(); }
 	public int getNumberOfDeclarations() { return fun.getNumberOfDeclarations(); }
 	public DecInterface<?> getDeclarationOf(Text name) { return fun.getDeclarationOf(name); }
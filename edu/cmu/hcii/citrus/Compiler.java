@@ -0,0 +1,504 @@
+/*
+ * 
+ * Citrus - A object-oriented, interpreted language that is designed to simplify 
+ * the creation of dynamic, immediate feedback graphical desktop applications.
+ * 
+ * Copyright (c) 2005 Andrew Jensen Ko
+ * All rights reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package edu.cmu.hcii.citrus;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// A second tier for Citrus code. Function bodies and constraint expressions are normally
+// walked as trees, peeking at each expression's properties every time through. Once a body or 
+// constraint has been evaluated often enough, we compile it into a tree of Code objects that
+// hold the expressions' parts directly, with special forms and operators already resolved, and
+// run that instead. 
+//
+// Compiled code is only good for as long as the code it was compiled from and the types it 
+// refers to stay the same. If any type is redefined (see BaseType.definitionsChanged()) or any 
+// expression is edited (see edited()), compiled code is thrown away the next time it's run, and
+// its body or constraint goes back to being interpreted until it's hot again.
+//
+// This is off unless -Dcitrus.compile=true is given; -Dcitrus.compileThreshold sets how many 
+// evaluations make a body or constraint hot.
+public final class Compiler {
+
+	public static final boolean ENABLED = Boolean.getBoolean("citrus.compile");
+	public static final int THRESHOLD = Math.max(1, Integer.getInteger("citrus.compileThreshold", 1000));
+
+	// Incremented whenever an expression, an argument or a list of either is changed.
+	private static volatile int editVersion = 0;
+
+	private static final AtomicLong compilations = new AtomicLong();
+	private static final AtomicLong deoptimizations = new AtomicLong();
+
+	private Compiler() {}
+
+	// A function body or constraint expression's compiled code, and the versions of the 
+	// definitions and code it was compiled against.
+	static final class Compiled {
+
+		final Code code;
+		final int definitionVersion, editVersion;
+
+		Compiled(Code code, int definitionVersion, int editVersion) {
+
+			this.code = code;
+			this.definitionVersion = definitionVersion;
+			this.editVersion = editVersion;
+
+		}
+
+		boolean isCurrent() { 
+			
+			return definitionVersion == BaseType.getDefinitionVersion() && editVersion == Compiler.editVersion; 
+			
+		}
+
+	}
+
+	// Evaluates the given function body or constraint expression in the given environment,
+	// compiling it if it's hot, and running its compiled code if it has any.
+	static Element<?> evaluate(Element<?> expression, Element<?> env) {
+
+		if(!ENABLED || !(expression instanceof Expression) || Evaluate.recordingTimes) 
+			return expression.evaluate(env);
+
+		Expression<?> root = (Expression<?>)expression;
+		Compiled compiled = root.compiled;
+		if(compiled != null) {
+			if(compiled.isCurrent()) return compiled.code.run(env);
+			root.compiled = null;
+			root.evaluations = 0;
+			deoptimizations.incrementAndGet();
+		}
+		else if(++root.evaluations >= THRESHOLD) {
+			// Remember the versions before compiling, so that an edit made while compiling 
+			// makes the code stale rather than being missed.
+			int definitionVersion = BaseType.getDefinitionVersion(), edits = editVersion;
+			compiled = new Compiled(compile(root), definitionVersion, edits);
+			root.compiled = compiled;
+			compilations.incrementAndGet();
+			return compiled.code.run(env);
+		}
+		return expression.evaluate(env);
+
+	}
+
+	// Called by Property and List whenever a value or item changes, so that compiled 
+	// code made from the element that changed is thrown away.
+	static void edited(Element<?> element) {
+
+		if(ENABLED && isCode(element)) editVersion++;
+
+	}
+
+	private static boolean isCode(Element<?> element) {
+
+		if(element instanceof Expression || element instanceof Arg) return true;
+		if(element instanceof List) {
+			Property<?> owner = ((List<?>)element).getPropertyOwner();
+			return owner != null && isCode(owner.getElementOwner());
+		}
+		return false;
+
+	}
+
+	/////////////////////////////////////////////////////////////////////////
+	// Metrics
+	/////////////////////////////////////////////////////////////////////////
+
+	public static long getCompilations() { return compilations.get(); }
+	public static long getDeoptimizations() { return deoptimizations.get(); }
+
+	public static void resetCounts() {
+
+		compilations.set(0);
+		deoptimizations.set(0);
+
+	}
+
+	public static String getReport() {
+
+		return "Compiler: " + (ENABLED ? "on, threshold " + THRESHOLD : "off") + ", " + 
+			compilations.get() + " compilations, " + deoptimizations.get() + " deoptimizations";
+
+	}
+
+	/////////////////////////////////////////////////////////////////////////
+	// Compilation
+	/////////////////////////////////////////////////////////////////////////
+
+	// Compiles the given expression. Anything we don't know how to compile is interpreted
+	// as usual, but its parts aren't compiled either. Returns null for a missing expression.
+	static Code compile(Element<?> expression) {
+
+		if(expression == null) return null;
+		else if(expression instanceof IntLiteral || expression instanceof RealLiteral || 
+				expression instanceof BoolLiteral || expression instanceof CharLiteral ||
+				expression instanceof TextLiteral || expression instanceof Quote)
+			return new Constant(expression.evaluate(null));
+		else if(expression instanceof Evaluate)
+			return compileEvaluate((Evaluate<?>)expression);
+		else if(expression instanceof Possessive) {
+			Possessive<?> possessive = (Possessive<?>)expression;
+			return new Possession(possessive, compile(possessive.peek(Possessive.possessor)), compile(possessive.peek(Possessive.possession)));
+		}
+		else if(expression instanceof Do)
+			return compileDo((Do)expression);
+		else return new Interpreted(expression);
+
+	}
+
+	private static Code compileEvaluate(Evaluate<?> evaluation) {
+
+		Element<?> contextExpression = evaluation.peek(Evaluate.functionContext);
+		Element<?> functionExpression = evaluation.peek(Evaluate.function);
+		List<Arg> arguments = evaluation.peek(Evaluate.arguments);
+		Evaluate.Specialization specialized = evaluation.specialize(contextExpression, functionExpression);
+
+		switch(specialized.form) {
+			case IF:
+				if(arguments.length().value < 2) return new Interpreted(evaluation);
+				return new Conditional(evaluation, 
+						compile(arguments.first().peek(Arg.value)), 
+						compile(arguments.second().peek(Arg.value)), 
+						arguments.length().value > 2 ? compile(arguments.third().peek(Arg.value)) : null);
+			case NONE: case INSTANTIATE: break;
+			default: return new Interpreted(evaluation);
+		}
+
+		Code receiver = compile(contextExpression);
+		if(specialized.arithmetic && contextExpression != null) {
+			Arg right = arguments.first();
+			return new Arithmetic(evaluation, receiver, right == null ? null : compile(right.peek(Arg.value)), 
+					right != null, functionExpression, arguments, specialized.operator);
+		}
+		switch(specialized.operator) {
+			case GREATER: case LESS: case GREATER_OR_EQUAL: case LESS_OR_EQUAL:
+				if(specialized.form == Evaluate.Form.NONE && contextExpression != null && arguments.first() != null)
+					return new Comparison(evaluation, receiver, compile(arguments.first().peek(Arg.value)), 
+							functionExpression, arguments, specialized.operator);
+				break;
+			default: break;
+		}
+
+		Code[] argumentCode = new Code[arguments.length().value];
+		int index = 0;
+		for(Arg arg : arguments) argumentCode[index++] = compile(arg.peek(Arg.value));
+		return new Call(evaluation, receiver, functionExpression, arguments, argumentCode, specialized.form, specialized.operator);
+
+	}
+
+	private static Code compileDo(Do block) {
+
+		List<Expression> expressions = block.peek(Do.expressions);
+		Object[] statements = new Object[expressions.length().value];
+		int index = 0;
+		for(Expression expression : expressions)
+			statements[index++] = expression instanceof DecInterface ? expression : compile(expression);
+		return new Block(block, statements);
+
+	}
+
+	/////////////////////////////////////////////////////////////////////////
+	// Code
+	/////////////////////////////////////////////////////////////////////////
+
+	// A compiled expression, which evaluates to the same thing the expression would have.
+	abstract static class Code {
+
+		abstract Element<?> run(Element<?> env);
+
+	}
+
+	// Something we don't compile, such as a reference, which has its own cache.
+	private static final class Interpreted extends Code {
+
+		private final Element<?> expression;
+		Interpreted(Element<?> expression) { this.expression = expression; }
+		Element<?> run(Element<?> env) { return expression.evaluate(env); }
+
+	}
+
+	// A literal or quote, whose value only changes if the literal is edited.
+	private static final class Constant extends Code {
+
+		private final Element<?> value;
+		Constant(Element<?> value) { this.value = value; }
+		Element<?> run(Element<?> env) { return value; }
+
+	}
+
+	private static final class Possession extends Code {
+
+		private final Possessive<?> expression;
+		private final Code possessor, possession;
+
+		Possession(Possessive<?> expression, Code possessor, Code possession) {
+
+			this.expression = expression;
+			this.possessor = possessor;
+			this.possession = possession;
+
+		}
+
+		Element<?> run(Element<?> env) {
+
+			Element<?> or = possessor.run(env);
+			if(or == null) {
+				throw new NullPointerException("The possessor expression " + expression.peek(Possessive.possessor) + " evaluated to " + 
+						or + " in the context of " + env + " while executing " + expression);
+			}
+			return possession.run(or);
+
+		}
+
+	}
+
+	// A do, which evaluates its expressions in a new environment, declaring any declarations in it.
+	private static final class Block extends Code {
+
+		private final Do block;
+
+		// Each is either a declaration or the code for an expression.
+		private final Object[] statements;
+
+		Block(Do block, Object[] statements) {
+
+			this.block = block;
+			this.statements = statements;
+
+		}
+
+		Element<?> run(Element<?> env) {
+
+			ArgumentList args = new ArgumentList();
+			args.enclosingEnvironment = env;
+			BaseElement<?> namespace = new BaseElement(block, args);
+
+			Element<?> result = null;
+			for(Object statement : statements) {
+				if(statement instanceof DecInterface)
+					namespace.addProperty(((DecInterface<?>)statement).make(namespace).initialize(null, false, null));
+				else
+					result = ((Code)statement).run(namespace);
+			}
+			return result;
+
+		}
+
+	}
+
+	// The compiled evaluations keep Evaluate's stack of evaluations up to date, since 
+	// ElementError reports it.
+	private static final class Conditional extends Code {
+
+		private final Evaluate<?> evaluation;
+		private final Code condition, then, otherwise;
+
+		Conditional(Evaluate<?> evaluation, Code condition, Code then, Code otherwise) {
+
+			this.evaluation = evaluation;
+			this.condition = condition;
+			this.then = then;
+			this.otherwise = otherwise;
+
+		}
+
+		Element<?> run(Element<?> env) {
+
+			Evaluate.evalStack.push(evaluation);
+			Element<?> conditionValue = condition.run(env);
+			Element<?> result;
+			if(conditionValue instanceof Bool && ((Bool)conditionValue).value) result = then.run(env);
+			else result = otherwise == null ? null : otherwise.run(env);
+			Evaluate.evalStack.pop();
+			return result;
+
+		}
+
+	}
+
+	// +, -, * and / on reals. Like Evaluate.arithmetic(), nested arithmetic is done on doubles,
+	// and anything that turns out not to be a real is evaluated the usual way.
+	private static final class Arithmetic extends Code {
+
+		private final Evaluate<?> evaluation;
+		private final Code left, right;
+		private final boolean hasRight;
+		private final Element<?> functionExpression;
+		private final List<Arg> arguments;
+		private final Evaluate.Operator operator;
+
+		Arithmetic(Evaluate<?> evaluation, Code left, Code right, boolean hasRight, Element<?> functionExpression, List<Arg> arguments, Evaluate.Operator operator) {
+
+			this.evaluation = evaluation;
+			this.left = left;
+			this.right = right;
+			this.hasRight = hasRight;
+			this.functionExpression = functionExpression;
+			this.arguments = arguments;
+			this.operator = operator;
+
+		}
+
+		Element<?> run(Element<?> env) {
+
+			double[] accumulator = new double[1];
+			Element<?> value = arithmetic(env, accumulator);
+			return value == null ? Real.valueOf(accumulator[0]) : value;
+
+		}
+
+		// Returns null and leaves the result in the accumulator if this was arithmetic on reals.
+		private Element<?> arithmetic(Element<?> env, double[] accumulator) {
+
+			Evaluate.evalStack.push(evaluation);
+
+			Element<?> leftOperand = operand(left, env, accumulator);
+			if(leftOperand != null && !(leftOperand instanceof Real)) {
+				Element<?> result = Evaluate.evalIn(env, leftOperand, functionExpression, arguments, Evaluate.Form.NONE, operator, null);
+				Evaluate.evalStack.pop();
+				return result;
+			}
+			double leftValue = leftOperand == null ? accumulator[0] : ((Real)leftOperand).value;
+
+			Element<?> rightOperand = hasRight ? operand(right, env, accumulator) : null;
+			double rightValue;
+			if(rightOperand == null && hasRight) rightValue = accumulator[0];
+			else if(rightOperand instanceof Real) rightValue = ((Real)rightOperand).value;
+			else if(rightOperand instanceof Int && (operator == Evaluate.Operator.TIMES || operator == Evaluate.Operator.DIVIDE)) rightValue = ((Int)rightOperand).value;
+			else {
+				Element<?> result = Evaluate.evalIn(env, leftOperand == null ? Real.valueOf(leftValue) : leftOperand, functionExpression, arguments, Evaluate.Form.NONE, operator, null);
+				Evaluate.evalStack.pop();
+				return result;
+			}
+
+			switch(operator) {
+				case PLUS: accumulator[0] = leftValue + rightValue; break;
+				case MINUS: accumulator[0] = leftValue - rightValue; break;
+				case TIMES: accumulator[0] = leftValue * rightValue; break;
+				default: accumulator[0] = leftValue / rightValue; break;
+			}
+			Evaluate.evalStack.pop();
+			return null;
+
+		}
+
+		private static Element<?> operand(Code code, Element<?> env, double[] accumulator) {
+
+			if(code instanceof Arithmetic) return ((Arithmetic)code).arithmetic(env, accumulator);
+			Element<?> value = code == null ? new Nothing() : code.run(env);
+			return value == null ? new Nothing() : value;
+
+		}
+
+	}
+
+	// >, <, >= and <= on reals and ints.
+	private static final class Comparison extends Code {
+
+		private final Evaluate<?> evaluation;
+		private final Code left, right;
+		private final Element<?> functionExpression;
+		private final List<Arg> arguments;
+		private final Evaluate.Operator operator;
+
+		Comparison(Evaluate<?> evaluation, Code left, Code right, Element<?> functionExpression, List<Arg> arguments, Evaluate.Operator operator) {
+
+			this.evaluation = evaluation;
+			this.left = left;
+			this.right = right;
+			this.functionExpression = functionExpression;
+			this.arguments = arguments;
+			this.operator = operator;
+
+		}
+
+		Element<?> run(Element<?> env) {
+
+			Evaluate.evalStack.push(evaluation);
+			Element<?> leftValue = left.run(env);
+			Element<?> result;
+			if(leftValue instanceof Real) {
+				double l = ((Real)leftValue).value, r = ((Real)right.run(env)).value;
+				result = Bool.valueOf(compare(l, r));
+			}
+			else if(leftValue instanceof Int) {
+				int l = ((Int)leftValue).value, r = ((Int)right.run(env)).value;
+				result = Bool.valueOf(compare(l, r));
+			}
+			else result = Evaluate.evalIn(env, leftValue, functionExpression, arguments, Evaluate.Form.NONE, operator, null);
+			Evaluate.evalStack.pop();
+			return result;
+
+		}
+
+		private boolean compare(double l, double r) {
+
+			switch(operator) {
+				case GREATER: return l > r;
+				case LESS: return l < r;
+				case GREATER_OR_EQUAL: return l >= r;
+				default: return l <= r;
+			}
+
+		}
+
+	}
+
+	// Any other evaluation: a function call, an instantiation, or one of the functions that 
+	// Real, Int, Bool, Text, List and nothing handle themselves.
+	private static final class Call extends Code {
+
+		private final Evaluate<?> evaluation;
+		private final Code receiver;
+		private final Element<?> functionExpression;
+		private final List<Arg> arguments;
+		private final Code[] argumentCode;
+		private final Evaluate.Form form;
+		private final Evaluate.Operator operator;
+
+		Call(Evaluate<?> evaluation, Code receiver, Element<?> functionExpression, List<Arg> arguments, Code[] argumentCode, Evaluate.Form form, Evaluate.Operator operator) {
+
+			this.evaluation = evaluation;
+			this.receiver = receiver;
+			this.functionExpression = functionExpression;
+			this.arguments = arguments;
+			this.argumentCode = argumentCode;
+			this.form = form;
+			this.operator = operator;
+
+		}
+
+		Element<?> run(Element<?> env) {
+
+			Evaluate.evalStack.push(evaluation);
+			Element<?> environmentToEvaluateIn = receiver == null ? env : receiver.run(env);
+			Element<?> result = Evaluate.evalIn(env, environmentToEvaluateIn, functionExpression, arguments, form, operator, argumentCode);
+			Evaluate.evalStack.pop();
+			return result;
+
+		}
+
+	}
+
+}
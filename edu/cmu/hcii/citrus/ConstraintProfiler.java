@@ -0,0 +1,264 @@
+/*
+ * 
+ * Citrus - A object-oriented, interpreted language that is designed to simplify 
+ * the creation of dynamic, immediate feedback graphical desktop applications.
+ * 
+ * Copyright (c) 2005 Andrew Jensen Ko
+ * All rights reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package edu.cmu.hcii.citrus;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Hashtable;
+
+// Attributes the time spent evaluating constraints to the declarations they belong to,
+// per type of element that owns them, along with how often each was evaluated and invalidated
+// and how many edges the properties had in the constraint graph. Time is measured with nanoTime,
+// and is "self" time: the time spent evaluating a constraint, excluding the time spent 
+// evaluating the other constraints that it pulled up to date.
+//
+// Start and stop with (profiler start) and (profiler stop), or from Java. The profile
+// can be printed as a ranked report, or written as collapsed stacks, one line per distinct
+// chain of constraint evaluations, which flame graph tools accept.
+public final class ConstraintProfiler {
+
+	private static volatile boolean recording = false;
+
+	public static boolean isRecording() { return recording; }
+
+	public static void start() {
+
+		synchronized(profiles) {
+			profiles.clear();
+			stacks = new Stack(null, null);
+		}
+		recording = true;
+
+	}
+
+	public static void stop() { recording = false; }
+
+	// What we know about one declaration on one type.
+	public static final class Profile {
+
+		public final Namespace<?> type;
+		public final DecInterface<?> declaration;
+		public long selfTime = 0, totalTime = 0;
+		public int evaluations = 0, invalidations = 0;
+		public int maximumFanIn = 0, maximumFanOut = 0;
+
+		private Profile(Namespace<?> type, DecInterface<?> declaration) {
+
+			this.type = type;
+			this.declaration = declaration;
+
+		}
+
+		public String getName() { return "" + (type == null ? "?" : type.getName()) + "." + declaration.getName(); }
+
+		public String toString() {
+
+			return String.format("%10.3f ms %10.3f ms %8d %8d %6d %6d  %s", 
+				selfTime / 1e6, totalTime / 1e6, evaluations, invalidations, maximumFanIn, maximumFanOut, getName());
+
+		}
+
+	}
+
+	// Declarations, then the types of elements they were evaluated on, to profiles.
+	private static final Hashtable<DecInterface<?>,Hashtable<Namespace<?>,Profile>> profiles = 
+		new Hashtable<DecInterface<?>,Hashtable<Namespace<?>,Profile>>();
+
+	// A tree of the distinct chains of constraint evaluations, each with the nanoseconds spent
+	// in the last constraint in the chain. Frames point to their chain's node, so that exiting
+	// doesn't have to walk the chain to name it or to find out whether it's recursive.
+	private static final class Stack {
+
+		final Profile profile;
+		final Stack caller;
+		final Hashtable<Profile,Stack> callees = new Hashtable<Profile,Stack>();
+		// Whether the profile's declaration is already being evaluated further up the chain.
+		final boolean recursive;
+		long time = 0;
+
+		Stack(Profile profile, Stack caller) {
+
+			this.profile = profile;
+			this.caller = caller;
+			boolean recursive = false;
+			for(Stack s = caller; s != null && !recursive; s = s.caller)
+				recursive = s.profile == profile;
+			this.recursive = recursive;
+
+		}
+
+		// Called while holding the profiles lock.
+		Stack calleeFor(Profile profile) {
+
+			Stack callee = callees.get(profile);
+			if(callee == null) {
+				callee = new Stack(profile, this);
+				callees.put(profile, callee);
+			}
+			return callee;
+
+		}
+
+		void write(String prefix, PrintWriter out) {
+
+			for(Stack callee : callees.values()) {
+				String name = prefix + callee.profile.getName().replace(' ', '_');
+				out.println(name + " " + callee.time);
+				callee.write(name + ";", out);
+			}
+
+		}
+
+	}
+	private static Stack stacks = new Stack(null, null);
+
+	// Each thread's chain of constraints being evaluated.
+	private static final class Frame {
+
+		final Stack stack;
+		final Frame caller;
+		final long start;
+		long childTime = 0;
+
+		Frame(Stack stack, Frame caller) {
+
+			this.stack = stack;
+			this.caller = caller;
+			this.start = System.nanoTime();
+
+		}
+
+	}
+	private static final ThreadLocal<Frame> frames = new ThreadLocal<Frame>();
+
+	private static Profile profileFor(Property<?> property) {
+
+		Element<?> owner = property.getElementOwner();
+		Namespace<?> type = owner == null ? null : owner.getType();
+		DecInterface<?> declaration = property.getDeclaration();
+		synchronized(profiles) {
+			Hashtable<Namespace<?>,Profile> byType = profiles.get(declaration);
+			if(byType == null) {
+				byType = new Hashtable<Namespace<?>,Profile>();
+				profiles.put(declaration, byType);
+			}
+			// Hashtables don't allow null keys, so elements without types are filed under nothing.
+			Namespace<?> key = type == null ? Boot.NOTHING : type;
+			Profile profile = byType.get(key);
+			if(profile == null) {
+				profile = new Profile(type, declaration);
+				byType.put(key, profile);
+			}
+			return profile;
+		}
+
+	}
+
+	// Called by Property just before it runs its constraint.
+	static void enter(Property<?> property) {
+
+		Profile profile = profileFor(property);
+		Frame caller = frames.get();
+		Stack stack;
+		synchronized(profiles) { stack = (caller == null ? stacks : caller.stack).calleeFor(profile); }
+		frames.set(new Frame(stack, caller));
+
+	}
+
+	// Called by Property just after its constraint returns, if it called enter().
+	static void exit(Property<?> property) {
+
+		Frame frame = frames.get();
+		if(frame == null) return;
+		frames.set(frame.caller);
+
+		long total = System.nanoTime() - frame.start;
+		long self = total - frame.childTime;
+		if(frame.caller != null) frame.caller.childTime += total;
+
+		synchronized(profiles) {
+			Profile profile = frame.stack.profile;
+			profile.evaluations++;
+			profile.selfTime += self;
+			// Don't charge recursive evaluations of the same declaration twice.
+			if(!frame.stack.recursive) profile.totalTime += total;
+			profile.maximumFanIn = Math.max(profile.maximumFanIn, property.getNumberOfInputs());
+			profile.maximumFanOut = Math.max(profile.maximumFanOut, property.getNumberOfDependents());
+			frame.stack.time += self;
+		}
+
+	}
+
+	// Called by Property when it's marked out of date.
+	static void invalidated(Property<?> property) {
+
+		Profile profile = profileFor(property);
+		synchronized(profiles) { profile.invalidations++; }
+
+	}
+
+	// The profiles recorded so far, with the most self time first.
+	public static java.util.List<Profile> getProfiles() {
+
+		ArrayList<Profile> ranked = new ArrayList<Profile>();
+		synchronized(profiles) {
+			for(Hashtable<Namespace<?>,Profile> byType : profiles.values())
+				ranked.addAll(byType.values());
+		}
+		Collections.sort(ranked, new Comparator<Profile>() {
+			public int compare(Profile one, Profile two) { return Long.compare(two.selfTime, one.selfTime); }
+		});
+		return ranked;
+
+	}
+
+	// Prints the given number of declarations with the most self time.
+	public static void printReport(PrintWriter out, int limit) {
+
+		java.util.List<Profile> ranked = getProfiles();
+		out.println(String.format("%13s %13s %8s %8s %6s %6s  %s", "self", "total", "evals", "invalid", "in", "out", "declaration"));
+		for(int i = 0; i < ranked.size() && i < limit; i++)
+			out.println(ranked.get(i));
+		out.flush();
+
+	}
+
+	// Writes one line per distinct chain of constraint evaluations, with the nanoseconds 
+	// spent in the last constraint in the chain.
+	public static void writeCollapsedStacks(File file) throws IOException {
+
+		PrintWriter out = new PrintWriter(new FileWriter(file));
+		try {
+			synchronized(profiles) { stacks.write("", out); }
+		}
+		finally { out.close(); }
+
+	}
+
+}
@@ -32,13 +32,13 @@ public class Dec<ValueType extends Element> extends Expression<DecInterface> imp
 	public static final BootDec<Text> name = new BootDec<Text>(new Text(""));
 	public static final BootDec<TypeExpression> typeExpression = new BootDec<TypeExpression>(new BootTypeExpression(ELEMENT));
 	public static final BootDec<Element<?>> valueExpression = new BootDec<Element<?>>(new Nothing());
-	public static final BootDec<Bool> functionIsConstraint = new BootDec<Bool>(new Bool(false));
-	public static final BootDec<Bool> isStatic = new BootDec<Bool>(new Bool(false));
-	public static final BootDec<Bool> isUndoable = new BootDec<Bool>(new Bool(false));
-	public static final BootDec<Bool> isOverridable = new BootDec<Bool>(new Bool(true));
-	public static final BootDec<Bool> isReference = new BootDec<Bool>(new Bool(false));
-	public static final BootDec<Bool> isConstant = new BootDec<Bool>(new Bool(false));
-	public static final BootDec<Bool> isRule = new BootDec<Bool>(new Bool(false));
+	public static final BootDec<Bool> functionIsConstraint = new BootDec<Bool>(Bool.valueOf(false));
+	public static final BootDec<Bool> isStatic = new BootDec<Bool>(Bool.valueOf(false));
+	public static final BootDec<Bool> isUndoable = new BootDec<Bool>(Bool.valueOf(false));
+	public static final BootDec<Bool> isOverridable = new BootDec<Bool>(Bool.valueOf(true));
+	public static final BootDec<Bool> isReference = new BootDec<Bool>(Bool.valueOf(false));
+	public static final BootDec<Bool> isConstant = new BootDec<Bool>(Bool.valueOf(false));
+	public static final BootDec<Bool> isRule = new BootDec<Bool>(Bool.valueOf(false));
 
 	// This will be set by this property declaration's type when the type is consolidated.
 	private DecInterface declarationOverriden = null;
@@ -69,9 +69,9 @@ public class Dec<ValueType extends Element> extends Expression<DecInterface> imp
 					  boolean newIsStatic) {
 
 		set(Dec.valueExpression, newValueFunction);
-		set(Dec.functionIsConstraint, new Bool(newFunctionIsConstraint));
-		set(Dec.isStatic, new Bool(newIsStatic));
-		set(Dec.isReference, new Bool(newIsReference));
+		set(Dec.functionIsConstraint, Bool.valueOf(newFunctionIsConstraint));
+		set(Dec.isStatic, Bool.valueOf(newIsStatic));
+		set(Dec.isReference, Bool.valueOf(newIsReference));
 		replaceValueFunctionDeclaration();
 		
 	}
@@ -99,6 +99,10 @@ public class Dec<ValueType extends Element> extends Expression<DecInterface> imp
 	public Text cachedName = null; 	// For efficiency, set by BaseType.consolidate.
 	public Text getName() { if(cachedName == null) return peek(Dec.name); return cachedName; }
 
+	private int slot = -1;	// Set by BaseType.consolidate.
+	public int getSlot() { return slot; }
+	public void setSlot(int newSlot) { slot = newSlot; }
+
 	public void is(PropertyRestriction newValueSet) {
 
 		if(newValueSet == null) throw new ElementError("Can't give a property declaration a null value set.", this);
@@ -165,7 +169,7 @@ public class Dec<ValueType extends Element> extends Expression<DecInterface> imp
 
 	public DecInterface<ValueType> getDeclarationOverridden() { return declarationOverriden; }
 	
-	public Bool overrides() { return new Bool(declarationOverriden != null); }
+	public Bool overrides() { return Bool.valueOf(declarationOverriden != null); }
 	
 	// This should only be called by Type.consolidate().
 	public void setDeclarationOverriden(DecInterface<ValueType> newDeclarationOverriden) { declarationOverriden = newDeclarationOverriden; }
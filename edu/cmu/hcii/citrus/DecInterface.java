@@ -58,5 +58,10 @@ public interface DecInterface<ValueType extends Element> extends Element<DecInte
 
 	// 
 	public Property<ValueType> make(Element owner);
+
+	// SLOT, the index of this declaration's property in the elements of the types that declare it,
+	// or -1 if it hasn't been given one.
+	public int getSlot();
+	public void setSlot(int slot);
 	
 }
\ No newline at end of file
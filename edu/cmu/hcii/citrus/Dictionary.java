@@ -50,7 +50,7 @@ public class Dictionary extends BaseElement<Dictionary> {
 
 	public Bool define(Element key, Element value) { 
 		
-		Bool result = new Bool(items.containsKey(key));
+		Bool result = Bool.valueOf(items.containsKey(key));
 		items.put(key, generateProperty(value));
 		return result;
 	
@@ -84,7 +84,7 @@ public class Dictionary extends BaseElement<Dictionary> {
 		
 	}
 
-	public Bool isEmpty() { return new Bool(items.isEmpty()); }
+	public Bool isEmpty() { return Bool.valueOf(items.isEmpty()); }
 	
 	public Text toCitrus() { 
 	
@@ -108,7 +108,7 @@ public class Dictionary extends BaseElement<Dictionary> {
 
 	public Dictionary evaluate(Element<?> env) { return this; }
 	
-	public Bool isEquivalentTo(Element<?> o) { return new Bool(this.equals(o)); }
+	public Bool isEquivalentTo(Element<?> o) { return Bool.valueOf(this.equals(o)); }
 
 	public Element duplicate() {
 		// TODO Auto-generated method stub
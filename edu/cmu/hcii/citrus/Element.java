@@ -60,6 +60,10 @@ public interface Element<T extends Element> {
 	public Property getPropertyOwner();
 	public Element<?> getElementOwner();
 
+	// Whether this is a canonical value held by many properties at once, and so has no owner,
+	// users or views of its own.
+	public boolean isShared();
+
 	public Iterable<Property> getUsers();
 
 	// OWNERSHIP CHANGES
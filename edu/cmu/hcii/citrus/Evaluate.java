@@ -23,6 +23,7 @@
  */
 package edu.cmu.hcii.citrus;
 
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Stack;
@@ -48,7 +49,7 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 	public static final Dec<List<Arg>> arguments = new Dec<List<Arg>>(new NewList<Arg>());
 
 	public static class TypesAndFunctions extends PropertyRestriction<Text> {
-		public static final Dec<Bool> allowInvalid = new Dec<Bool>(new Bool(true));
+		public static final Dec<Bool> allowInvalid = new Dec<Bool>(Bool.valueOf(true));
 		public boolean isValid(Property<Text> property, Text value) {
 
 			Element<?> owner = property.getElementOwner();
@@ -94,9 +95,9 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 		Element<?> contextExpression = get(functionContext);
 		if(contextExpression instanceof Ref) {
 			String ref = ((Ref)contextExpression).get(Ref.token).value;
-			return new Bool(isSpecialForm(ref));
+			return Bool.valueOf(isSpecialForm(ref));
 		}
-		return new Bool(false);
+		return Bool.valueOf(false);
 		
 	}
 	
@@ -117,6 +118,88 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 		
 	}
 
+	// The special forms, named by a reference in an evaluation's context, and the references 
+	// that ask for instantiation rather than evaluation. 
+	static enum Form { 
+		
+		NONE, IF, ARRAY, FUN, LET, EVAL, DUMP, PROFILER, COND, DEBUG, WHILE, INSTANTIATE;
+
+		private static final HashMap<String,Form> forms = new HashMap<String,Form>();
+		static {
+			for(Form form : values()) forms.put(form.name().toLowerCase(), form);
+			forms.remove("none");
+			forms.remove("instantiate");
+			forms.put("a", INSTANTIATE);
+			forms.put("an", INSTANTIATE);
+		}
+		static Form named(String name) { 
+			Form form = forms.get(name); 
+			return form == null ? NONE : form; 
+		}
+		
+	}
+
+	// The functions that Real, Int, Bool, Text, List and nothing handle themselves.
+	static enum Operator {
+
+		DIVIDE("/"), TIMES("*"), PLUS("+"), MINUS("-"), 
+		GREATER(">"), LESS("<"), GREATER_OR_EQUAL(">="), LESS_OR_EQUAL("<="),
+		GREATER_THAN("greaterThan"), LESS_THAN("lessThan"), 
+		GREATER_THAN_OR_EQUAL_TO("greaterThanOrEqualTo"), LESS_THAN_OR_EQUAL_TO("lessThanOrEqualTo"),
+		MIN("min"), MAX("max"), OR("or"), AND("and"), TO_TEXT("toText"), GET_PROPERTY_OWNER("getPropertyOwner"), 
+		OTHER(null);
+
+		private final String name;
+		private Operator(String name) { this.name = name; }
+
+		private static final HashMap<String,Operator> operators = new HashMap<String,Operator>();
+		static { for(Operator operator : values()) if(operator.name != null) operators.put(operator.name, operator); }
+		static Operator named(String name) { 
+			Operator operator = operators.get(name); 
+			return operator == null ? OTHER : operator; 
+		}
+
+	}
+
+	// What this evaluation's context and function references resolved to, and the tokens
+	// they were resolved from. If either reference's token changes, we resolve them again.
+	static final class Specialization {
+
+		final Text contextToken, functionToken;
+		final Form form;
+		final Operator operator;
+
+		// True if this is +, -, * or / on something other than a special form, and so 
+		// may be arithmetic on reals. See arithmetic().
+		final boolean arithmetic;
+
+		Specialization(Text contextToken, Text functionToken) {
+
+			this.contextToken = contextToken;
+			this.functionToken = functionToken;
+			this.form = contextToken == null ? Form.NONE : Form.named(contextToken.value);
+			this.operator = functionToken == null ? Operator.OTHER : Operator.named(functionToken.value);
+			this.arithmetic = form == Form.NONE && 
+				(operator == Operator.PLUS || operator == Operator.MINUS || operator == Operator.TIMES || operator == Operator.DIVIDE);
+
+		}
+
+	}
+	private Specialization specialization = null;
+
+	Specialization specialize(Element<?> contextExpression, Element<?> functionExpression) {
+
+		Text contextToken = contextExpression instanceof Ref ? ((Ref)contextExpression).peek(Ref.token) : null;
+		Text functionToken = functionExpression instanceof Ref ? ((Ref)functionExpression).peek(Ref.token) : null;
+		Specialization current = specialization;
+		if(current == null || current.contextToken != contextToken || current.functionToken != functionToken) {
+			current = new Specialization(contextToken, functionToken);
+			specialization = current;
+		}
+		return current;
+
+	}
+
 	public static class Profile implements Comparable {
 		
 		private final Evaluate eval;
@@ -127,7 +210,7 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 			totalTime = firstTime;
 			totalExecutions = 1;
 		}
-		public double averageExecutionTime() { return totalTime / totalExecutions; }
+		public double averageExecutionTime() { return (double)totalTime / totalExecutions; }
 		public int compareTo(Object p) {
 			
 //			Double thisTime = new Double(averageExecutionTime());
@@ -140,8 +223,8 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 
 			String eString = eval.toString();
 			eString = eString.substring(0, Math.min(eString.length(), 80)) + " ...";
-			return "" + totalExecutions + " times over " + totalTime + " ms = " + 
-						(averageExecutionTime() / 1000.0) + " sec/eval\t\t" + 
+			return "" + totalExecutions + " times over " + (totalTime / 1e6) + " ms = " + 
+						(averageExecutionTime() / 1e3) + " us/eval\t\t" + 
 						eval.get(Evaluate.function) + ": " + eString;
 
 		}
@@ -155,12 +238,18 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 
 		evalStack.push(this);
 
+		// The special form and operator were resolved the first time through, so we only
+		// check that the references haven't changed.
+		Element<?> contextExpression = peek(functionContext);
+		Element<?> functionExpression = peek(function);
+		Specialization specialized = specialize(contextExpression, functionExpression);
+
 		ResultType result = null;
 		if(recordingTimes) {
 			Profile p = profiles.get(this);
-			long t1 = System.currentTimeMillis();
-			result = (ResultType)eval(env, peek(functionContext), peek(function), peek(arguments));		
-			long t2 = System.currentTimeMillis();
+			long t1 = System.nanoTime();
+			result = (ResultType)eval(env, contextExpression, functionExpression, peek(arguments), specialized.form, specialized.operator);		
+			long t2 = System.nanoTime();
 			if(p== null)
 				profiles.put(this, new Profile(this, t2-t1));
 			else {
@@ -168,14 +257,80 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 				p.totalTime += t2-t1;
 			}				
 		}
+		else if(specialized.arithmetic && contextExpression != null) {
+			double[] accumulator = new double[1];
+			Element<?> value = arithmetic(env, contextExpression, specialized.operator, accumulator);
+			result = (ResultType)(value == null ? Real.valueOf(accumulator[0]) : value);
+		}
 		else 
-			result = (ResultType)eval(env, peek(functionContext), peek(function), peek(arguments));		
+			result = (ResultType)eval(env, contextExpression, functionExpression, peek(arguments), specialized.form, specialized.operator);		
 
 		evalStack.pop();
 		return result;
 		
 	}
 
+	// Constraints on geometry, like View's right, nest +, -, * and / on reals several deep. Rather 
+	// than making a Real for every intermediate result, we evaluate such trees on doubles, and 
+	// only make a Real for the value of the whole tree. 
+	//
+	// Evaluates this evaluation, given the operator it specialized to. If it's arithmetic on reals
+	// all the way down, it leaves the result in the accumulator and returns null. Otherwise, it 
+	// returns the result of evaluating it the usual way. 
+	private Element<?> arithmetic(Element<?> env, Element<?> contextExpression, Operator operator, double[] accumulator) {
+
+		evalStack.push(this);
+
+		// Evaluate the left operand, without making a Real if it's arithmetic itself.
+		Element<?> left = operand(env, contextExpression, accumulator);
+		if(left != null && !(left instanceof Real)) {
+			Element<?> result = evalIn(env, left, peek(function), peek(arguments), Form.NONE, operator, null);
+			evalStack.pop();
+			return result;
+		}
+		double leftValue = left == null ? accumulator[0] : ((Real)left).value;
+
+		// Then the right.
+		Arg rightArgument = peek(arguments).first();
+		Element<?> right = rightArgument == null ? null : operand(env, rightArgument.peek(Arg.value), accumulator);
+		double rightValue;
+		if(right == null && rightArgument != null) rightValue = accumulator[0];
+		else if(right instanceof Real) rightValue = ((Real)right).value;
+		else if(right instanceof Int && (operator == Operator.TIMES || operator == Operator.DIVIDE)) rightValue = ((Int)right).value;
+		// Anything else is an error; let the usual evaluation report it.
+		else {
+			Element<?> result = evalIn(env, left == null ? Real.valueOf(leftValue) : left, peek(function), peek(arguments), Form.NONE, operator, null);
+			evalStack.pop();
+			return result;
+		}
+
+		switch(operator) {
+			case PLUS: accumulator[0] = leftValue + rightValue; break;
+			case MINUS: accumulator[0] = leftValue - rightValue; break;
+			case TIMES: accumulator[0] = leftValue * rightValue; break;
+			default: accumulator[0] = leftValue / rightValue; break;
+		}
+		evalStack.pop();
+		return null;
+
+	}
+
+	// Evaluates an operand of an arithmetic evaluation, leaving its value in the accumulator and 
+	// returning null if it is itself arithmetic on reals.
+	private static Element<?> operand(Element<?> env, Element<?> expression, double[] accumulator) {
+
+		if(expression instanceof Evaluate) {
+			Evaluate<?> evaluation = (Evaluate<?>)expression;
+			Element<?> contextExpression = evaluation.peek(functionContext);
+			Specialization specialized = evaluation.specialize(contextExpression, evaluation.peek(function));
+			if(specialized.arithmetic && contextExpression != null)
+				return evaluation.arithmetic(env, contextExpression, specialized.operator, accumulator);
+		}
+		Element<?> value = expression == null ? env : expression.evaluate(env);
+		return value == null ? new Nothing() : value;
+
+	}
+
 	// env - the environment in which the arguments are evaluated
 	// context - in which the namespace expression is evaluated to find the function (or type)
 	// namespaceExpression - a function name, type name (i.e., View, View.LostFocus, postDamage)
@@ -186,37 +341,52 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 			Element<?> functionOrTypeExpression, 
 			List<Arg> argExpressions) {
 
+		Form form = objectExpression instanceof Ref ? Form.named(((Ref)objectExpression).peek(Ref.token).value) : Form.NONE;
+		Operator operator = functionOrTypeExpression instanceof Ref ? Operator.named(((Ref)functionOrTypeExpression).peek(Ref.token).value) : Operator.OTHER;
+		return eval(env, objectExpression, functionOrTypeExpression, argExpressions, form, operator);
+
+	}
+	
+	// The same as above, but with the special form and operator already resolved from the 
+	// object and function references.
+	static Element eval(
+			Element env, 
+			Element<?> objectExpression, 
+			Element<?> functionOrTypeExpression, 
+			List<Arg> argExpressions,
+			Form form,
+			Operator operator) {
+
 		// Special forms for the context
-		if(objectExpression instanceof Ref) {
-			String ref = ((Ref)objectExpression).peek(Ref.token).value;
-			if(ref.equals("if")) {		
+		switch(form) {
+			case IF: {		
 				Element conditionValue = argExpressions.first().peek(Arg.value).evaluate(env);
 				Bool condition = conditionValue instanceof Bool ? (Bool)conditionValue : Bool.FALSE;
 				if(condition.value) return argExpressions.second().peek(Arg.value).evaluate(env);
 				else if(argExpressions.length().value > 2) return argExpressions.third().peek(Arg.value).evaluate(env);
 				else return null;
 			}
-			else if(ref.equals("array")) {
+			case ARRAY: {
 
 				Int length = (Int)argExpressions.first().peek(Arg.value).evaluate(env);
 				Array newArray = new Array(length.value);
 				return newArray;
 				
 			}
-			else if(ref.equals("fun")) {
+			case FUN: {
 
 				// Create a closure using the function's body and arguments and the current environment.
 				return new Closure((BaseFunction)functionOrTypeExpression, env);
 				
 			}
-			else if(ref.equals("let")) {
+			case LET: {
 
 				ArgumentList arguments = new ArgumentList();
 				arguments.enclosingEnvironment = env;
 				return ((Let)functionOrTypeExpression).instantiate(arguments);
 				
 			}
-			else if(ref.equals("eval")) {
+			case EVAL: {
 				
 				List<Arg> newArgs = new List<Arg>();
 				Function f = null;
@@ -227,33 +397,46 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 				return Evaluate.eval(env, env, f, newArgs);
 				
 			}
-			else if(ref.equals("dump")) {
+			case DUMP: {
 				
 				Thread.dumpStack();
 				return null;
 			}
-			else if(ref.equals("profiler")) {
+			case PROFILER: {
 
 				String action = ((Ref)argExpressions.first().value()).text(Ref.token);
 				
+				// Expressions and constraints are profiled together.
 				if(action.equals("start")) {	
 					profiles.clear();
 					recordingTimes = true;
+					ConstraintProfiler.start();
 				}
 				else if(action.equals("stop")) {
 					recordingTimes = false;
+					ConstraintProfiler.stop();
 				}
 				else if(action.equals("print")) {
 					
 					TreeSet<Profile> map = new TreeSet(profiles.values());
 					for(Profile e : map)
 						System.err.println("" + e);
+					ConstraintProfiler.printReport(new java.io.PrintWriter(System.err), 50);
+					
+				}
+				// (profiler dump "file") writes the constraints' collapsed stacks to the given file.
+				else if(action.equals("dump")) {
+					
+					Element file = argExpressions.length().value > 1 ? argExpressions.second().peek(Arg.value).evaluate(env) : null;
+					String filename = file instanceof Text ? ((Text)file).value : "constraints.folded";
+					try { ConstraintProfiler.writeCollapsedStacks(new java.io.File(filename)); }
+					catch(java.io.IOException e) { throw new ElementError("Couldn't write profile to " + filename + ": " + e, null); }
 					
 				}
 				
 				return null;
 			}
-			else if(ref.equals("cond")) {
+			case COND: {
 				
 				// 1st, 3rd, 5th, etc are conditions
 				// 2nd, 4th, 6th, etc are responses
@@ -266,7 +449,7 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 				throw new ElementError("One of a cond's conditions must evaluate to true!", env);
 				
 			}
-			else if(ref.equals("debug")) {
+			case DEBUG: {
 
 				Namespace type = Ref.resolve(null, env, new Text("this"), Ref.ReferenceType.UNKNOWN).getType();
 				if(!(type instanceof BaseType) || (type instanceof BaseType && ((BaseType)type).get(BaseType.debug).value)) {
@@ -280,7 +463,7 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 				return null;
 				
 			}
-			else if(ref.equals("while")) {
+			case WHILE: {
 				
 				Element condition = argExpressions.first().value();
 				Element action = argExpressions.second().value();
@@ -297,26 +480,41 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 				return null;
 				
 			}
+			default: break;
 
 		}
 		
 		// Get the environment to evaluate in
 		Element environmentToEvaluateIn = objectExpression == null ? env : objectExpression.evaluate(env);
+		return evalIn(env, environmentToEvaluateIn, functionOrTypeExpression, argExpressions, form, operator, null);
+
+	}
+
+	// The rest of the above, once the object expression has been evaluated. If the evaluation 
+	// has been compiled, the arguments' values passed to a function or type come from their 
+	// compiled code; otherwise argumentCode is null.
+	static Element evalIn(
+			Element env, 
+			Element environmentToEvaluateIn, 
+			Element<?> functionOrTypeExpression, 
+			List<Arg> argExpressions,
+			Form form,
+			Operator operator,
+			Compiler.Code[] argumentCode) {
+
 		if(environmentToEvaluateIn == null) environmentToEvaluateIn = new Nothing();
 
 		if(environmentToEvaluateIn instanceof Nothing) {
 			
 			if(!(functionOrTypeExpression instanceof Ref))
 				throw new ElementError("Can only call functions on null, not " + functionOrTypeExpression, null);
-			String propertyFunction = ((Ref)functionOrTypeExpression).peek(Ref.token).value;			
-			if(propertyFunction.equals("toText"))
+			if(operator == Operator.TO_TEXT)
 				return environmentToEvaluateIn.toText();
 			
 		}
 		if(environmentToEvaluateIn instanceof List && functionOrTypeExpression instanceof Ref) {
 
-			String propertyFunction = ((Ref)functionOrTypeExpression).peek(Ref.token).value;			
-			if(propertyFunction.equals("getPropertyOwner"))
+			if(operator == Operator.GET_PROPERTY_OWNER)
 				return environmentToEvaluateIn.getPropertyOwner();
 			
 		}
@@ -333,98 +531,80 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 		}
 		else if(environmentToEvaluateIn instanceof Real) {
 			
-			String fun = ((Ref)functionOrTypeExpression).peek(Ref.token).value;
-			
-			if(fun.equals("/")) {
-				Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
-				if(arg2 instanceof Real) return new Real(((Real)environmentToEvaluateIn).value / ((Real)arg2).value);
-				else if(arg2 instanceof Int) return new Real(((Real)environmentToEvaluateIn).value / ((Int)arg2).value);
-			}
-			else if(fun.equals("*")) {
-				Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
-				if(arg2 instanceof Real) return new Real(((Real)environmentToEvaluateIn).value * ((Real)arg2).value);
-				else if(arg2 instanceof Int) return new Real(((Real)environmentToEvaluateIn).value * ((Int)arg2).value);
-			}
-			else if(fun.equals("+")) {
-				Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
-				return new Real(((Real)environmentToEvaluateIn).value + ((Real)arg2).value);
-			}
-			else if(fun.equals("-")) {
-				Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
-				return new Real(((Real)environmentToEvaluateIn).value - ((Real)arg2).value);
-			}
-			else if(fun.equals(">")) {
-				Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
-				return new Bool(((Real)environmentToEvaluateIn).value > ((Real)arg2).value);
-			}
-			else if(fun.equals("<")) {
-				Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
-				return new Bool(((Real)environmentToEvaluateIn).value < ((Real)arg2).value);
-			}
-			else if(fun.equals(">=")) {
-				Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
-				return new Bool(((Real)environmentToEvaluateIn).value >= ((Real)arg2).value);
-			}
-			else if(fun.equals("<=")) {
-				Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
-				return new Bool(((Real)environmentToEvaluateIn).value <= ((Real)arg2).value);
-			}
-			else if(fun.equals("min")) {
-				Real min = (Real)environmentToEvaluateIn;
-				for(BaseElement<?> expr : argExpressions) {
-					Real val = (Real)expr.peek(Arg.value).evaluate(env);
-					if(val.value < min.value) min = val;
+			double value = ((Real)environmentToEvaluateIn).value;
+			switch(operator) {
+				case DIVIDE: {
+					Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
+					if(arg2 instanceof Real) return Real.valueOf(value / ((Real)arg2).value);
+					else if(arg2 instanceof Int) return Real.valueOf(value / ((Int)arg2).value);
+					break;
 				}
-				return min;
-			}
-			else if(fun.equals("max")) {
-				Real max = (Real)environmentToEvaluateIn;
-				for(BaseElement<?> expr : argExpressions) {
-					Real val = (Real)expr.peek(Arg.value).evaluate(env);
-					if(val.value > max.value) max = val;
+				case TIMES: {
+					Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
+					if(arg2 instanceof Real) return Real.valueOf(value * ((Real)arg2).value);
+					else if(arg2 instanceof Int) return Real.valueOf(value * ((Int)arg2).value);
+					break;
+				}
+				case PLUS: return Real.valueOf(value + ((Real)argExpressions.first().peek(Arg.value).evaluate(env)).value);
+				case MINUS: return Real.valueOf(value - ((Real)argExpressions.first().peek(Arg.value).evaluate(env)).value);
+				case GREATER: return Bool.valueOf(value > ((Real)argExpressions.first().peek(Arg.value).evaluate(env)).value);
+				case LESS: return Bool.valueOf(value < ((Real)argExpressions.first().peek(Arg.value).evaluate(env)).value);
+				case GREATER_OR_EQUAL: return Bool.valueOf(value >= ((Real)argExpressions.first().peek(Arg.value).evaluate(env)).value);
+				case LESS_OR_EQUAL: return Bool.valueOf(value <= ((Real)argExpressions.first().peek(Arg.value).evaluate(env)).value);
+				case MIN: {
+					Real min = (Real)environmentToEvaluateIn;
+					for(BaseElement<?> expr : argExpressions) {
+						Real val = (Real)expr.peek(Arg.value).evaluate(env);
+						if(val.value < min.value) min = val;
+					}
+					return min;
+				}
+				case MAX: {
+					Real max = (Real)environmentToEvaluateIn;
+					for(BaseElement<?> expr : argExpressions) {
+						Real val = (Real)expr.peek(Arg.value).evaluate(env);
+						if(val.value > max.value) max = val;
+					}
+					return max;
 				}
-				return max;
+				case TO_TEXT: return environmentToEvaluateIn.toText();
+				default: break;
 			}
-			else if(fun.equals("toText")) return environmentToEvaluateIn.toText();
 			
 		}
 		else if(environmentToEvaluateIn instanceof Int) {
 			
-			Element result = 
-				handleIntFunction(
-					env, 
-					(Int)environmentToEvaluateIn, 
-					((Ref)functionOrTypeExpression).peek(Ref.token).value, 
-					argExpressions);
+			Element result = handleIntFunction(env, (Int)environmentToEvaluateIn, operator, argExpressions);
 			if(result != null) return result;
 
 		}
 		else if(environmentToEvaluateIn instanceof Bool) {
 			
-			String fun = ((Ref)functionOrTypeExpression).peek(Ref.token).value;
-			if(fun.equals("or")) {
-				if(((Bool)environmentToEvaluateIn).value) return environmentToEvaluateIn;
-				for(Arg orArg : argExpressions) {
-					Bool result = (Bool)orArg.peek(Arg.value).evaluate(env);
-					if(result.value) return result;
+			switch(operator) {
+				case OR: {
+					if(((Bool)environmentToEvaluateIn).value) return environmentToEvaluateIn;
+					for(Arg orArg : argExpressions) {
+						Bool result = (Bool)orArg.peek(Arg.value).evaluate(env);
+						if(result.value) return result;
+					}
+					return Bool.valueOf(false);
 				}
-				return new Bool(false);
-			}
-			else if(fun.equals("and")) {
-				if(!((Bool)environmentToEvaluateIn).value) return environmentToEvaluateIn;
-				for(Arg orArg : argExpressions) {
-					Bool result = (Bool)orArg.peek(Arg.value).evaluate(env);
-					if(!result.value) return result;
+				case AND: {
+					if(!((Bool)environmentToEvaluateIn).value) return environmentToEvaluateIn;
+					for(Arg orArg : argExpressions) {
+						Bool result = (Bool)orArg.peek(Arg.value).evaluate(env);
+						if(!result.value) return result;
+					}
+					return Bool.valueOf(true);
 				}
-				return new Bool(true);
+				case TO_TEXT: return environmentToEvaluateIn.toText();
+				default: break;
 			}
-			else if(fun.equals("toText")) return environmentToEvaluateIn.toText();
 			
 		}
 		else if(environmentToEvaluateIn instanceof Text) {
 			
-			String fun = ((Ref)functionOrTypeExpression).peek(Ref.token).value;
-			if(fun.equals("+")) {
+			if(operator == Operator.PLUS) {
 
 				String result = ((Text)environmentToEvaluateIn).value;
 				for(Arg orArg : argExpressions) {
@@ -435,13 +615,11 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 				return new Text(result);
 				
 			}
-			else if(fun.equals("toText")) return environmentToEvaluateIn.toText();
+			else if(operator == Operator.TO_TEXT) return environmentToEvaluateIn.toText();
 			
 		}
 
-		boolean instantiation = (objectExpression instanceof Ref) && 
-			(((Ref)objectExpression).peek(Ref.token).value.equals("a") ||
-			((Ref)objectExpression).peek(Ref.token).value.equals("an"));
+		boolean instantiation = form == Form.INSTANTIATE;
 
 		// Find the type to instantiate or function to evaluate.		
 		Namespace<?> namespaceToInstantiate = null;
@@ -479,12 +657,19 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 		if(!argExpressions.isEmpty().value && argExpressions.first().peek(Arg.param).isEmpty().value) {
 		
 			Iterator<Arg> argsIter = argExpressions.iterator();
+			int index = 0;
 			for(DecInterface<?> pd : namespaceToInstantiate.getDeclarationsToInstantiate()) {
 				if(argsIter.hasNext()) {
 					Arg arg = argsIter.next();
 					boolean valueIsConstraint = arg.peek(Arg.valueIsConstraint).value;
-					Element valueExpression = arg.peek(Arg.value);
-					functionArgs.add(pd.getName(), valueIsConstraint, valueExpression == null ? new Nothing() : valueExpression.evaluate(env));
+					Element value;
+					if(argumentCode != null && argumentCode[index] != null) value = argumentCode[index].run(env);
+					else {
+						Element valueExpression = arg.peek(Arg.value);
+						value = valueExpression == null ? new Nothing() : valueExpression.evaluate(env);
+					}
+					functionArgs.add(pd.getName(), valueIsConstraint, value);
+					index++;
 				}
 				else throw new ElementError("" + namespaceToInstantiate.getName() + " expects " + namespaceToInstantiate.getDeclarationsToInstantiate() +
 										  " but it only received received " + functionArgs,
@@ -494,8 +679,12 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 		}
 		// Keyword passing
 		else {
-			for(Arg arg : argExpressions)
-				functionArgs.add(arg.peek(Arg.param), arg.peek(Arg.valueIsConstraint).value, arg.peek(Arg.value).evaluate(env));
+			int index = 0;
+			for(Arg arg : argExpressions) {
+				Element value = argumentCode != null && argumentCode[index] != null ? argumentCode[index].run(env) : arg.peek(Arg.value).evaluate(env);
+				functionArgs.add(arg.peek(Arg.param), arg.peek(Arg.valueIsConstraint).value, value);
+				index++;
+			}
 		}
 
 		// Create the local environment, passing the arguments.
@@ -507,7 +696,8 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 			else return instance;
 		} catch(StackOverflowError err) {
 			
-			throw new ElementError("Stack overflow! " + err, null);
+			throw new ElementError("Stack overflow with " + EvaluationContext.current() + 
+				"; long constraint chains need a larger thread stack (-Xss). " + err, null);
 			
 		}
 
@@ -554,7 +744,7 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 				if(potentialTransition instanceof Transition) t = (Transition)potentialTransition;
 				else throw new ElementError("Passed non-transition as transition to set: " + potentialTransition, null);
 			}
-			return new Bool(property.set(value, t));
+			return Bool.valueOf(property.set(value, t));
 		}
 		else if(propertyFunction.equals("name"))
 			return property.getDeclaration().get(Dec.name);
@@ -579,13 +769,13 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 		else if(propertyFunction.equals("firstView"))
 			return property.getFirstView();
 		else if(propertyFunction.equals("isValid"))
-			return new Bool(property.isValid());
+			return Bool.valueOf(property.isValid());
 		else if(propertyFunction.equals("is"))
 			return property.is(argExpressions.first().peek(Arg.value).evaluate(env));
 		else if(propertyFunction.equals("declaration"))
 			return property.getDeclaration();
 		else if(propertyFunction.equals("isReference"))
-			return new Bool(property.getDeclaration().isReferenceOnly());
+			return Bool.valueOf(property.getDeclaration().isReferenceOnly());
 		else if(propertyFunction.equals("requestOwnership"))
 			return property.requestOwnership();
 		else throw new ElementError("Properties don't have a function named " + propertyFunction, null);
@@ -594,33 +784,28 @@ public class Evaluate<ResultType extends Element> extends Expression<ResultType>
 	
 	public static Element handleIntFunction(Element env, Int i, String fun, List<Arg> argExpressions) {
 		
-		if(fun.equals("greaterThan") || fun.equals(">"))
-			return new Bool(i.value > ((Int)argExpressions.first().value().evaluate(env)).value);
-		else if(fun.equals("greaterThanOrEqualTo") || fun.equals(">="))
-			return new Bool(i.value >= ((Int)argExpressions.first().value().evaluate(env)).value);
-		else if(fun.equals("lessThan") || fun.equals("<"))
-			return new Bool(i.value < ((Int)argExpressions.first().value().evaluate(env)).value);
-		else if(fun.equals("lessThanOrEqualTo") || fun.equals("<="))
-			return new Bool(i.value <= ((Int)argExpressions.first().value().evaluate(env)).value);
-		else if(fun.equals("+")) {
-			Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
-			return new Int(i.value + ((Int)arg2).value);
-		}
-		else if(fun.equals("-")) {
-			Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
-			return new Int(i.value - ((Int)arg2).value);
-		}
-		else if(fun.equals("*")) {
-			Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
-			return new Int(i.value * ((Int)arg2).value);
-		}
-		else if(fun.equals("/")) {
-			Element arg2 = argExpressions.first().peek(Arg.value).evaluate(env);
-			return new Int(i.value / ((Int)arg2).value);
-		}
-		else if(fun.equals("toText")) return i.toText();
+		return handleIntFunction(env, i, Operator.named(fun), argExpressions);
+		
+	}
 
-		return null;
+	static Element handleIntFunction(Element env, Int i, Operator operator, List<Arg> argExpressions) {
+		
+		switch(operator) {
+			case GREATER: case GREATER_THAN:
+				return Bool.valueOf(i.value > ((Int)argExpressions.first().value().evaluate(env)).value);
+			case GREATER_OR_EQUAL: case GREATER_THAN_OR_EQUAL_TO:
+				return Bool.valueOf(i.value >= ((Int)argExpressions.first().value().evaluate(env)).value);
+			case LESS: case LESS_THAN:
+				return Bool.valueOf(i.value < ((Int)argExpressions.first().value().evaluate(env)).value);
+			case LESS_OR_EQUAL: case LESS_THAN_OR_EQUAL_TO:
+				return Bool.valueOf(i.value <= ((Int)argExpressions.first().value().evaluate(env)).value);
+			case PLUS: return Int.valueOf(i.value + ((Int)argExpressions.first().peek(Arg.value).evaluate(env)).value);
+			case MINUS: return Int.valueOf(i.value - ((Int)argExpressions.first().peek(Arg.value).evaluate(env)).value);
+			case TIMES: return Int.valueOf(i.value * ((Int)argExpressions.first().peek(Arg.value).evaluate(env)).value);
+			case DIVIDE: return Int.valueOf(i.value / ((Int)argExpressions.first().peek(Arg.value).evaluate(env)).value);
+			case TO_TEXT: return i.toText();
+			default: return null;
+		}
 		
 	}
 
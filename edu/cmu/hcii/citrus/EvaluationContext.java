@@ -0,0 +1,250 @@
+/*
+ * 
+ * Citrus - A object-oriented, interpreted language that is designed to simplify 
+ * the creation of dynamic, immediate feedback graphical desktop applications.
+ * 
+ * Copyright (c) 2005 Andrew Jensen Ko
+ * All rights reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package edu.cmu.hcii.citrus;
+
+import java.util.Arrays;
+import java.util.Stack;
+
+// The bookkeeping that Property needs while it evaluates constraints: the stack of
+// properties being evaluated, the stack of actions (evaluating, notifying, initializing)
+// and the stack of change accumulators recording undoable events.
+//
+// Each thread gets its own context, so that evaluating on one thread never pushes onto
+// or pops from another thread's stacks, and no global monitor is needed to protect them.
+// Only the stacks are per thread. Properties themselves, including those of declarations,
+// types and other elements every document shares, keep unsynchronized evaluating and
+// out of date flags, so this doesn't make evaluating the same properties on two threads safe.
+public final class EvaluationContext {
+
+	// The kinds of things a property can be doing when it calls other properties.
+	enum Action { evaluate, notify, initialize };
+
+	private static final ThreadLocal<EvaluationContext> contexts = new ThreadLocal<EvaluationContext>() {
+		protected EvaluationContext initialValue() { return new EvaluationContext(); }
+	};
+
+	// Returns the evaluation context of the calling thread.
+	public static EvaluationContext current() { return contexts.get(); }
+
+	// How deeply properties may nest their evaluations before we give up and report the
+	// chain. Unless it's set, the only limit is the Java stack: when evaluating overflows it,
+	// Property reports the chain instead. Both stacks start small and grow on demand.
+	public static final int MAXIMUM_DEPTH = Integer.getInteger("citrus.maximumEvaluationDepth", Integer.MAX_VALUE / 2);
+	private static final int INITIAL_DEPTH = Math.min(1024, MAXIMUM_DEPTH);
+
+	// The number of properties from the top of the stack to include in a depth diagnostic.
+	private static final int PROPERTIES_TO_REPORT = 10;
+
+	// A stack of all of the properties currently being evaluated. The 
+	// last in is the property currently being evaluated. The "topOfEvaluationStack"
+	// integer refers to the index into the stack of the current property being
+	// evaluated.
+	Property<?>[] propertiesBeingEvaluated = new Property[INITIAL_DEPTH];
+	int topOfEvaluationStack = -1;
+
+	// A stack of the properties and listeners being evaluated, and the index
+	// of the current property or listener being evaluated.
+	Action[] actionStack = new Action[INITIAL_DEPTH];
+	int topOfActionStack = -1;
+
+	// The deepest each stack has been since the last reset.
+	private int evaluationHighWaterMark = 0;
+	private int actionHighWaterMark = 0;
+
+	// The properties marked out of date whose dependents have yet to be visited, and the
+	// properties waiting to be told they're out of date, during out of date propagation.
+	// Listeners may set properties while being notified, so each propagation only uses
+	// the entries above the sizes it started with.
+	private Property<?>[] worklist = new Property[INITIAL_DEPTH];
+	int worklistSize = 0;
+	private Property<?>[] toNotify = new Property[INITIAL_DEPTH];
+	int toNotifySize = 0;
+
+	// The accumulators recording undoable changes made on this thread.
+	final Stack<ElementChangeAccumulator> eventAccumulators = new Stack<ElementChangeAccumulator>();
+
+	private EvaluationContext() {}
+
+	void pushProperty(Property<?> property) {
+
+		if(topOfEvaluationStack + 1 == propertiesBeingEvaluated.length) {
+			if(propertiesBeingEvaluated.length >= MAXIMUM_DEPTH)
+				throw new ElementError(depthDiagnostic(property, false), property);
+			propertiesBeingEvaluated = Arrays.copyOf(propertiesBeingEvaluated, Math.min(MAXIMUM_DEPTH, propertiesBeingEvaluated.length * 2));
+		}
+
+		++topOfEvaluationStack;
+		propertiesBeingEvaluated[topOfEvaluationStack] = property;
+		if(topOfEvaluationStack >= evaluationHighWaterMark) evaluationHighWaterMark = topOfEvaluationStack + 1;
+
+	}
+
+	void popProperty() {
+
+		propertiesBeingEvaluated[topOfEvaluationStack] = null;
+		--topOfEvaluationStack;
+
+	}
+
+	// Pushes the property and the evaluate action together. If either stack is already
+	// as deep as we allow, this throws before changing either.
+	void enter(Property<?> property) {
+
+		if(topOfActionStack + 1 == MAXIMUM_DEPTH)
+			throw new ElementError(depthDiagnostic(property, false), property);
+		pushProperty(property);
+		pushAction(Action.evaluate);
+
+	}
+
+	void exit() {
+
+		popAction();
+		popProperty();
+
+	}
+
+	void pushWork(Property<?> property) {
+
+		if(worklistSize == worklist.length) worklist = Arrays.copyOf(worklist, worklist.length * 2);
+		worklist[worklistSize++] = property;
+
+	}
+
+	Property<?> popWork() {
+
+		Property<?> property = worklist[--worklistSize];
+		worklist[worklistSize] = null;
+		return property;
+
+	}
+
+	void addToNotify(Property<?> property) {
+
+		if(toNotifySize == toNotify.length) toNotify = Arrays.copyOf(toNotify, toNotify.length * 2);
+		toNotify[toNotifySize++] = property;
+
+	}
+
+	Property<?> toNotifyAt(int index) { return toNotify[index]; }
+
+	void truncateToNotify(int size) {
+
+		Arrays.fill(toNotify, size, toNotifySize, null);
+		toNotifySize = size;
+
+	}
+
+	// The property currently being evaluated, or null if there isn't one.
+	Property<?> propertyBeingEvaluated() { return topOfEvaluationStack < 0 ? null : propertiesBeingEvaluated[topOfEvaluationStack]; }
+
+	void pushAction(Action action) {
+
+		if(topOfActionStack + 1 == actionStack.length) {
+			if(actionStack.length >= MAXIMUM_DEPTH)
+				throw new ElementError(depthDiagnostic(propertyBeingEvaluated(), false), propertyBeingEvaluated());
+			actionStack = Arrays.copyOf(actionStack, Math.min(MAXIMUM_DEPTH, actionStack.length * 2));
+		}
+
+		topOfActionStack++;
+		actionStack[topOfActionStack] = action;
+		if(topOfActionStack >= actionHighWaterMark) actionHighWaterMark = topOfActionStack + 1;
+
+	}
+
+	void popAction() {
+
+		actionStack[topOfActionStack] = null;
+		topOfActionStack--;
+
+	}
+
+	boolean isDoing(Action action) { return topOfActionStack >= 0 && actionStack[topOfActionStack] == action; }
+
+	// Describes the chain of evaluations that got too deep, either for the limit or, if it
+	// overflowed, for the Java stack. If the property being pushed (or, on overflow, the one
+	// on top) is on the stack again, this is a cycle the evaluating flags didn't catch;
+	// otherwise it's just a very long chain of constraints.
+	String depthDiagnostic(Property<?> property, boolean overflowed) {
+
+		int occurrences = 0;
+		for(int i = 0; i <= topOfEvaluationStack; i++)
+			if(propertiesBeingEvaluated[i] == property) occurrences++;
+		boolean cycle = occurrences > (overflowed ? 1 : 0);
+
+		StringBuilder s = new StringBuilder();
+		s.append(cycle ? "Cycle detected" : "Constraint chain too deep");
+		s.append(" after ").append(topOfEvaluationStack + 1).append(" nested property evaluations and ");
+		s.append(topOfActionStack + 1).append(" nested actions ");
+		if(overflowed) s.append("(Java ran out of stack; give it more with -Xss). Most recently evaluated:\n");
+		else s.append("(the limit is ").append(MAXIMUM_DEPTH).append("; raise it with -Dcitrus.maximumEvaluationDepth). Most recently evaluated:\n");
+		for(int i = topOfEvaluationStack; i >= 0 && i > topOfEvaluationStack - PROPERTIES_TO_REPORT; i--)
+			s.append("\t").append(describe(propertiesBeingEvaluated[i])).append("\n");
+		if(topOfEvaluationStack >= 0)
+			s.append("which began with ").append(describe(propertiesBeingEvaluated[0]));
+		return s.toString();
+
+	}
+
+	private static String describe(Property<?> p) {
+
+		if(p == null) return "nothing";
+		Element<?> owner = p.getElementOwner();
+		return "" + (owner == null ? "?" : owner.getType().getName()) + "'s " + p.getName();
+
+	}
+
+	/////////////////////////////////////////////////////////////////////////
+	// Metrics
+	/////////////////////////////////////////////////////////////////////////
+
+	// The number of properties currently being evaluated on this thread.
+	public int getDepth() { return topOfEvaluationStack + 1; }
+
+	// The number of actions (evaluations, notifications and initializations) in progress.
+	public int getActionDepth() { return topOfActionStack + 1; }
+
+	// The deepest the stacks have been since the last reset.
+	public int getHighWaterMark() { return evaluationHighWaterMark; }
+	public int getActionHighWaterMark() { return actionHighWaterMark; }
+
+	// The space currently allocated for each stack.
+	public int getCapacity() { return propertiesBeingEvaluated.length; }
+	public int getActionCapacity() { return actionStack.length; }
+
+	public void resetHighWaterMarks() {
+
+		evaluationHighWaterMark = topOfEvaluationStack + 1;
+		actionHighWaterMark = topOfActionStack + 1;
+
+	}
+
+	public String toString() {
+
+		return "evaluation depth " + getDepth() + " (high " + evaluationHighWaterMark + ", capacity " + getCapacity() + "), " + 
+			"action depth " + getActionDepth() + " (high " + actionHighWaterMark + ", capacity " + getActionCapacity() + ")";
+
+	}
+
+}
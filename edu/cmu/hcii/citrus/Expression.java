@@ -33,6 +33,11 @@ public abstract class Expression<TypeEvaluatesTo extends Element> extends BaseEl
 	public Expression(ArgumentList arguments) { super(arguments); }
 
 	public abstract TypeEvaluatesTo evaluate(Element<?> env);
+
+	// If this is a function body or constraint, how many times it has been evaluated and its
+	// compiled code, if it's been evaluated often enough to compile. See Compiler.
+	int evaluations = 0;
+	Compiler.Compiled compiled = null;
 	
 	public String toString() {
 
@@ -67,15 +67,56 @@ public abstract class Group<CollectionType extends Element,ItemType extends Elem
 
 	public Namespace<?> getType() { return Boot.GROUP; }
 
+	// True if the given item is only equivalent to itself, in which case the property that owns it
+	// tells us where it is, and we don't have to compare it to every item.
+	private static final ClassValue<Boolean> identityComparedClasses = new ClassValue<Boolean>() {
+		protected Boolean computeValue(Class<?> c) {
+			try {
+				Class<?> declarer = c.getMethod("isEquivalentTo", Element.class).getDeclaringClass();
+				return (declarer == BaseElement.class || declarer == BootElement.class) &&
+					c.getMethod("equals", Object.class).getDeclaringClass() == Object.class;
+			} catch(NoSuchMethodException e) { return false; }
+		}
+	};
+	protected static boolean comparesByIdentity(Element<?> item) { return item != null && identityComparedClasses.get(item.getClass()); }
+
+	// The property that owns the given item, without depending on it.
+	protected static Property<?> peekAtPropertyOwnerOf(Element<?> item) {
+
+		if(item instanceof BaseElement) return ((BaseElement<?>)item).peekPropertyOwner();
+		else if(item instanceof BootElement) return ((BootElement<?>)item).propertyOwner;
+		else return null;
+
+	}
+
 	public abstract Bool isEmpty();
 	public final Bool remove(ItemType item) { return removeOverTime(item, null); }
 	public abstract Bool removeOverTime(ItemType item, Transition t);
 
+	// Whether the first is equivalent to the second, as first.isEquivalentTo(second) would say, 
+	// but without making a Bool for every comparison.
+	public static boolean areEquivalent(Element<?> first, Element<?> second) {
+
+		if(first == null) return false;
+		else if(first instanceof Int) return second instanceof Int && ((Int)first).value == ((Int)second).value;
+		else if(first instanceof Real) return second instanceof Real && ((Real)first).value == ((Real)second).value;
+		else if(first instanceof Bool) return second instanceof Bool && ((Bool)first).value == ((Bool)second).value;
+		else if(first instanceof Nothing) return second instanceof Nothing;
+		else if(comparesByIdentity(first)) return first == second;
+		else return first.isEquivalentTo(second).value;
+
+	}
+
 	public Bool contains(ItemType item) {
 		
+		// An item we own is one of ours.
+		if(comparesByIdentity(item)) {
+			Property<?> owner = peekAtPropertyOwnerOf(item);
+			if(owner != null && owner.getElementOwner() == this) return Bool.TRUE;
+		}
 		for(ItemType i : this)
-			if(i.isEquivalentTo(item).value) return new Bool(true);
-		return new Bool(false);
+			if(areEquivalent(i, item)) return Bool.TRUE;
+		return Bool.FALSE;
 		
 	}
 	
@@ -85,7 +126,7 @@ public abstract class Group<CollectionType extends Element,ItemType extends Elem
 			Bool b = (Bool)Evaluate.eval(this, this, f, new List<Arg>(new Arg("", false, i)));
 			if(b.value) return b;	
 		}
-		return new Bool(false);
+		return Bool.valueOf(false);
 		
 	}
 
@@ -149,7 +190,7 @@ public abstract class Group<CollectionType extends Element,ItemType extends Elem
 		for(ItemType i : itemsToRemove)
 			remove(i);
 		
-		return new Bool(itemsToRemove.size() > 0);
+		return Bool.valueOf(itemsToRemove.size() > 0);
 		
 	}
 	
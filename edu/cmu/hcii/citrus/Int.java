@@ -28,16 +28,29 @@ public class Int extends BootElement<Int> implements Comparable<Int> {
 	public final int value;
 	
 	public Int(int newValue) { value = newValue; }
+
+	// Canonical instances of the integers we compute most, shared by everything, and so without 
+	// owners or users. Use new Int() for an integer that something will own.
+	private static final int SMALLEST_CACHED = -128, LARGEST_CACHED = 1023;
+	private static final Int[] cache = new Int[LARGEST_CACHED - SMALLEST_CACHED + 1];
+	static { for(int i = 0; i < cache.length; i++) cache[i] = shared(new Int(i + SMALLEST_CACHED)); }
+
+	public static Int valueOf(int value) {
+
+		if(value >= SMALLEST_CACHED && value <= LARGEST_CACHED) return cache[value - SMALLEST_CACHED];
+		else return new Int(value);
+
+	}
 	
-	public Int plus(Int operand) { return new Int(value + operand.value); }
-	public Int minus(Int operand) { return new Int(value - operand.value); }
-	public Bool equals(Int operand) { return new Bool(value == operand.value); }
+	public Int plus(Int operand) { return valueOf(value + operand.value); }
+	public Int minus(Int operand) { return valueOf(value - operand.value); }
+	public Bool equals(Int operand) { return Bool.valueOf(value == operand.value); }
 	
-	public Bool greaterThan(Int operand) { return new Bool(value > operand.value); }
+	public Bool greaterThan(Int operand) { return Bool.valueOf(value > operand.value); }
 	
 	public String toString() { return "" + value; }
 
-	public Bool isEquivalentTo(Element<?> e) { return new Bool(e instanceof Int && ((Int)e).value == value); }
+	public Bool isEquivalentTo(Element<?> e) { return Bool.valueOf(e instanceof Int && ((Int)e).value == value); }
 	public Element duplicate() { return new Int(value); }
 	public Namespace<?> getType() { return Boot.INT; }
 	public Text toCitrus() { return new Text("" + value); }
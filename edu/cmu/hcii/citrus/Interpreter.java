@@ -25,7 +25,7 @@ package edu.cmu.hcii.citrus;
 
 public class Interpreter extends Universe {
 	
-	public static final Dec<Bool> showLexing = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> showLexing = new Dec<Bool>(Bool.valueOf(true));
 	public static final Dec<Element> env = new Dec<Element>((Element)null, true);
 	public static final Dec<Element> temp = new Dec<Element>((Element)null, true);
 	public static final Dec<Element> app = new Dec<Element>((Element)null, true);
@@ -31,6 +31,11 @@ public class JavaFunction extends BootElement<Function> implements Function {
 	private final Text name;
 	private final Vector<DecInterface> formalParameters = new Vector<DecInterface>();
 	private final Method method;
+
+	// The method, bound once so that calls skip reflection's argument array and access checks.
+	// Null if it couldn't be bound, or if it takes more arguments than we invoke handles with,
+	// in which case we use reflection.
+	private final Reflection.Handle handle;
 	private final boolean isStatic = false;
 
 	public JavaFunction(Method newMethod) { 
@@ -64,6 +69,8 @@ public class JavaFunction extends BootElement<Function> implements Function {
 			}
 
 		}
+
+		handle = formalParameters.size() <= 3 ? Reflection.handleFor(method) : null;
 		
 	}
 	
@@ -78,12 +85,23 @@ public class JavaFunction extends BootElement<Function> implements Function {
 	public Element instantiate(ArgumentList arguments) {
 
 		if(arguments.enclosingEnvironment == null) throw new ElementError("Can't call " + this + " on null", null);
-		Element[] formalArguments = new Element[formalParameters.size()];
-		int i = 0;
-		for(ArgumentList.Argument arg : arguments.arguments)
-			formalArguments[i++] = arg.value;
-		
+
 		try {
+			if(handle != null) {
+				Object object = arguments.enclosingEnvironment;
+				Iterator<ArgumentList.Argument> args = arguments.arguments.iterator();
+				switch(formalParameters.size()) {
+					case 0: return (Element)Reflection.invoke(handle, object);
+					case 1: return (Element)Reflection.invoke(handle, object, next(args));
+					case 2: return (Element)Reflection.invoke(handle, object, next(args), next(args));
+					default: return (Element)Reflection.invoke(handle, object, next(args), next(args), next(args));
+				}
+			}
+
+			Element[] formalArguments = new Element[formalParameters.size()];
+			int i = 0;
+			for(ArgumentList.Argument arg : arguments.arguments)
+				formalArguments[i++] = arg.value;
 			return (Element)method.invoke(arguments.enclosingEnvironment, formalArguments);
 		} catch (IllegalArgumentException e) {
 			throw new ElementError("Wasn't able to invoke " + method + " on " + arguments.enclosingEnvironment + " using " + arguments + " because " + e, arguments.enclosingEnvironment);
@@ -96,6 +114,9 @@ public class JavaFunction extends BootElement<Function> implements Function {
 
 	}
 
+	// The value of the next argument, or null if there isn't one, as reflection would pass.
+	private static Element<?> next(Iterator<ArgumentList.Argument> args) { return args.hasNext() ? args.next().value : null; }
+
 	public Element<?> getExpression() { return null; }
 	public String getName() { return name.value; }
 	public Bool isTypeOf(Namespace t) { return t.isTypeOf(Boot.EXPRESSION); }
@@ -170,6 +191,6 @@ public class JavaFunction extends BootElement<Function> implements Function {
 		
 	}
 	
-	public Bool isEquivalentTo(Element<?> o) { return new Bool(this.equals(o)); }
+	public Bool isEquivalentTo(Element<?> o) { return Bool.valueOf(this.equals(o)); }
 
 }
\ No newline at end of file
@@ -23,9 +23,11 @@
  */
 package edu.cmu.hcii.citrus;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
 
 import edu.cmu.hcii.citrus.views.Transition;
 
@@ -94,25 +96,124 @@ public class List<ItemType extends Element> extends Group<List<ItemType>, ItemTy
 		
 	}
 
-	public final LinkedList<Property<ItemType>> items;
-	
-	public List() { items = new LinkedList<Property<ItemType>>(); }
+	/////////////////////////////////////////////////////////////////////////
+	// Storage
+	/////////////////////////////////////////////////////////////////////////
+
+	// The properties holding this list's items, in order, in the first "size" elements of
+	// an array, so that positional access is constant time. Each property also remembers
+	// its position, so that we can find an item's index from the property that owns it.
+	// Inserting or removing shifts the positions of the items after it, so rather than
+	// renumbering them all each time, we remember the first position that might be wrong
+	// and renumber from there the next time we need a position we can't trust.
+	private static final Property[] NO_ITEMS = new Property[0];
+	private Property<ItemType>[] items = NO_ITEMS;
+	private int size = 0;
+	private int firstStalePosition = 0;
+
+	// Incremented on every insertion and removal, so iterators can detect concurrent changes.
+	private int modifications = 0;
+
+	private Property<ItemType> propertyAt(int index) {
+
+		if(index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return items[index];
+
+	}
+
+	private void addProperty(int index, Property<ItemType> property) {
+
+		if(index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		if(size == items.length) items = Arrays.copyOf(items, Math.max(4, size * 2));
+		System.arraycopy(items, index, items, index + 1, size - index);
+		items[index] = property;
+		size++;
+		modifications++;
+		Compiler.edited(this);
+
+		property.positionInList = index;
+		if(index < size - 1) firstStalePosition = Math.min(firstStalePosition, index + 1);
+		else if(firstStalePosition == index) firstStalePosition = size;
+
+	}
+
+	private Property<ItemType> removeProperty(int index) {
+
+		Property<ItemType> property = propertyAt(index);
+		System.arraycopy(items, index + 1, items, index, size - index - 1);
+		size--;
+		items[size] = null;
+		modifications++;
+		Compiler.edited(this);
+
+		property.positionInList = -1;
+		firstStalePosition = Math.min(firstStalePosition, index);
+		return property;
+
+	}
+
+	// The index of the given property in this list, or -1 if it's not one of this list's properties.
+	protected final int positionOf(Property<?> property) {
+
+		int position = property.positionInList;
+		if(position >= 0 && position < size && items[position] == property) return position;
+
+		// Renumber the positions that might be wrong, then look again.
+		if(firstStalePosition < size) {
+			for(int i = firstStalePosition; i < size; i++) items[i].positionInList = i;
+			firstStalePosition = size;
+			position = property.positionInList;
+			if(position >= 0 && position < size && items[position] == property) return position;
+		}
+		return -1;
+
+	}
+
+	private class PropertyIterator implements Iterator<Property<ItemType>> {
+
+		private int next = 0;
+		private int last = -1;
+		private int expectedModifications = modifications;
+
+		public boolean hasNext() { return next < size; }
+		public Property<ItemType> next() {
+			if(modifications != expectedModifications) throw new ConcurrentModificationException();
+			if(next >= size) throw new NoSuchElementException();
+			last = next++;
+			return items[last];
+		}
+		public void remove() {
+			if(last < 0) throw new IllegalStateException();
+			if(modifications != expectedModifications) throw new ConcurrentModificationException();
+			removeProperty(last);
+			next = last;
+			last = -1;
+			expectedModifications = modifications;
+		}
+
+	}
+
+	public List() {}
 	public List(ItemType ... newItems) { 
-		items = new LinkedList<Property<ItemType>>();
 		for(ItemType item : newItems) append(item);
 	}
 	public List(Collection<ItemType> newItems) {
-		items = new LinkedList<Property<ItemType>>();
 		for(ItemType item : newItems) append(item);
 	}
 	
 	public Namespace<?> getType() { return Boot.LIST; }
 	
-	public int hashCode() { return items.hashCode(); }
+	public int hashCode() { 
+
+		int hash = 1;
+		for(int i = 0; i < size; i++) hash = 31 * hash + items[i].hashCode();
+		return hash;
+
+	}
 
 	public Set<Property<?>> getProperties() { 
 		
-		return (Set<Property<?>>)new Set(items);
+		return (Set<Property<?>>)new Set(Arrays.asList(Arrays.copyOf(items, size)));
 		
 	}
 
@@ -160,13 +261,7 @@ public class List<ItemType extends Element> extends Group<List<ItemType>, ItemTy
 		return s + " ]";
 
 	}
-	public Text toXML() {
-
-		String s = "";
-		for(ItemType item : this) s = s + item.toXML() + "\n";
-		return new Text(s);
-		
-	}
+	public Text toXML() { return XMLWriter.toXML(this); }
 	public Text toFormattedText(Text delimiter, Bool last) {
 		
 		String result = "";
@@ -182,18 +277,18 @@ public class List<ItemType extends Element> extends Group<List<ItemType>, ItemTy
 
 	public List evaluate(Element<?> env) { return this; }
 
-	public Iterator<Property<ItemType>> propertyIterator() { return items.iterator(); }
+	public Iterator<Property<ItemType>> propertyIterator() { return new PropertyIterator(); }
 	
-	public Int length() { return new Int(items.size()); }
+	public Int length() { return Int.valueOf(size); }
 
-	public Bool isEmpty() { return new Bool(items.isEmpty()); }
-	public ItemType first() { return items.isEmpty() ? null : items.getFirst().peek(); }
-	public ItemType second() { return items.size() < 2 ? null : items.get(1).peek(); }
-	public ItemType third() { return items.size() < 3 ? null : items.get(2).peek(); }
-	public ItemType last() { return items.isEmpty() ? null : items.getLast().peek(); }
+	public Bool isEmpty() { return Bool.valueOf(size == 0); }
+	public ItemType first() { return size == 0 ? null : items[0].peek(); }
+	public ItemType second() { return size < 2 ? null : items[1].peek(); }
+	public ItemType third() { return size < 3 ? null : items[2].peek(); }
+	public ItemType last() { return size == 0 ? null : items[size - 1].peek(); }
 	public ItemType nth(Int index) { 
-		if(index.value >= 1 && index.value <= items.size())
-			return items.get(index.value - 1).peek(); 
+		if(index.value >= 1 && index.value <= size)
+			return items[index.value - 1].peek(); 
 		else return null;
 	}
 
@@ -221,7 +316,7 @@ public class List<ItemType extends Element> extends Group<List<ItemType>, ItemTy
 		
 		ItemType item = itemAt(index);
 		ItemType itemAfterOrBefore = next.value ? itemAfter(item) : itemBefore(item);
-		if(itemAfterOrBefore == null) return new Bool(false);
+		if(itemAfterOrBefore == null) return Bool.valueOf(false);
 		remove(itemAfterOrBefore);
 		if(next.value) return insertBeforeOverTime(item, itemAfterOrBefore, t);
 		else return insertAfterOverTime(item, itemAfterOrBefore, t);	
@@ -242,7 +337,7 @@ public class List<ItemType extends Element> extends Group<List<ItemType>, ItemTy
 			Element item = newItems.first();
 			newItems.remove(item);
 			insertAfterIndex(index, (ItemType)item);
-			index = new Int(index.value + 1);
+			index = Int.valueOf(index.value + 1);
 		}
 		return Bool.TRUE;
 		
@@ -255,14 +350,14 @@ public class List<ItemType extends Element> extends Group<List<ItemType>, ItemTy
 		return this;
 	}
 	
-	public ItemType insert(ItemType item) { return insertAfterIndexOverTime(new Int(0), item, null); }	
-	public ItemType insertOverTime(ItemType item, Transition t) { return insertAfterIndexOverTime(new Int(0), item, t); }	
+	public ItemType insert(ItemType item) { return insertAfterIndexOverTime(Int.valueOf(0), item, null); }	
+	public ItemType insertOverTime(ItemType item, Transition t) { return insertAfterIndexOverTime(Int.valueOf(0), item, t); }	
 
 	public ItemType insertAfterIndex(Int index, ItemType item) { return insertAfterIndexOverTime(index, item, null); }
 	public ItemType insertAfterIndexOverTime(Int index, ItemType item, Transition t) {
 		
 		Property newProperty = generateProperty(item);
-		items.add(index.value, newProperty);
+		addProperty(index.value, newProperty);
 		touchUsers(t);
 		
 		ElementChangeAccumulator acc = Property.peekAccumulator();
@@ -281,32 +376,32 @@ public class List<ItemType extends Element> extends Group<List<ItemType>, ItemTy
 	public Bool insertBeforeOverTime(ItemType itemToInsertBefore, ItemType item, Transition t) {
 		
 		Int indexOfItemToInsertBefore = indexOf(itemToInsertBefore);
-		if(indexOfItemToInsertBefore.value < 0) return new Bool(false);
-		insertAfterIndexOverTime(new Int(indexOfItemToInsertBefore.value - 1), item, t);
-		return new Bool(true);
+		if(indexOfItemToInsertBefore.value < 0) return Bool.valueOf(false);
+		insertAfterIndexOverTime(Int.valueOf(indexOfItemToInsertBefore.value - 1), item, t);
+		return Bool.valueOf(true);
 		
 	}
 	public Bool insertAfter(ItemType itemToInsertAfter, ItemType item) { return insertAfterOverTime(itemToInsertAfter, item, null); }
 	public Bool insertAfterOverTime(ItemType itemToInsertAfter, ItemType item, Transition t) {
 		
 		Int indexOfItemToInsertAfter = indexOf(itemToInsertAfter);
-		if(indexOfItemToInsertAfter.value < 0) return new Bool(false);
+		if(indexOfItemToInsertAfter.value < 0) return Bool.valueOf(false);
 		insertAfterIndexOverTime(indexOfItemToInsertAfter, item, t);
-		return new Bool(true);
+		return Bool.valueOf(true);
 		
 	}	
 	
 	// Lists disown by removing the element from the list
 	public Bool disown(Element<?> e, Transition t) {
 
-		if(removeOverTime((ItemType)e, t).value) return new Bool(true);
+		if(removeOverTime((ItemType)e, t).value) return Bool.valueOf(true);
 		else return super.disown(e, t);
 		
 	}
 	
 	public Bool removeAll() {
 		
-		Int one = new Int(1);
+		Int one = Int.valueOf(1);
 		while(!isEmpty().value) removeOverTime(itemAt(one), null);
 		return Bool.TRUE;
 		
@@ -316,9 +411,9 @@ public class List<ItemType extends Element> extends Group<List<ItemType>, ItemTy
 	public Bool removeItemAtOverTime(Int index, Transition t) {
 
 		if(index.value < 0) return Bool.FALSE;
-		else if(index.value > items.size()) return Bool.FALSE;
+		else if(index.value > size) return Bool.FALSE;
 		
-		Property<?> propertyRemoved = items.remove(index.value - 1);
+		Property<?> propertyRemoved = removeProperty(index.value - 1);
 		Element valueRemoved = propertyRemoved.get();
 		propertyRemoved.set(null);
 		
@@ -367,36 +462,59 @@ public class List<ItemType extends Element> extends Group<List<ItemType>, ItemTy
 
 	public Int indexOf(ItemType item) { 
 		
-		Iterator<ItemType> iterator = iterator();
-		int i = 1;
-		while(iterator.hasNext()) {
-			if(iterator.next().isEquivalentTo(item).value) return new Int(i);
-			i++;
-		}
-		return new Int(-1);
+		int position = positionOfItem(item);
+		return Int.valueOf(position < 0 ? -1 : position + 1);
 	
 	}
 
+	// The zero-based index of the first item equivalent to the given item, or -1. If the item 
+	// is compared by identity and we own it, the property that owns it knows where it is.
+	private int positionOfItem(ItemType item) {
+
+		if(comparesByIdentity(item)) {
+			Property<?> owner = peekAtPropertyOwnerOf(item);
+			if(owner != null && owner.getElementOwner() == this) {
+				int position = positionOf(owner);
+				if(position >= 0) return position;
+			}
+		}
+		for(int i = 0; i < size; i++)
+			if(areEquivalent(items[i].peek(), item)) return i;
+		return -1;
+
+	}
+
 	public ItemType itemAt(Int index) {
 		
-		if(index.value < 1 || index.value > items.size()) return null;
-		return items.get(index.value - 1).peek();
+		if(index.value < 1 || index.value > size) return null;
+		return items[index.value - 1].peek();
 		
 	}
 	
-	public ItemType itemAfter(ItemType item) { return itemAt(indexOf(item).plus(new Int(1))); }
-	public ItemType itemBefore(ItemType item) { return itemAt(indexOf(item).minus(new Int(1))); }
+	public ItemType itemAfter(ItemType item) { return itemAtOffsetFrom(item, 1); }
+	public ItemType itemBefore(ItemType item) { return itemAtOffsetFrom(item, -1); }
+
+	// Finds the item the given distance from the given item.
+	private ItemType itemAtOffsetFrom(ItemType item, int offset) {
+
+		int position = positionOfItem(item);
+		if(position < 0) return null;
+
+		position += offset;
+		return position >= 0 && position < size ? items[position].peek() : null;
+
+	}
 
 	public Bool isListEquivalentTo(List<?> e) {
 		
-		if(!(e instanceof List)) return new Bool(false);
+		if(!(e instanceof List)) return Bool.valueOf(false);
 		Iterator<ItemType> eItems = ((List<ItemType>)e).iterator();
 		for(ItemType item : this) {
-			if(!eItems.hasNext()) return new Bool(false);
-			if(!eItems.next().isEquivalentTo(item).value) return new Bool(false);
+			if(!eItems.hasNext()) return Bool.valueOf(false);
+			if(!areEquivalent(eItems.next(), item)) return Bool.valueOf(false);
 		}
-		if(eItems.hasNext()) return new Bool(false);
-		else return new Bool(true);
+		if(eItems.hasNext()) return Bool.valueOf(false);
+		else return Bool.valueOf(true);
 		
 	}
 	
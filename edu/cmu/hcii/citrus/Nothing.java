@@ -31,8 +31,8 @@ public class Nothing extends BootElement<Nothing> {
 	public Namespace<?> getType() { return Boot.NOTHING; }
 
 	// EQUALITY
-	public Bool isEquivalentTo(Element<?> e) { return new Bool(e instanceof Nothing); }
-	public Bool is(Element e) { return new Bool(e == null || e instanceof Nothing); }
+	public Bool isEquivalentTo(Element<?> e) { return Bool.valueOf(e instanceof Nothing); }
+	public Bool is(Element e) { return Bool.valueOf(e == null || e instanceof Nothing); }
 	
 	// DUPLICATION
 	public Element duplicate() { return new Nothing(); }
@@ -105,7 +105,7 @@ public class Observer extends BaseElement<Observer> implements Listener,Namespac
 	public Iterable<DecInterface> getDeclarationsToInstantiate() { return when.declarations; }
 	public Iterable<DecInterface> getDeclarationsDeclared() { return when.declarations; }
 	public String getName() { return when.peek(When.name).value; }
-	public Bool isTypeOf(Namespace t) { return new Bool(t == this); }
+	public Bool isTypeOf(Namespace t) { return Bool.valueOf(t == this); }
 	public Language getLanguage() { return (Language)when.ownerOfType(Boot.LANGUAGE); }
 	public int getNumberOfDeclarations() { return 1; }
 	public DecInterface<?> getDeclarationOf(Text name) { 
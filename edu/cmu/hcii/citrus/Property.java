@@ -25,8 +25,15 @@ package edu.cmu.hcii.citrus;
 
 import java.lang.ref.WeakReference;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Stack;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.cmu.hcii.citrus.EvaluationContext.Action;
 
 import edu.cmu.hcii.citrus.views.App;
 import edu.cmu.hcii.citrus.views.Debug;
@@ -38,18 +45,23 @@ import edu.cmu.hcii.citrus.views.ElementView;
 // when it is set to an element, and removing itself as a user when it is set to null.
 // A Property is always a user of something, including instances of nothing.
 //
-// Because Properties can be changed amongst all kinds of threads, this class NEEDS to be thread
-// safe with regard to its shared data (the evaluation stack and pointer, for example). Currently, it is NOT!
+// The evaluation and action stacks live in a per-thread EvaluationContext, so that a thread's
+// bookkeeping never mixes with another's, and changes to the constraint graph's edges are made
+// while holding a lock that is never held while evaluating anything. That is all that is per
+// thread: each property's evaluating and outOfDate flags are plain fields, and properties of
+// declarations, types and other shared elements are reachable from every document. Two threads
+// that evaluate the same property at once can see a false cycle or miss an update, so only
+// evaluate on separate threads elements that share no properties.
 public class Property<ValueType extends Element> implements Element<Property> {
 
 	/////////////////////////////////////////////////////////////////////////
 	// Global Bookkeeping
 	/////////////////////////////////////////////////////////////////////////
 
-	private static final Stack<ElementChangeAccumulator> eventAccumulators = new Stack<ElementChangeAccumulator>();
-	public static void pushAccumulator(ElementChangeAccumulator accumulator) { eventAccumulators.push(accumulator); }
-	public static ElementChangeAccumulator popAccumulator() { return eventAccumulators.pop(); }
+	public static void pushAccumulator(ElementChangeAccumulator accumulator) { EvaluationContext.current().eventAccumulators.push(accumulator); }
+	public static ElementChangeAccumulator popAccumulator() { return EvaluationContext.current().eventAccumulators.pop(); }
 	public static ElementChangeAccumulator peekAccumulator() { 
+		Stack<ElementChangeAccumulator> eventAccumulators = EvaluationContext.current().eventAccumulators;
 		if(eventAccumulators.empty()) return null;
 		else return eventAccumulators.peek(); 
 	}
@@ -91,20 +103,9 @@ public class Property<ValueType extends Element> implements Element<Property> {
 		
 	}
 	
-	// A stack of all of the properties currently being evaluated. The 
-	// last in is the property currently being evaluated. The "topOfEvaluationStack"
-	// integer refers to the index into the stack of the current property being
-	// evaluated.
-	private static Property<?>[] propertiesBeingEvaluated = new Property[1024];
-	private static int topOfEvaluationStack = -1;
-
-	// A stack of the properties and listeners being evaluated, and the index
-	// of the current property or listener being evaluated.
-	private static enum Action { evaluate, notify, initialize };
-	private static Action[] actionStack = new Action[1024];
-	private static int topOfActionStack = -1;
-	
-	public static boolean initializing() { return topOfActionStack >= 0 && actionStack[topOfActionStack].equals(Action.initialize); }
+	// The properties being evaluated and the actions being performed are tracked
+	// per thread; see EvaluationContext.
+	public static boolean initializing() { return EvaluationContext.current().isDoing(Action.initialize); }
 
 	public static class ValueWillChange extends BootElement {
 		public ValueWillChange(ArgumentList args) { super(args); }
@@ -134,6 +135,21 @@ public class Property<ValueType extends Element> implements Element<Property> {
 	public static Type MARKED_OUT_OF_DATE = null;
 	public static Type CYCLE_DETECTED = null;
 
+	// Each out of date propagation gets a new epoch, so that a property reachable along 
+	// many paths is only notified once per propagation.
+	private static final AtomicInteger propagations = new AtomicInteger();
+
+	// Held while adding or removing edges in the constraint graph. Edges are read without it.
+	private static final Object edgeLock = new Object();
+
+	// Each edge's state packs whether a new value is pending in the sign bit and the number 
+	// of times the edge has been used in the rest.
+	private static final int PENDING = 0x80000000;
+	private static final int USES = 0x7FFFFFFF;
+
+	// Properties with more inputs than this find their inputs with a hash index rather than a scan.
+	private static final int INPUTS_TO_SCAN = 8;
+
 
 	/////////////////////////////////////////////////////////////////////////
 	// Per Instance Bookkeeping
@@ -160,14 +176,30 @@ public class Property<ValueType extends Element> implements Element<Property> {
 	private boolean evaluating;
 	
 	// The number of times that this function has been evaluated.
-	private short numberOfEvaluations;
-
-	// The properties that the function depends on.
-	private IncomingEdge incoming;
-
-	// The property's outgoing edge bookkeeping
-	private OutgoingEdge outgoing;
-	private int out = 0;
+	private int numberOfEvaluations;
+
+	// The epoch of the last out of date propagation that notified this property.
+	private int notifiedEpoch;
+
+	// If this property holds an item in a List, its index there, kept up to date by the list.
+	int positionInList = -1;
+
+	// The properties that the function depends on, and for each, the index of the edge to
+	// this property in that property's dependents. Properties with many inputs also keep an 
+	// open addressed index from input to position, built when first needed.
+	private Property[] inputs;
+	private int[] inputEdges;
+	private int numberOfInputs;
+	private int[] inputIndex;
+
+	// The properties that depend on this property, the state of each edge, and the
+	// index of each edge in the dependent's inputs. Dependents are weakly referenced so 
+	// that they can be garbage collected; they all share the dependent's own reference.
+	private WeakReference<Property>[] dependents;
+	private int[] dependentStates;
+	private int[] dependentEdges;
+	private int numberOfDependents;
+	private WeakReference<Property> weakSelf;
     
 	// Who to tell about property events.
     protected WeakSet<Listener<ValueType>> listeners;
@@ -199,32 +231,48 @@ public class Property<ValueType extends Element> implements Element<Property> {
 	    listeners = null;				// No listeners yet
 		evaluating = false;
 		outOfDate = true;
-		incoming = null;
-		outgoing = null;
 
 		// We give value the canonical value and leave it up to Element() to initialize 
 		// this property to the appropriate default value according to the declaration
 		// by calling initialize();
 		Type baseType = declaration.getTypeExpression().getBaseType();
-		if(baseType == Boot.INT) value = (ValueType)new Int(0);
-		else if(baseType == Boot.REAL) value = (ValueType)new Real(0.0);
-		else if(baseType == Boot.TEXT) value = (ValueType)new Text("");
-		else if(baseType == Boot.CHAR) value = (ValueType)new Char(' ');
+		if(baseType == Boot.INT) value = (ValueType)UNINITIALIZED_INT;
+		else if(baseType == Boot.REAL) value = (ValueType)UNINITIALIZED_REAL;
+		else if(baseType == Boot.TEXT) value = (ValueType)UNINITIALIZED_TEXT;
+		else if(baseType == Boot.CHAR) value = (ValueType)UNINITIALIZED_CHAR;
 //		else if(baseType == Boot.LIST) value = (ValueType)new List();
-		else value = (ValueType)new Nothing();
+		else value = (ValueType)UNINITIALIZED_NOTHING;
 		
 	}
+
+	// The canonical values properties hold until they're initialized. Most properties replace
+	// theirs as soon as they're initialized, so rather than making one for each property, 
+	// they're shared, and a property that keeps its canonical value gets its own copy then.
+	private static final Int UNINITIALIZED_INT = AbstractElement.shared(new Int(0));
+	private static final Real UNINITIALIZED_REAL = AbstractElement.shared(new Real(0.0));
+	private static final Text UNINITIALIZED_TEXT = AbstractElement.shared(new Text(""));
+	private static final Char UNINITIALIZED_CHAR = AbstractElement.shared(new Char(' '));
+	private static final Nothing UNINITIALIZED_NOTHING = AbstractElement.shared(new Nothing());
+
+	private Element ownCopyOfUninitializedValue() {
+
+		if(value == UNINITIALIZED_INT) return new Int(0);
+		else if(value == UNINITIALIZED_REAL) return new Real(0.0);
+		else if(value == UNINITIALIZED_TEXT) return new Text("");
+		else if(value == UNINITIALIZED_CHAR) return new Char(' ');
+		else if(value == UNINITIALIZED_NOTHING) return new Nothing();
+		else return value;
+
+	}
 	
-	private static Property mostRecentInit = null;
 	public Property<ValueType> initialize(Element parameterizedValue, boolean valueIsFunction, Transition t) {
 
-		synchronized(propertiesBeingEvaluated) {
+		EvaluationContext context = EvaluationContext.current();
 		
 		// Push the initalize action on the action stack to prevent dependencies
 		// from being created while we evaluate this propertie's default value and value
 		// function expressions.
-		pushAction(Action.initialize);
-		mostRecentInit = this;
+		context.pushAction(Action.initialize);
 		
 		try {
 
@@ -240,7 +288,7 @@ public class Property<ValueType extends Element> implements Element<Property> {
 					numberOfEvaluations = 0;		// Not evaluated yet
 					outOfDate = false;
 					markOutOfDateAndPending(t, value, value);
-					evaluate();
+					evaluate(context);
 
 				}
 				else {
@@ -275,7 +323,7 @@ public class Property<ValueType extends Element> implements Element<Property> {
 				numberOfEvaluations = 0;		// Not evaluated yet
 				outOfDate = false;
 				markOutOfDateAndPending(t, value, value);
-				evaluate();
+				evaluate(context);
 	
 			}
 
@@ -284,14 +332,15 @@ public class Property<ValueType extends Element> implements Element<Property> {
 			e.printStackTrace();
 			throw new ElementError("Exception while evaluating " + owner + "'s property " + declaration + "'s default value expression: " + e, declaration);
 		}
+
+		// If the initial value was equivalent to the canonical value, we still have the shared one.
+		value = (ValueType)ownCopyOfUninitializedValue();
 		
 		// Pop off the initialize action, now that we're done initializing.
-		popAction();
+		context.popAction();
 
 		// Return this initialized property, for convenience in expressions.
 		return this;
-
-		}
 		
 	}
 
@@ -377,48 +426,153 @@ public class Property<ValueType extends Element> implements Element<Property> {
     // Constraint handling
     /////////////////////////////////////////////////////////////////////    
 	
-	// Add an incoming edge to the given property.
-	private void addIncomingEdgeFrom(Property p, OutgoingEdge outgoingEdge) { 
-		
-		incoming = new IncomingEdge(p, incoming, outgoingEdge);
-		
+	// The edges are stored in parallel arrays on both ends: the dependent keeps its inputs and 
+	// the source keeps its dependents, each end recording the index of the edge at the other,
+	// so that either end can find or remove the edge in constant time. Removal moves the last
+	// edge into the hole, and fixes the index at the moved edge's other end.
+
+	// Returns the position of the given property in this property's inputs, or -1.
+	private int indexOfInput(Property p) {
+
+		Property[] inputs = this.inputs;
+		int count = numberOfInputs;
+		if(count <= INPUTS_TO_SCAN) {
+			for(int i = 0; i < count; i++)
+				if(inputs[i] == p) return i;
+			return -1;
+		}
+
+		int[] index = inputIndex;
+		if(index == null) index = indexInputs();
+		int mask = index.length - 1;
+		for(int slot = hash(p) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+			int i = index[slot] - 1;
+			if(i < count && inputs[i] == p) return i;
+		}
+		return -1;
+
 	}
-	
-	// Remove the incoming edge from the given property.
-	private void removeIncomingEdgeFrom(Property p) { 
-
-		// Find the incoming edge from the given property
-		IncomingEdge previous = null;
-		IncomingEdge edge = incoming;
-		while(edge != null) { if(edge.property == p) break; previous = edge; edge = edge.next; }
-
-		// If we found it, and its the first edge, set the first edge to the next edge.
-	 	// Otherwise, have the previous point to the current's next.
-		if(edge != null) {
-	 		if(previous == null) incoming = edge.next;
-		 	else previous.next = edge.next;
+
+	private static int hash(Property p) { return System.identityHashCode(p) * 0x9E3779B9 >>> 1; }
+
+	// Builds the index of inputs, with room for the index to stay at most half full.
+	private int[] indexInputs() {
+
+		int size = Integer.highestOneBit(numberOfInputs * 4 - 1);
+		int[] index = new int[size];
+		for(int i = 0; i < numberOfInputs; i++) addToIndex(index, i);
+		inputIndex = index;
+		return index;
+
+	}
+
+	private void addToIndex(int[] index, int i) {
+
+		int mask = index.length - 1;
+		int slot = hash(inputs[i]) & mask;
+		while(index[slot] != 0) slot = (slot + 1) & mask;
+		index[slot] = i + 1;
+
+	}
+
+	// Adds an edge from this property to the given dependent, marked pending and used
+	// as many times as the dependent has been evaluated.
+	private void addDependent(Property dependent) {
+
+		synchronized(edgeLock) {
+
+			if(dependents == null) {
+				dependents = new WeakReference[2];
+				dependentStates = new int[2];
+				dependentEdges = new int[2];
+			}
+			else if(numberOfDependents == dependents.length) {
+				int length = numberOfDependents + (numberOfDependents >> 1) + 1;
+				dependents = Arrays.copyOf(dependents, length);
+				dependentStates = Arrays.copyOf(dependentStates, length);
+				dependentEdges = Arrays.copyOf(dependentEdges, length);
+			}
+			if(dependent.weakSelf == null) dependent.weakSelf = new WeakReference<Property>(dependent);
+
+			int edge = numberOfDependents;
+			dependents[edge] = dependent.weakSelf;
+			dependentStates[edge] = PENDING | dependent.numberOfEvaluations;
+			dependentEdges[edge] = dependent.addInput(this, edge);
+			numberOfDependents++;
+
 		}
-		
+
 	}
 
-	// Remove the outgoing edge to the given property
-	private void removeOutgoingEdgeTo(Property p) {
-		
-		// Find the incoming edge from the given property
-		OutgoingEdge previous = null;
-		OutgoingEdge edge = outgoing;
-		while(edge != null) { if(edge.property.get() == p) break; previous = edge; edge = edge.next; }
-
-		// If we found it, and its the first edge, set the first edge to the next edge.
-	 	// Otherwise, have the previous point to the current's next.
-		if(edge != null) {
-	 		if(previous == null) outgoing = edge.next;
-		 	else previous.next = edge.next;
+	// Adds the given input, whose edge to this property is at the given index in its dependents.
+	private int addInput(Property input, int edge) {
+
+		if(inputs == null) {
+			inputs = new Property[2];
+			inputEdges = new int[2];
 		}
-		
-		out--;
-		
+		else if(numberOfInputs == inputs.length) {
+			int length = numberOfInputs + (numberOfInputs >> 1) + 1;
+			inputs = Arrays.copyOf(inputs, length);
+			inputEdges = Arrays.copyOf(inputEdges, length);
+		}
+
+		int i = numberOfInputs;
+		inputs[i] = input;
+		inputEdges[i] = edge;
+		numberOfInputs++;
+
+		// Keep the index, if there is one, at most half full.
+		if(inputIndex != null) {
+			if(numberOfInputs * 2 > inputIndex.length) inputIndex = null;
+			else addToIndex(inputIndex, i);
+		}
+		return i;
+
+	}
+
+	// Removes this property's i'th input, and the input's edge to this property.
+	private void removeInput(int i) {
+
+		synchronized(edgeLock) {
+
+			if(i >= numberOfInputs) return;
+			inputs[i].removeDependent(inputEdges[i]);
+
+			int last = --numberOfInputs;
+			if(i != last) {
+				inputs[i] = inputs[last];
+				inputEdges[i] = inputEdges[last];
+				inputs[i].dependentEdges[inputEdges[i]] = i;
+			}
+			inputs[last] = null;
+			
+			// Positions have changed; rebuild the index when it's next needed.
+			inputIndex = null;
+
+		}
+
 	}
+
+	// Removes the given edge from this property's dependents. If the dependent has been garbage
+	// collected, this is all that's left of the edge. Only called while holding the edge lock.
+	private void removeDependent(int edge) {
+
+		int last = --numberOfDependents;
+		if(edge != last) {
+			dependents[edge] = dependents[last];
+			dependentStates[edge] = dependentStates[last];
+			dependentEdges[edge] = dependentEdges[last];
+			Property moved = dependents[edge].get();
+			if(moved != null) moved.inputEdges[dependentEdges[edge]] = edge;
+		}
+		dependents[last] = null;
+
+	}
+
+	// The number of edges into and out of this property.
+	public int getNumberOfInputs() { return numberOfInputs; }
+	public int getNumberOfDependents() { return numberOfDependents; }
 	
     /////////////////////////////////////////////////////////////////////
     // Getters
@@ -432,20 +586,18 @@ public class Property<ValueType extends Element> implements Element<Property> {
 	// performance penalty if the value is not out of date.
     public ValueType get() {
 
-		synchronized(propertiesBeingEvaluated) {
+   		EvaluationContext context = EvaluationContext.current();
 
-    		// If we're currently getting this property in the context of a property evaluation 
-    		// then add this dependency.
-    		if(topOfActionStack >= 0 && actionStack[topOfActionStack].equals(Action.evaluate) && !declaration.isConstant())
-    			updateDependency();
+   		// If we're currently getting this property in the context of a property evaluation 
+   		// then add this dependency.
+   		if(context.isDoing(Action.evaluate) && !declaration.isConstant())
+   			updateDependency(context);
 
-    		// Ensure that this property's value is up to date.
-    		evaluate();
-    		
-    		// Return the up to date value.
-    		return value instanceof Nothing ? null : value;
+   		// Ensure that this property's value is up to date.
+   		evaluate(context);
     		
-		}
+   		// Return the up to date value.
+   		return value instanceof Nothing ? null : value;
     	
    	}
     
@@ -456,7 +608,7 @@ public class Property<ValueType extends Element> implements Element<Property> {
     public ValueType peek() { 
 
 		// Ensure that this property's value is up to date.
-		evaluate();
+		evaluate(EvaluationContext.current());
 		
 		// Return the up to date value.
 		return value instanceof Nothing ? null : value;
@@ -464,7 +616,9 @@ public class Property<ValueType extends Element> implements Element<Property> {
     }
 
     public boolean owns(Element<?> e) { return e.getPropertyOwner() == this; }
-    public boolean isReference() { return declaration.isReferenceOnly() || value.getPropertyOwner() != this; }
+    // Shared values can't point back to the properties holding them, but a property that may own
+    // its value holds them as if it did.
+    public boolean isReference() { return declaration.isReferenceOnly() || (!value.isShared() && value.getPropertyOwner() != this); }
     public boolean valueIsNothing() { 
     	
     		peek();
@@ -491,70 +645,42 @@ public class Property<ValueType extends Element> implements Element<Property> {
     		// to have the function update the value properly. We'll see.
     		numberOfEvaluations = 0;
     		outOfDate = true;
-    		evaluate();
+    		evaluate(EvaluationContext.current());
     	
     }
 
     // Records a dependency between this and the property currently being evaluated.
-    private void updateDependency() {
-
-		synchronized(propertiesBeingEvaluated) {
+    private void updateDependency(EvaluationContext context) {
 
-	    	if(topOfEvaluationStack < 0) return;
+	    	if(context.topOfEvaluationStack < 0) return;
 	    	
-			// Get the property that's currently being evaluated.
-			Property propertyEvaluating = propertiesBeingEvaluated[topOfEvaluationStack];
-			
-			// Allow dependencies to self. Why?
-			// (1) Change listeners may want to use the new value, and technically,
-			// just after setting it as part of a constraint, it hasn't finished evaluating
-			// yet. 
-			// (2), it may be convenience to have something depend on itself (for example, something
-			// that's conditionally constrained to some expression, and otherwise its current value.
-			// (3) property restrictions need to reference the property they restrict 
+		// Get the property that's currently being evaluated.
+		Property propertyEvaluating = context.propertiesBeingEvaluated[context.topOfEvaluationStack];
+		
+		// Allow dependencies to self. Why?
+		// (1) Change listeners may want to use the new value, and technically,
+		// just after setting it as part of a constraint, it hasn't finished evaluating
+		// yet. 
+		// (2), it may be convenience to have something depend on itself (for example, something
+		// that's conditionally constrained to some expression, and otherwise its current value.
+		// (3) property restrictions need to reference the property they restrict 
 	//		if(propertyEvaluating == this)
 	//			return;
-			
-			// Do we have an outgoing edge to the property being evaluated?
-			// We have two options when it comes to searching for it:
-			// (1) Search through the outgoing edges
-			// (2) Search through the incoming edges of the property evaluating.
-			// The fastest would be to search the smaller of the two lists,
-			// but that would require storing the length of both.
-			// We determined empirically that the incoming edge lists are typically shorter.
-	
-			// Is this an incoming property of the property being evaluated?
-			OutgoingEdge edgeToPropertyEvaluating = null;
-			IncomingEdge previous = null;
-			for(IncomingEdge incomingEdge = propertyEvaluating.incoming; incomingEdge != null; incomingEdge = incomingEdge.next) {
-				if(incomingEdge.property == this) {
-					edgeToPropertyEvaluating = incomingEdge.outgoingEdge;
-					break;
-				}
-			}
-			
-			// If there's already an edge to the property, equate the edge's number of uses 
-			// to the number of times the property being evaluated has been evaluated.
-			// When a property is marked out of date, if these numbers don't match, this dependency will be removed,
-			// since we'll know they haven't been evaluated the same number of times.
-			if(edgeToPropertyEvaluating != null) 
-				edgeToPropertyEvaluating.numberOfUses = propertyEvaluating.getNumberOfEvaluations();
-			// Otherwise, add the outgoing edge to the property being evaluated and
-			// an incoming edge from this to the property being evaluated.
-			else {
-	
-				// Insert a new outgoing edge in front.
-				outgoing = new OutgoingEdge(propertyEvaluating, outgoing); 
-		 		propertyEvaluating.addIncomingEdgeFrom(this, outgoing);
-		 		out++;
-	 			if(out > 100 /*out % 100 == 0*/) {
-	 				System.err.println("Look! " + owner + "'s " + getName() + " has " + out + 
-	 						" outgoing edges, most recently to " + propertyEvaluating.getName() + 
-	 						" as part of " + propertiesBeingEvaluated[topOfEvaluationStack].function);
-	 			}
-			}
-
+		
+		// Is this already an input of the property being evaluated? Only the thread evaluating a 
+		// property adds to its inputs, so we can search them without locking.
+		int input = propertyEvaluating.indexOfInput(this);
+		
+		// If there's already an edge to the property, equate the edge's number of uses 
+		// to the number of times the property being evaluated has been evaluated.
+		// When a property is marked out of date, if these numbers don't match, this dependency will be removed,
+		// since we'll know they haven't been evaluated the same number of times.
+		if(input >= 0) {
+			int edge = propertyEvaluating.inputEdges[input];
+			dependentStates[edge] = (dependentStates[edge] & PENDING) | propertyEvaluating.numberOfEvaluations;
 		}
+		// Otherwise, add an edge from this to the property being evaluated.
+		else addDependent(propertyEvaluating);
 		
     }
     
@@ -564,136 +690,137 @@ public class Property<ValueType extends Element> implements Element<Property> {
     
 	// This method updates this property's value if any of the property's it depends on have changed.
     // Dependencies include properties referenced in constraints or restrictions.
-	private boolean evaluate() {
-
-		synchronized(propertiesBeingEvaluated) {
+	private boolean evaluate(EvaluationContext context) {
 
-			// We only evaluate this property if it is out of date.
-			if(!outOfDate) return false;
-			
-			// If this property's evaluating flag is set, then we must have already
-			// called evaluate on this property, and thus a cycle exists in the 
-			// dependency graph. We avoid evaluating to ensure that this method halts.
-			// The one exception is if this is the property currently being evaluated.
-			// This is not a cycle: evaluate A -> evaluate B -> set B -> notify for B -> get A
-			if(evaluating) {
-				
-				if(propertiesBeingEvaluated[topOfEvaluationStack] != this) cycle(); 
-				return false; 
-	
-			}
+		// We only evaluate this property if it is out of date.
+		if(!outOfDate) return false;
+		
+		// If this property's evaluating flag is set, then we must have already
+		// called evaluate on this property, and thus a cycle exists in the 
+		// dependency graph. We avoid evaluating to ensure that this method halts.
+		// The one exception is if this is the property currently being evaluated.
+		// This is not a cycle: evaluate A -> evaluate B -> set B -> notify for B -> get A
+		if(evaluating) {
 			
+			if(context.propertyBeingEvaluated() != this) cycle(context); 
+			return false; 
+
+		}
+		
+		// Push this property onto the stack of currently evaluating properties. If the chain of
+		// evaluations is too deep, this reports it before we've changed anything.
+		context.enter(this);
+
+		// Whether any incoming edges' values are pending, and the value of the constraint if so.
+		boolean hasPendingValue = false;
+		ValueType newValue = value;
+
+		// Whatever happens while evaluating, including errors that we don't catch, we pop
+		// this property and unset its flag, so that later evaluations don't see a false cycle.
+		try {
+
 			// Mark this property as up to date, since we're about to make it up to date.
 			outOfDate = false;
-	
-			// Push this property onto the stack of currently evaluating properties.
-			++topOfEvaluationStack;
-			propertiesBeingEvaluated[topOfEvaluationStack] = this;
-			pushAction(Action.evaluate);
-			
+		
 			// Set the property's evaluating flag so that we can detect cyclic dependencies.
 			evaluating = true;
-			
+		
 			// Whether any incoming edges' values are pending. Starts as false, unless
 			// a new constraint has just been applied that has yet to be evaluated.
-			boolean hasPendingValue = (numberOfEvaluations == 0);
-	
+			hasPendingValue = (numberOfEvaluations == 0);
+
 			// Do any of the incoming edges have values pending?
-			IncomingEdge previous = null;
-			for(IncomingEdge incomingEdge = incoming; incomingEdge != null; incomingEdge = incomingEdge.next) {
-	
+			int i = 0;
+			while(i < numberOfInputs) {
+
+				Property input = inputs[i];
+
 				// If the edge coming into this property has been used fewer 
 				// number of times than this property has been evaluated, then remove it.
-				// It must not have been used in the last evaluation.
-				if(incomingEdge.outgoingEdge.numberOfUses < numberOfEvaluations) {
-	
-					// If the edge is the first edge, set the first edge to the next edge.
-			 		if(previous == null) incoming = incomingEdge.next;
-				 	// Otherwise, have the previous point to the current's next.
-				 	else previous.next = incomingEdge.next;
-	
-			 		// Remove this from the property's incoming edges
-					incomingEdge.property.removeOutgoingEdgeTo(this);
-	
-					// We don't advance the previous (since it hasn't changed)
-	
-				}
-				// Otherwise, advance the previous and evaluate the incoming property.
+				// It must not have been used in the last evaluation. The last input
+				// takes its place, so we don't advance.
+				if((input.dependentStates[inputEdges[i]] & USES) < numberOfEvaluations)
+					removeInput(i);
+				// Otherwise, evaluate the incoming property and advance.
 				else {
-					
+				
 					// Evaluate the property, to determine it has a pending value.
-					incomingEdge.property.evaluate();
-					// If the edge is pending, set the flag to true;
-					hasPendingValue = hasPendingValue || incomingEdge.outgoingEdge.pending;
-					// Set the pending flag of the edge to this property to false.
-					incomingEdge.outgoingEdge.pending = false;
-	
-					previous = incomingEdge;
-					
+					input.evaluate(context);
+
+					// Evaluating may have moved the edge in the input's dependents, so we find it again.
+					if(i >= numberOfInputs || inputs[i] != input) i = indexOfInput(input);
+					if(i >= 0) {
+						int edge = inputEdges[i];
+						int state = input.dependentStates[edge];
+						// If the edge is pending, set the flag to true;
+						hasPendingValue = hasPendingValue || (state & PENDING) != 0;
+						// Set the pending flag of the edge to this property to false.
+						input.dependentStates[edge] = state & USES;
+					}
+					i++;
+				
 				}
-	
+
 			}
-	
+
 			// If there's a value pending, then execute the constraint to get the new value.
 			if(hasPendingValue) {
-	
+
 				// Increment the number of evaluations by one. All of the current dependencies
 				// in the function will be matched to this value (via updateDependency()), 
 				// while the stale dependencies will have the old value, and be removed
 				// the next time this is evaluated.
 				numberOfEvaluations++;
-	
+
 				// Try evaluating the function. By default, we'll use set to the current value. If there's a 
 				// null pointer exception, we leave the value alone.
-				ValueType newValue = value;
 				if(function != null) {
+					boolean profiling = ConstraintProfiler.isRecording();
+					if(profiling) ConstraintProfiler.enter(this);
 					try {
 						if(function instanceof Closure) {
 							newValue = (ValueType)((Closure)function).instantiate(new ArgumentList());
 						}
 						else 
-							newValue = function.evaluate(owner); 
+							newValue = (ValueType)Compiler.evaluate(function, owner); 
 					}
 					catch(Exception e) { e.printStackTrace(); }
+					finally { if(profiling) ConstraintProfiler.exit(this); }
 				}
-	
-				// After evaluating the constraint function, are any of the incoming edges 
-				// stale? Note that instead of doing this eagerly, we could wait for the incoming
-				// properties to change, which would also remove stale edges. However, if they
-				// never change, then references to this property would never be garbage collected.
-	
-				// Pop it off the stack before we set the value, to avoid creating
-				// unwanted dependencies.
-				popAction();
-				propertiesBeingEvaluated[topOfEvaluationStack] = null;
-				--topOfEvaluationStack;
-				evaluating = false;
-	
-				// Now validate, set the new value, mark out of date, notify of validity changes, etc.
-				setHelper(newValue, null);
-	
-				// Mark this property as up to date AGAIN, just in case setting it marked it out of date.
-				outOfDate = false;
-				
-				return true;
-	
-			} else {
-	
-				// Pop it off the stack, and unset the flag.
-				popAction();
-				propertiesBeingEvaluated[topOfEvaluationStack] = null;
-				--topOfEvaluationStack;
-				evaluating = false;
-	
-				// Mark this property as up to date AGAIN, just in case setting it marked it out of date.
-				outOfDate = false;
-				
-				return false;
-	
+
 			}
-			
+
+			// After evaluating the constraint function, are any of the incoming edges 
+			// stale? Note that instead of doing this eagerly, we could wait for the incoming
+			// properties to change, which would also remove stale edges. However, if they
+			// never change, then references to this property would never be garbage collected.
+
+		}
+		// If the chain of evaluations overflowed the Java stack, report the chain while this
+		// property is still on our stack. If there isn't enough stack left to describe it,
+		// that overflows again, and the evaluation that called this one tries instead.
+		catch(StackOverflowError e) {
+
+			throw new ElementError(context.depthDiagnostic(this, true), this);
+
+		}
+		finally {
+
+			// Pop it off the stack before we set the value, to avoid creating
+			// unwanted dependencies, and unset the flag.
+			context.exit();
+			evaluating = false;
+
 		}
+
+		// Now validate, set the new value, mark out of date, notify of validity changes, etc.
+		if(hasPendingValue) setHelper(newValue, null);
+
+		// Mark this property as up to date AGAIN, just in case setting it marked it out of date.
+		outOfDate = false;
 		
+		return hasPendingValue;
+
 	}
 	
 	//////////////////////////////////////////////////////////////////////////////////////////
@@ -724,11 +851,12 @@ public class Property<ValueType extends Element> implements Element<Property> {
 	public boolean set(ValueType newValue, Transition newTransition) {
 
 		boolean success = setHelper(newValue, newTransition);
+		Compiler.edited(owner);
 		// Update the constrained value
 		if(function != null) {
 			outOfDate = true;
 			numberOfEvaluations = 0;
-			evaluate();
+			evaluate(EvaluationContext.current());
 		}
 		return success;
 		
@@ -736,148 +864,129 @@ public class Property<ValueType extends Element> implements Element<Property> {
 	
 	private boolean setHelper(ValueType newValue, Transition newTransition) {
 
-		synchronized(propertiesBeingEvaluated) {
+		EvaluationContext context = EvaluationContext.current();
 
-			// If the new element is null, convert it to a unique nothing.
-			if(newValue == null) newValue = (ValueType)new Nothing();
-	
-			/////////////////////////////
-			// VALIDATION
-			//
-			// The next step is to validate the new value.
-			//
-			//
-			
-			// Remember the old value
-			ValueType oldValue = value;
+		// If the new element is null, convert it to a unique nothing.
+		if(newValue == null) newValue = (ValueType)new Nothing();
 	
-			// Have the declaration validate this new value.    		
-			// Note that we have to catch potential null pointer exceptions here, otherwise, 
-			// setting will not succeed, and thus if this is being 
-			// called by Property.evaluate(), this property's evaluate flag will not be unset,
-			// and we would get weird notifications about cycles that don't exist.
-			Element validatedValue = null;
-			boolean newValueIsValid = true;
+		/////////////////////////////
+		// VALIDATION
+		//
+		// The next step is to validate the new value.
+		//
+		//
+		
+		// Remember the old value
+		ValueType oldValue = value;
 	
-			// We push the evaluate action and push this property on the evaluation stack in order 
-			// to catch any dependencies in the validation.
-			++topOfEvaluationStack;
-			propertiesBeingEvaluated[topOfEvaluationStack] = this;
-			pushAction(Action.evaluate);
-			value = newValue;
-			try {
-				validatedValue = (ValueType)declaration.validate(this, newValue);
-			    newValueIsValid = !(validatedValue instanceof PropertyRestriction);
-			} catch(Exception e) {
-				System.err.println("EXCEPTION DURING VALIDATION OF " + newValue);
-				e.printStackTrace();
-				newValueIsValid = false;
-			}
+		// Have the declaration validate this new value.    		
+		// Note that we have to catch potential null pointer exceptions here, otherwise, 
+		// setting will not succeed, and thus if this is being 
+		// called by Property.evaluate(), this property's evaluate flag will not be unset,
+		// and we would get weird notifications about cycles that don't exist.
+		Element validatedValue = null;
+		boolean newValueIsValid = true;
+	
+		// We push the evaluate action and push this property on the evaluation stack in order 
+		// to catch any dependencies in the validation.
+		context.enter(this);
+		value = newValue;
+		try {
+			validatedValue = (ValueType)declaration.validate(this, newValue);
+		    newValueIsValid = !(validatedValue instanceof PropertyRestriction);
+		} catch(Exception e) {
+			System.err.println("EXCEPTION DURING VALIDATION OF " + newValue);
+			e.printStackTrace();
+			newValueIsValid = false;
+		} finally {
 			value = oldValue;
-			popAction();
-			propertiesBeingEvaluated[topOfEvaluationStack] = null;
-			--topOfEvaluationStack;
+			context.exit();
+		}
 	
-		    // Did validity change?
-		    boolean validityChanged = (newValueIsValid != valid);
+	    // Did validity change?
+	    boolean validityChanged = (newValueIsValid != valid);
 	
-		    // Update the validity flag.
-		    valid = newValueIsValid;
+	    // Update the validity flag.
+	    valid = newValueIsValid;
 	
-		    if(valid)
-		    		newValue = (ValueType)validatedValue;
+	    if(valid)
+	    		newValue = (ValueType)validatedValue;
+		
+		/////////////////////////////
+		// UPDATE AND NOTIFICATION
+		//
+		// Next we assign the new value, and if it's not equivalent to the old value, we
+		// mark dependent properties out of date and notify listeners about the change.
+		//
+		
+	    // The value changed if: (1) the old value is null and the new value is not; 
+		// (2) the new value is null and the old value is not; or (3) neither are null and they are not equal.
+	    boolean changed = 
+	    		oldValue != newValue && 
+	    		oldValue == null ? 
+	    				newValue != null : 
+	    				!oldValue.isEquivalentTo(newValue).value;
+	
+		// If the value changed...
+		if(changed) {
+	
+			// Notify listeners that the value will change
+			notifyListenersOf(VALUE_WILL_CHANGE, newTransition, oldValue, newValue);
+	
+			// Unpropogate listeners from the old value
+			if(listeners != null)
+				for(Listener listener : listeners)
+					if(listener instanceof Observer && 
+						((Observer)listener).peek(Observer.event) instanceof ChangedStructurally)
+						oldValue.propogateListener(listener, false);
+			
+			// Set the new value...
+			value = newValue;
 			
 			/////////////////////////////
-			// UPDATE AND NOTIFICATION
+			// OWNERSHIP
 			//
-			// Next we assign the new value, and if it's not equivalent to the old value, we
-			// mark dependent properties out of date and notify listeners about the change.
+			// Our first responsibility is to maintain the property owner pointers,
+			// so that every element has backpointers to the things that point to it.
+			// We unregister this property with the old value, and register it with the new value.
 			//
-			
-		    // The value changed if: (1) the old value is null and the new value is not; 
-			// (2) the new value is null and the old value is not; or (3) neither are null and they are not equal.
-		    boolean changed = 
-		    		oldValue != newValue && 
-		    		oldValue == null ? 
-		    				newValue != null : 
-		    				!oldValue.isEquivalentTo(newValue).value;
 	
-			// If the value changed...
-			if(changed) {
+			oldValue.unregisterProperty(this);
+			newValue.registerProperty(this);
 	
-				// Notify listeners that the value will change
-				notifyListenersOf(VALUE_WILL_CHANGE, newTransition, oldValue, newValue);
-	
-				// Unpropogate listeners from the old value
-				if(listeners != null)
-					for(Listener listener : listeners)
-						if(listener instanceof Observer && 
-							((Observer)listener).peek(Observer.event) instanceof ChangedStructurally)
-							oldValue.propogateListener(listener, false);
-				
-				// Set the new value...
-				value = newValue;
-				
-				/////////////////////////////
-				// OWNERSHIP
-				//
-				// Our first responsibility is to maintain the property owner pointers,
-				// so that every element has backpointers to the things that point to it.
-				// We unregister this property with the old value, and register it with the new value.
-				//
-	
-				oldValue.unregisterProperty(this);
-				newValue.registerProperty(this);
-	
-				// Mark this out of date and its outgoing edges pending.
-				markOutOfDateAndPending(newTransition, oldValue, newValue);
-				
-				// Out of date if this is constrained. This way, next time its
-				// accessed it will be updated.
-				if(function != null) outOfDate = true;
+			// Mark this out of date and its outgoing edges pending.
+			markOutOfDateAndPending(newTransition, oldValue, newValue);
+			
+			// Out of date if this is constrained. This way, next time its
+			// accessed it will be updated.
+			if(function != null) outOfDate = true;
 	
-			}
+		}
+		
+	    // If validity changed, notify this property's listeners.
+		if(validityChanged) {
+			boolean handled = notifyListenersOf(VALIDITY_CHANGED, newTransition, Bool.valueOf(valid));
+			if(!valid && !handled)
+				System.err.println(
+						"" + newValue + 
+						" is invalid for " + getDeclaration() + " of " + 
+						getDeclaration().ownerOfType(Boot.TYPE) + 
+						" because " + validatedValue + "; not setting.");
 			
-		    // If validity changed, notify this property's listeners.
-			if(validityChanged) {
-				boolean handled = notifyListenersOf(VALIDITY_CHANGED, newTransition, Bool.valueOf(valid));
-				if(!valid && !handled)
-					System.err.println(
-							"" + newValue + 
-							" is invalid for " + getDeclaration() + " of " + 
-							getDeclaration().ownerOfType(Boot.TYPE) + 
-							" because " + validatedValue + "; not setting.");
-				
-			}
+		}
 	
-			// Record the set event in the accumulator at the top
-			if(!eventAccumulators.empty()) {
-				// Only if we're not initializing
-				if(getDeclaration().isUndoable()) {
-					ElementChangeEvent event = new PropertySetEvent(this, oldValue, newValue, null);
-					eventAccumulators.peek().recordEvent(event);
-				}
-				
+		// Record the set event in the accumulator at the top
+		if(!context.eventAccumulators.empty()) {
+			// Only if we're not initializing
+			if(getDeclaration().isUndoable()) {
+				ElementChangeEvent event = new PropertySetEvent(this, oldValue, newValue, null);
+				context.eventAccumulators.peek().recordEvent(event);
 			}
 			
-			// Return to the user if the value changed.
-		    return changed;
-	 
 		}
 		
-	}
-	
-	private void pushAction(Action action) {
-
-		topOfActionStack++;
-		actionStack[topOfActionStack] = action;
-
-	}
-	
-	private void popAction() {
-	
-		actionStack[topOfActionStack] = null;
-		topOfActionStack--;
+		// Return to the user if the value changed.
+	    return changed;
 		
 	}
     
@@ -914,9 +1023,8 @@ public class Property<ValueType extends Element> implements Element<Property> {
 		markOutOfDate(newTransition);
 
 		// Mark each outgoing edge as pending, telling the property that a value is pending.
-		for(OutgoingEdge edge = outgoing; edge != null; edge = edge.next) {
-			edge.pending = true;
-		}
+		for(int edge = 0; edge < numberOfDependents; edge++)
+			dependentStates[edge] |= PENDING;
 	
 	}
 
@@ -957,66 +1065,164 @@ public class Property<ValueType extends Element> implements Element<Property> {
 	}
 
 	// Mark each outgoing edge and its outgoing edges' as out of date.
+	// Rather than recursing through the graph, which overflows the Java stack on long
+	// chains of constraints, we keep a worklist of properties whose dependents have yet
+	// to be visited, and only notify listeners once everything reachable is marked.
 	public void markOutOfDate(Transition newTransition) {
 
-		// If the property isn't out of date, mark it and all of its dependents out of date
-		if(!outOfDate) {
+		// If the property is already out of date, so is everything that depends on it.
+		if(outOfDate) return;
+		outOfDate = true;
+		if(ConstraintProfiler.isRecording()) ConstraintProfiler.invalidated(this);
 
-			outOfDate = true;
+		EvaluationContext context = EvaluationContext.current();
+		int epoch = propagations.incrementAndGet();
+		int worklistBase = context.worklistSize;
+		int notifyBase = context.toNotifySize;
 
-			// Mark all upstream dependents as out of date
- 			OutgoingEdge previous = null;
- 			OutgoingEdge edge = outgoing;
- 			while(edge != null) {
-
- 				// If this edge has no property, then the edge is stale, and should
- 				// be removed. Note that we do not remove the incoming edge, because
- 				// it has already been garbage collected.
- 				if(edge.property.get() == null) {
- 				
- 					// If the edge is the first edge, set the first edge to the next edge.
-			 		if(previous == null) outgoing = edge.next;
-				 	// Otherwise, have the previous point to the current's next.
-				 	else previous.next = edge.next;
-
- 				}
- 				// If the edge has been used fewer times than the property has been evaluated,
- 				// remove the edge.
- 				else if(edge.numberOfUses < (edge.property.get()).getNumberOfEvaluations()) {
- 					
- 					// If the edge is the first edge, set the first edge to the next edge.
-			 		if(previous == null) outgoing = edge.next;
-				 	// Otherwise, have the previous point to the current's next.
-				 	else previous.next = edge.next;
-
-			 		// Remove this from the property's incoming edges
-					(edge.property.get()).removeIncomingEdgeFrom(this);
-					
-					// We don't advance the previous (since it hasn't changed)
+		context.pushWork(this);
+		while(context.worklistSize > worklistBase)
+			context.popWork().markDependentsOutOfDate(context, epoch);
 
- 				}
- 				// Otherwise, mark the dependent out of date. Note that we don't notify listeners
- 				// before this loop because then we'd send out of date events to properties that
- 				// simply changed.
-				else {
+		// Notify the dependents in the reverse of the order we reached them, so that a 
+		// property's dependents generally hear about it before the property itself.
+		// Listeners may cause other propagations, which use the space above ours.
+		int notifyTop = context.toNotifySize;
+		try {
+			for(int i = notifyTop - 1; i >= notifyBase; i--)
+				context.toNotifyAt(i).notifyListenersOfOutOfDate(newTransition);
+		}
+		finally { context.truncateToNotify(notifyBase); }
+
+	}
 
-					(edge.property.get()).markOutOfDate(newTransition);
-					(edge.property.get()).notifyListenersOfOutOfDate(newTransition);
+	// Marks this property's dependents out of date, adding those that weren't already to
+	// the worklist, and removing edges that are stale.
+	private void markDependentsOutOfDate(EvaluationContext context, int epoch) {
 
-	 				// Advance the previous edge.
-	 				previous = edge;
+		int edge = 0;
+		while(edge < numberOfDependents) {
 
+			Property dependent = dependents[edge].get();
+
+			// If this edge has no property, then the edge is stale, and should
+			// be removed. Note that there is no input to remove, because
+			// it has already been garbage collected.
+			if(dependent == null) {
+				synchronized(edgeLock) { if(edge < numberOfDependents) removeDependent(edge); }
+			}
+			// If the edge has been used fewer times than the property has been evaluated,
+			// remove the edge, from both ends.
+			else if((dependentStates[edge] & USES) < dependent.numberOfEvaluations)
+				dependent.removeInput(dependentEdges[edge]);
+			// Otherwise, mark the dependent out of date, and visit its dependents later if 
+			// it wasn't already. Note that we don't notify listeners until the propagation
+			// is done because then we'd send out of date events to properties that
+			// simply changed.
+			else {
+
+				if(!dependent.outOfDate) {
+					dependent.outOfDate = true;
+					context.pushWork(dependent);
+					if(ConstraintProfiler.isRecording()) ConstraintProfiler.invalidated(dependent);
 				}
+				if(dependent.notifiedEpoch != epoch) {
+					dependent.notifiedEpoch = epoch;
+					context.addToNotify(dependent);
+				}
+
+ 				// Advance to the next edge. When an edge is removed, the last edge
+				// takes its place, so we don't advance.
+ 				edge++;
 
- 				// Advance the edge
- 				edge = edge.next;
+			}
 				 				
+		}
+
+	}
+	
+	/////////////////////////////////////////////////////////////////////////////////
+	// Batch updates
+	/////////////////////////////////////////////////////////////////////////////////
+
+	// What happened during a batch update: how many properties were asked for, how many out of
+	// date properties they (transitively) depended on, how many of those actually had to run
+	// their constraints, and how many times the search reached a property it had already
+	// reached through another dependent. Revisits aren't evaluations avoided, since get() only
+	// evaluates an out of date property once too; they measure how much the properties share.
+	public static final class BatchUpdate {
+
+		public int requested, frontier, evaluated, revisits;
+
+		public String toString() {
+			return "" + requested + " requested, " + frontier + " out of date, " + 
+				evaluated + " evaluated, " + revisits + " shared inputs revisited";
+		}
+
+	}
+
+	// Brings the given properties up to date. Rather than getting each one, which recursively
+	// pulls its out of date inputs, nesting a Java stack frame per link in the chain, we 
+	// collect every out of date property the given properties depend on, order them so that
+	// each comes after the properties it depends on, and evaluate each one in that order, so
+	// that no evaluation has to recurse to bring its inputs up to date.
+	public static BatchUpdate updateInTopologicalOrder(Iterable<? extends Property> properties) {
+
+		BatchUpdate update = new BatchUpdate();
+		EvaluationContext context = EvaluationContext.current();
+
+		java.util.Set<Property> visited = Collections.newSetFromMap(new IdentityHashMap<Property,Boolean>());
+		ArrayList<Property> order = new ArrayList<Property>();
+
+		// A depth first search along incoming edges, kept on explicit stacks so that long
+		// chains don't overflow the Java stack. Each property is added to the order after 
+		// all of the out of date properties it depends on.
+		ArrayList<Property> stack = new ArrayList<Property>();
+		int[] positions = new int[16];
+		for(Property root : properties) {
+
+			update.requested++;
+			if(!root.outOfDate) continue;
+			if(!visited.add(root)) { update.revisits++; continue; }
+			stack.add(root);
+			positions[0] = 0;
+
+			while(!stack.isEmpty()) {
+
+				int top = stack.size() - 1;
+				Property property = stack.get(top);
+				int i = positions[top];
+				if(i >= property.numberOfInputs) order.add(stack.remove(top));
+				else {
+					positions[top] = i + 1;
+					Property input = property.inputs[i];
+					// Stale edges will be removed rather than followed when the property is evaluated.
+					boolean stale = (input.dependentStates[property.inputEdges[i]] & USES) < property.numberOfEvaluations;
+					if(!stale && input.outOfDate) {
+						// If we've already reached this input, it's shared with another dependent.
+						if(visited.add(input)) {
+							if(stack.size() == positions.length) positions = Arrays.copyOf(positions, positions.length * 2);
+							positions[stack.size()] = 0;
+							stack.add(input);
+						}
+						else update.revisits++;
+					}
+				}
+
 			}
 
 		}
 
+		// Evaluate in order. Each property's inputs are already up to date, so each evaluation 
+		// only runs its own constraint, if any of its inputs changed.
+		update.frontier = order.size();
+		for(Property property : order)
+			if(property.evaluate(context)) update.evaluated++;
+
+		return update;
+
 	}
-	
+
 	private void notifyListenersOfOutOfDate(Transition newTransition) {
 
 		// Tell all of the change handlers that this property is out of date
@@ -1065,7 +1271,7 @@ public class Property<ValueType extends Element> implements Element<Property> {
 		
 	}
 	
-	private void cycle() {
+	private void cycle(EvaluationContext context) {
 		
 		// Construct the list of dependencies that make the cycle.
 		// Stop including properties when we reach this property.
@@ -1074,10 +1280,10 @@ public class Property<ValueType extends Element> implements Element<Property> {
 		// Find the first occurence of this property on the stack.
 		int i = 0;
 		Property p = null;
-		while(i <= topOfEvaluationStack && p != this) { p = propertiesBeingEvaluated[i++]; }
+		while(i <= context.topOfEvaluationStack && p != this) { p = context.propertiesBeingEvaluated[i++]; }
 		i--;
 		// Add all subsequent properties that it depends upon.
-		while(i <= topOfEvaluationStack) cycle.append(propertiesBeingEvaluated[i++]);
+		while(i <= context.topOfEvaluationStack) cycle.append(context.propertiesBeingEvaluated[i++]);
 
 		notifyListenersOf(CYCLE_DETECTED, cycle);
 		
@@ -1085,9 +1291,11 @@ public class Property<ValueType extends Element> implements Element<Property> {
 		
 	private String stackToString() {
 
+		EvaluationContext context = EvaluationContext.current();
+		Property<?>[] propertiesBeingEvaluated = context.propertiesBeingEvaluated;
 		String s = "When evaluating " + propertiesBeingEvaluated[0].getElementOwner() + "'s " + propertiesBeingEvaluated[0].getName() + ", determined that ...\n";	
 		s = s + "" + getElementOwner() + "'s " + getName() + " depends on\n";
-		int i = topOfEvaluationStack;
+		int i = context.topOfEvaluationStack;
 		while(i >= 0/* && propertiesBeingEvaluated[i + 1] != this*/) {
 			Property<?> p = propertiesBeingEvaluated[i];
 			s = s + "" + p.getElementOwner() + "'s " + 
@@ -1109,7 +1317,8 @@ public class Property<ValueType extends Element> implements Element<Property> {
 	
 			boolean handled = false;
 			// Push the notify action on the stack
-			pushAction(Action.notify);
+			EvaluationContext context = EvaluationContext.current();
+			context.pushAction(Action.notify);
 			
 			// Evaluate each listener of the appropriate type
 			for(Listener listener : listeners) {
@@ -1140,7 +1349,7 @@ public class Property<ValueType extends Element> implements Element<Property> {
 			}
 	
 			// Now that we're done with the action, pop it off the stack.
-			popAction();
+			context.popAction();
 	
 			return handled;
 
@@ -1154,19 +1363,10 @@ public class Property<ValueType extends Element> implements Element<Property> {
 		
 	public TypeExpression getTypeExpression() { return declaration.getTypeExpression(); }
 
-	public Text toXML() {
+	public Text toXML() { return XMLWriter.toXML(this); }
 
-		String s = "";
-		s = s + "<" + getName() + ">";
-		Text valueText = (isReference() ? value.toCitrusReference() : value.toXML());
-		boolean containsNewline = valueText.value.indexOf('\n') >= 0;
-		if(containsNewline) s = s + "\n";
-		s = s + valueText;
-		if(!valueText.value.endsWith("\n") && containsNewline) s = s + "\n";
-		s = s + "</" + getName() + ">";
-		return new Text(s);
-
-	}
+	// The value as it is, without evaluating, for XMLWriter.
+	Element<?> getRawValue() { return value; }
 
 	//////////////////////////////////////////////////////////////////////////////////
 	//
@@ -1176,12 +1376,12 @@ public class Property<ValueType extends Element> implements Element<Property> {
 
 	// TYPE
 	public Namespace<?> getType() { return Boot.PROPERTY; }
-	public Bool isa(Type t) { return new Bool(t == Boot.PROPERTY); }
+	public Bool isa(Type t) { return Bool.valueOf(t == Boot.PROPERTY); }
 
 	// PROPERTIES
 	public Set<Property<?>> getProperties() { throw new ElementError("Properties have no properties.", null); }
 	public Property getProperty(Text name) { return null; }
-	public Bool hasa(Text name) { return new Bool(false); }
+	public Bool hasa(Text name) { return Bool.valueOf(false); }
 	public Element<?> getEnclosingInstance() { return null; }
 
 	// GETTING
@@ -1197,8 +1397,8 @@ public class Property<ValueType extends Element> implements Element<Property> {
 	}
 
 	// EQUALITY
-	public Bool isEquivalentTo(Element<?> o) { return new Bool(this.equals(o)); }
-	public Bool is(Element e) { return new Bool(this == e); }
+	public Bool isEquivalentTo(Element<?> o) { return Bool.valueOf(this.equals(o)); }
+	public Bool is(Element e) { return Bool.valueOf(this == e); }
 	
 	// PREDICATES
 	public boolean isValid() { 
@@ -1217,6 +1417,7 @@ public class Property<ValueType extends Element> implements Element<Property> {
 	public final void registerProperty(Property<?> p) {}
 	public final void unregisterProperty(Property<?> p) {}
 	public Property getPropertyOwner() { return this; }
+	public boolean isShared() { return false; }
 	public Element<?> getElementOwner() { return owner; }
 	
 	// USERS
@@ -1228,8 +1429,8 @@ public class Property<ValueType extends Element> implements Element<Property> {
 	
 	// Ask the value to disown this
 	public Bool disown(Element e, Transition t) { return value.disown(e, t); }
-	public Bool emancipateOverTime(Transition t) { return new Bool(false); }
-	public Bool emancipate() { return new Bool(false); }
+	public Bool emancipateOverTime(Transition t) { return Bool.valueOf(false); }
+	public Bool emancipate() { return Bool.valueOf(false); }
 
 	// DUPLICATION
 	// If this is a reference, return the element referenced. Otherwise, duplicate.
@@ -1310,12 +1511,11 @@ public class Property<ValueType extends Element> implements Element<Property> {
     public String outgoingEdgesToString() {
     	
     		String s = "" + getElementOwner() + "'s " + getName() + " affects:\n";
-		OutgoingEdge edge = outgoing;
- 		while(edge != null) { 
- 			s = s + "\t" + (edge.property.get()).getElementOwner() + "'s " + 
-				(edge.property.get()).getName() + "\n"; 
- 			edge = edge.next; 
- 		}
+    		for(int edge = 0; edge < numberOfDependents; edge++) {
+    			Property dependent = dependents[edge].get();
+    			if(dependent != null)
+    				s = s + "\t" + dependent.getElementOwner() + "'s " + dependent.getName() + "\n"; 
+    		}
  		return s;
     	
     }
@@ -1324,8 +1524,8 @@ public class Property<ValueType extends Element> implements Element<Property> {
     public String incomingEdgesToString() {
     	
 		String s = "" + owner + "'s " + getName() + " depends on:\n";
-		IncomingEdge edge = incoming;
- 		while(edge != null) { s = s + "\t" + edge.property.getElementOwner().getType().getName() + "'s " + edge.property.getName() + "\n"; edge = edge.next; }
+		for(int i = 0; i < numberOfInputs; i++)
+			s = s + "\t" + inputs[i].getElementOwner().getType().getName() + "'s " + inputs[i].getName() + "\n";
  		return s;
     	
     }
@@ -1341,43 +1541,3 @@ public class Property<ValueType extends Element> implements Element<Property> {
 	protected void debug(String s) { System.err.println("" + owner + "'s " + getName() + ": " + s); }
 	
 }
-
-// An edge holds a property and points to the next in the list and
-// supports insertion to the front and removal from anywhere.
-final class IncomingEdge {
-	
-	public Property property;			// The property that this property depends on.
-	public IncomingEdge next;			// The next incoming edge in the list.
-	public OutgoingEdge outgoingEdge;	// The corresponding outgoing edge equivalent to this edge.
-	
-	public IncomingEdge(Property newProperty, IncomingEdge newNext, OutgoingEdge newOutgoingEdge) { 
-		
-		property = newProperty;
-		next = newNext;
-		outgoingEdge = newOutgoingEdge;
-	
-	}
-			
-}
-
-// An outgoing edge is annotated with a pending flag, which indicates that its value 
-// has yet to propogate, and a number of uses counter, for comparison with the dependents' 
-// number of evaluations.
-final class OutgoingEdge {
-	
-	public WeakReference<Property> property;	// The property that depends on this property.
-	public OutgoingEdge next;			// The next outgoing edge in this list.
-	public int numberOfUses;			// The number of times this outgoing edge has been used.
-	public boolean pending;			// Whether or not this property's value is pending.
-	
-	public OutgoingEdge(Property newDependentProperty, OutgoingEdge newNext) { 
-		
-		// Set the property and make the number of uses match the number of evaluations.
-		property = new WeakReference<Property>(newDependentProperty);
-		next = newNext;
-		numberOfUses = newDependentProperty.getNumberOfEvaluations(); 
-		pending = true;
-		
-	}
-	
-}
\ No newline at end of file
@@ -30,6 +30,24 @@ public class Real extends BootElement<Real> implements Comparable<Real> {
 	public final double value;
 	
 	public Real(double newValue) { value = newValue; }
+
+	// Canonical instances of the whole numbers we compute most (positions, sizes and offsets), 
+	// shared by everything, and so without owners or users. Use new Real() for a number that 
+	// something will own.
+	private static final int SMALLEST_CACHED = -128, LARGEST_CACHED = 1023;
+	private static final Real[] cache = new Real[LARGEST_CACHED - SMALLEST_CACHED + 1];
+	static { for(int i = 0; i < cache.length; i++) cache[i] = shared(new Real(i + SMALLEST_CACHED)); }
+
+	public static final Real ZERO = valueOf(0.0);
+
+	public static Real valueOf(double value) {
+
+		int whole = (int)value;
+		if(whole == value && whole >= SMALLEST_CACHED && whole <= LARGEST_CACHED && (whole != 0 || 1 / value > 0))
+			return cache[whole - SMALLEST_CACHED];
+		else return new Real(value);
+
+	}
 	
 	public Real evaluate(Element<?> env) { return this; }
 	public Namespace<?> getType() { return Boot.REAL; }
@@ -37,31 +55,32 @@ public class Real extends BootElement<Real> implements Comparable<Real> {
 	public String toString() { return "" + value; }
 	public Text toCitrus() { return new Text("" + value); }
 	public Text toCitrusReference() { return toCitrus(); }
+	public Text toXML() { return toCitrus(); }
 
-	public Real plus(Real operand) { return new Real(value + operand.value); }
-	public Real minus(Real operand) { return new Real(value - operand.value); }
-	public Real times(Real operand) { return new Real(value * operand.value); }
-	public Real divide(Real operand) { return new Real(value / operand.value); }
+	public Real plus(Real operand) { return valueOf(value + operand.value); }
+	public Real minus(Real operand) { return valueOf(value - operand.value); }
+	public Real times(Real operand) { return valueOf(value * operand.value); }
+	public Real divide(Real operand) { return valueOf(value / operand.value); }
 
-	public Bool greaterThan(Real operand) { return new Bool(value > operand.value); }
-	public Bool greaterThanOrEqualTo(Real operand) { return new Bool(value >= operand.value); }
-	public Bool lessThan(Real operand) { return new Bool(value < operand.value); }
+	public Bool greaterThan(Real operand) { return Bool.valueOf(value > operand.value); }
+	public Bool greaterThanOrEqualTo(Real operand) { return Bool.valueOf(value >= operand.value); }
+	public Bool lessThan(Real operand) { return Bool.valueOf(value < operand.value); }
 
-	public Real inc() { return new Real(value + 1.0); }
-	public Real dec() { return new Real(value - 1.0); }
+	public Real inc() { return valueOf(value + 1.0); }
+	public Real dec() { return valueOf(value - 1.0); }
 	
 	public Real min(Real r) { return value < r.value ? this : r; }
 	public Real max(Real r) { return value > r.value ? this : r; }
-	public Real abs() { return value < 0 ? this : new Real(-value); }
+	public Real abs() { return value < 0 ? this : valueOf(-value); }
 	
 	public Real getTransitionalValue(Transition t, Real start, Real end, long time) {
 
-		return new Real(t.value(time, start.value, end.value));
+		return valueOf(t.value(time, start.value, end.value));
 		
 	}
 	
 	public int compareTo(Real i) { return value < i.value ? -1 : value > i.value ? 1 : 0; }
 
-	public Bool isEquivalentTo(Element<?> o) { return new Bool(o instanceof Real && ((Real)o).value == value); }
+	public Bool isEquivalentTo(Element<?> o) { return Bool.valueOf(o instanceof Real && ((Real)o).value == value); }
 
 }
\ No newline at end of file
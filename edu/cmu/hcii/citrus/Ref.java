@@ -23,6 +23,7 @@
  */
 package edu.cmu.hcii.citrus;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 public class Ref extends Expression<Element> {
@@ -57,9 +58,23 @@ public class Ref extends Expression<Element> {
 		// If we haven't determined the reference type yet, do it now.
 		if(typeOfReference == ReferenceType.UNKNOWN)
 			typeOfReference = referenceTypeOf(nameOfElementToFind);
-		
-		Element result = resolve(this, env, nameOfElementToFindText, typeOfReference);
-		if(result != null) return result;
+
+		// Have we resolved this name in an instance of this namespace before?
+		Element result = null;
+		if(typeOfReference != ReferenceType.KEYWORD) {
+			result = lookInCache(env, nameOfElementToFindText);
+			if(result != null) {
+				hits.incrementAndGet();
+				return result;
+			}
+			misses.incrementAndGet();
+		}
+
+		result = resolve(this, env, nameOfElementToFindText, typeOfReference);
+		if(result != null) {
+			if(typeOfReference != ReferenceType.KEYWORD) remember(env, nameOfElementToFindText, result);
+			return result;
+		}
 		// Dump an error
 		else { 
 
@@ -76,6 +91,142 @@ public class Ref extends Expression<Element> {
 		
 	}
 	
+	/////////////////////////////////////////////////////////////////////////
+	// Inline cache
+	/////////////////////////////////////////////////////////////////////////
+
+	// Most references are evaluated in instances of the same one or two namespaces over
+	// and over, and resolve to the same thing each time. Each reference remembers what it
+	// resolved to for the last few namespaces it was evaluated in, so that it can skip the
+	// search through the instance, its contexts and its type's functions and types.
+	//
+	// An entry only describes what the namespace determines: a property the namespace
+	// declares, a function its type found when the instance had no property by that name,
+	// or a type its type found. Everything is forgotten when any type's definitions change.
+	public static final int MAXIMUM_CACHE_ENTRIES = 4;
+
+	private static final int PROPERTY = 0;
+	private static final int FUNCTION = 1;
+	private static final int TYPE = 2;
+
+	private static final class CacheEntry {
+
+		final Namespace<?> namespace;
+		final String name;
+		final int version;
+		final int kind;
+		final Object target;
+
+		CacheEntry(Namespace<?> namespace, String name, int version, int kind, Object target) {
+			this.namespace = namespace;
+			this.name = name;
+			this.version = version;
+			this.kind = kind;
+			this.target = target;
+		}
+
+	}
+
+	// Replaced, never modified, so that threads evaluating this reference concurrently
+	// always see complete entries. Null until the first resolution.
+	private CacheEntry[] cache = null;
+
+	// Set once more namespaces have been seen than the cache can hold; after that,
+	// we stop trying to remember.
+	private boolean megamorphic = false;
+
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
+	private static final AtomicLong megamorphicReferences = new AtomicLong();
+
+	public static long getCacheHits() { return hits.get(); }
+	public static long getCacheMisses() { return misses.get(); }
+	public static long getMegamorphicReferences() { return megamorphicReferences.get(); }
+	public static void resetCacheCounts() { hits.set(0); misses.set(0); megamorphicReferences.set(0); }
+	public static String getCacheReport() {
+
+		long h = hits.get(), m = misses.get();
+		return "Ref cache: " + h + " hits, " + m + " misses (" + (h + m == 0 ? 0 : (100 * h / (h + m))) + "% hit), " + 
+			megamorphicReferences.get() + " megamorphic references";
+
+	}
+
+	private Element lookInCache(Element<?> env, Text name) {
+
+		CacheEntry[] entries = cache;
+		if(entries == null) return null;
+
+		Namespace<?> namespace = env.getType();
+		int version = BaseType.getDefinitionVersion();
+		for(CacheEntry entry : entries) {
+			if(entry.namespace != namespace) continue;
+			if(entry.version != version || !entry.name.equals(name.value)) return null;
+			switch(entry.kind) {
+			case PROPERTY :
+				Property<?> p = ((BaseElement<?>)env).getPropertyByDeclaration((DecInterface<?>)entry.target);
+				if(p == null) return null;
+				return p.valueIsNothing() ? p.getNothing() : p.get();
+			case FUNCTION :
+				// Properties of enclosing instances still hide functions, and those can vary
+				// between instances of the same namespace, so we make sure there isn't one.
+				if(env.getProperty(name) != null) return null;
+				return (Element)entry.target;
+			case TYPE :
+				return (Element)entry.target;
+			}
+		}
+		return null;
+
+	}
+
+	private void remember(Element<?> env, Text name, Element result) {
+
+		if(megamorphic) return;
+
+		Namespace<?> namespace = env.getType();
+		// A do block adds properties to its environment that its namespace doesn't declare.
+		if(namespace == null || namespace instanceof Do) return;
+
+		int version = BaseType.getDefinitionVersion();
+		CacheEntry entry = null;
+		if(typeOfReference == ReferenceType.PROPERTY_OR_FUNCTION) {
+
+			DecInterface<?> declaration = env instanceof BaseElement ? namespace.getDeclarationOf(name) : null;
+			if(declaration != null) entry = new CacheEntry(namespace, name.value, version, PROPERTY, declaration);
+			else if(result instanceof Function && !(env instanceof Context) && env.getProperty(name) == null)
+				entry = new CacheEntry(namespace, name.value, version, FUNCTION, result);
+
+		}
+		else if(typeOfReference == ReferenceType.TYPE_OR_LANGUAGE) {
+
+			if(result instanceof Type && !(env instanceof Context) && namespace.getTypeNamed(name.value) == result)
+				entry = new CacheEntry(namespace, name.value, version, TYPE, result);
+
+		}
+		if(entry == null) return;
+
+		// Replace an entry for the same namespace or a stale one, otherwise add one if there's room.
+		CacheEntry[] entries = cache;
+		int size = entries == null ? 0 : entries.length;
+		for(int i = 0; i < size; i++)
+			if(entries[i].namespace == namespace || entries[i].version != version || !entries[i].name.equals(name.value)) {
+				CacheEntry[] newEntries = entries.clone();
+				newEntries[i] = entry;
+				cache = newEntries;
+				return;
+			}
+		if(size == MAXIMUM_CACHE_ENTRIES) {
+			megamorphic = true;
+			megamorphicReferences.incrementAndGet();
+			return;
+		}
+		CacheEntry[] newEntries = new CacheEntry[size + 1];
+		if(entries != null) System.arraycopy(entries, 0, newEntries, 0, size);
+		newEntries[size] = entry;
+		cache = newEntries;
+
+	}
+
 	public static ReferenceType referenceTypeOf(String ref) {
 		
 		// Is it a keyword?
@@ -243,7 +394,7 @@ public class Ref extends Expression<Element> {
 	}
 
 	public static class IsInEnv extends PropertyRestriction<Text> {
-		public static final Dec<Bool> allowInvalid = new Dec<Bool>(new Bool(true));
+		public static final Dec<Bool> allowInvalid = new Dec<Bool>(Bool.valueOf(true));
 		public boolean isValid(Property<Text> property, Text value) {
 	
 			Element<?> owner = property.getElementOwner();
@@ -23,6 +23,9 @@
  */
 package edu.cmu.hcii.citrus;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 
 import java.util.Hashtable;
@@ -111,7 +114,7 @@ public class Reflection {
 		//////////////////////////////////////////////////////
 		// abstract -> !concrete
 		//////////////////////////////////////////////////////
-		typeToDefine.set(BaseType.concrete, new Bool(!java.lang.reflect.Modifier.isAbstract(classToReflectUpon.getModifiers())));
+		typeToDefine.set(BaseType.concrete, Bool.valueOf(!java.lang.reflect.Modifier.isAbstract(classToReflectUpon.getModifiers())));
 
 		//////////////////////////////////////////////////////
 		// Class's superclass -> Type's supertype
@@ -412,4 +415,134 @@ public class Reflection {
 	
 	}
 
-}
\ No newline at end of file
+	//////////////////////////////////////////////////////
+	// Method handles
+	//////////////////////////////////////////////////////
+
+	// Invoking a method or constructor reflectively boxes its arguments in an array and checks
+	// access on every call. A method handle made once, when the method or constructor is found,
+	// skips both. The handles live in fields of each function and type, which HotSpot doesn't
+	// treat as constants, so calls through them aren't inlined the way a static final handle's
+	// would be; the savings are only the array and the checks. Each handle is adapted to take
+	// and return Objects, so that callers can invoke it exactly without knowing its signature.
+	// If we can't make a handle, for example because the class isn't accessible from here,
+	// these return null, and callers fall back on reflection.
+	private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+	// A handle adapted to take Objects, and the types it casts them to, the receiver's first
+	// if it has one, so that invoke() can check arguments the way reflection would.
+	static final class Handle {
+
+		private final MethodHandle handle;
+		private final Class<?>[] parameters;
+		private final boolean[] primitive;
+		private final boolean hasReceiver;
+
+		private Handle(MethodHandle handle, Class<?>[] parameters, boolean hasReceiver) {
+
+			this.handle = handle.asType(MethodType.genericMethodType(handle.type().parameterCount()));
+			this.parameters = new Class<?>[parameters.length];
+			this.primitive = new boolean[parameters.length];
+			for(int i = 0; i < parameters.length; i++) {
+				this.parameters[i] = MethodType.methodType(parameters[i]).wrap().returnType();
+				this.primitive[i] = parameters[i].isPrimitive();
+			}
+			this.hasReceiver = hasReceiver;
+
+		}
+
+		private void checkCount(int count) {
+
+			if(count != parameters.length) 
+				throw new IllegalArgumentException("wrong number of arguments: expected " + parameters.length + " but got " + count);
+
+		}
+
+		// Throws what reflection would if the given argument can't be passed as the given
+		// parameter: NullPointerException for a missing receiver, IllegalArgumentException
+		// for anything else of the wrong type.
+		private void check(int index, Object argument) {
+
+			if(argument == null) {
+				if(index == 0 && hasReceiver) throw new NullPointerException("null receiver");
+				if(primitive[index]) throw new IllegalArgumentException("argument type mismatch: null for " + parameters[index].getName());
+			}
+			else if(!parameters[index].isInstance(argument))
+				throw new IllegalArgumentException("argument type mismatch: expected " + parameters[index].getName() + 
+					" but got " + argument.getClass().getName());
+
+		}
+
+	}
+
+	static Handle handleFor(Method method) {
+
+		boolean isStatic = Modifier.isStatic(method.getModifiers());
+		Class<?>[] types = method.getParameterTypes();
+		if(!isStatic) {
+			Class<?>[] withReceiver = new Class<?>[types.length + 1];
+			withReceiver[0] = method.getDeclaringClass();
+			System.arraycopy(types, 0, withReceiver, 1, types.length);
+			types = withReceiver;
+		}
+		try { return new Handle(lookup.unreflect(method), types, !isStatic); }
+		catch(IllegalAccessException e) { return null; }
+
+	}
+
+	static Handle handleFor(Constructor<?> constructor) {
+
+		if(constructor == null) return null;
+		try { return new Handle(lookup.unreflectConstructor(constructor), constructor.getParameterTypes(), false); }
+		catch(IllegalAccessException e) { return null; }
+
+	}
+
+	// Invoke a handle made above, wrapping anything it throws the way reflection would, so 
+	// that callers can handle failures the same way whichever they used. We check the 
+	// arguments first, so whatever the handle throws after that is the method's own.
+	static Object invoke(Handle handle) throws InvocationTargetException {
+
+		handle.checkCount(0);
+		try { return handle.handle.invokeExact(); }
+		catch(Throwable t) { throw new InvocationTargetException(t); }
+
+	}
+
+	static Object invoke(Handle handle, Object first) throws InvocationTargetException {
+
+		handle.checkCount(1);
+		handle.check(0, first);
+		try { return handle.handle.invokeExact(first); }
+		catch(Throwable t) { throw new InvocationTargetException(t); }
+
+	}
+
+	static Object invoke(Handle handle, Object first, Object second) throws InvocationTargetException {
+
+		handle.checkCount(2);
+		handle.check(0, first); handle.check(1, second);
+		try { return handle.handle.invokeExact(first, second); }
+		catch(Throwable t) { throw new InvocationTargetException(t); }
+
+	}
+
+	static Object invoke(Handle handle, Object first, Object second, Object third) throws InvocationTargetException {
+
+		handle.checkCount(3);
+		handle.check(0, first); handle.check(1, second); handle.check(2, third);
+		try { return handle.handle.invokeExact(first, second, third); }
+		catch(Throwable t) { throw new InvocationTargetException(t); }
+
+	}
+
+	static Object invoke(Handle handle, Object first, Object second, Object third, Object fourth) throws InvocationTargetException {
+
+		handle.checkCount(4);
+		handle.check(0, first); handle.check(1, second); handle.check(2, third); handle.check(3, fourth);
+		try { return handle.handle.invokeExact(first, second, third, fourth); }
+		catch(Throwable t) { throw new InvocationTargetException(t); }
+
+	}
+
+}
@@ -43,7 +43,7 @@ public class Set<ItemType extends Element> extends Group<Set<ItemType>,ItemType>
 	public Bool add(ItemType item) { 
 		
 		if(contains(item).value) return Bool.FALSE;
-		Bool result = new Bool(items.add(generateProperty(item))); 
+		Bool result = Bool.valueOf(items.add(generateProperty(item))); 
 		touchUsers(null);
 		return result;
 	
@@ -51,14 +51,14 @@ public class Set<ItemType extends Element> extends Group<Set<ItemType>,ItemType>
 	public Bool addItems(Group<?, ItemType> newItems) { 
 
 		for(ItemType i : newItems) add(i);
-		return new Bool(true);
+		return Bool.valueOf(true);
 	
 	}
 	
 	public Bool removeItems(Set<ItemType> newItems) {
 		
 		for(ItemType i : newItems) remove(i);
-		return new Bool(true);
+		return Bool.valueOf(true);
 		
 	}
 	
@@ -72,7 +72,7 @@ public class Set<ItemType extends Element> extends Group<Set<ItemType>,ItemType>
 
 	public Bool removeOverTime(ItemType item, Transition t) { 
 
-		Bool result = new Bool(false);
+		Bool result = Bool.valueOf(false);
 		Iterator<Property<ItemType>> iterator = items.iterator();
 		while(iterator.hasNext()) {
 
@@ -80,7 +80,7 @@ public class Set<ItemType extends Element> extends Group<Set<ItemType>,ItemType>
 			if(p.peek() == item) {
 				iterator.remove();
 				p.set(null);
-				result = new Bool(true);
+				result = Bool.valueOf(true);
 				break;
 			}
 
@@ -90,7 +90,7 @@ public class Set<ItemType extends Element> extends Group<Set<ItemType>,ItemType>
 		
 	}
 
-	public Bool isEmpty() { return new Bool(items.isEmpty()); }
+	public Bool isEmpty() { return Bool.valueOf(items.isEmpty()); }
 	
 	public Element duplicate() { 
 	
@@ -111,17 +111,11 @@ public class Set<ItemType extends Element> extends Group<Set<ItemType>,ItemType>
 
 	}
 	
-	public Int size() { return new Int(items.size()); }
+	public Int size() { return Int.valueOf(items.size()); }
 	
 	public String toString() { return toCitrus().value; }
 
-	public Text toXML() {
-
-		String s = "";
-		for(ItemType item : this) s = s + item.toXML() + "\n";
-		return new Text(s);
-		
-	}
+	public Text toXML() { return XMLWriter.toXML(this); }
 
 	public Set<ItemType> evaluate(Element<?> env) { return this; }
 
@@ -146,6 +140,6 @@ public class Set<ItemType extends Element> extends Group<Set<ItemType>,ItemType>
 		
 	}
 	
-	public Bool isEquivalentTo(Element<?> o) { return new Bool(this.equals(o)); }
+	public Bool isEquivalentTo(Element<?> o) { return Bool.valueOf(this.equals(o)); }
 
 }
@@ -37,7 +37,7 @@ public class Text extends BootElement<Text> {
 	public String toString() { return value; }
 	public Text duplicate() { return new Text(value); }	
 	
-	public Bool isEquivalentTo(Element<?> e) { return new Bool((e.getType() == getType()) && ((Text)e).value.equals(value)); }
+	public Bool isEquivalentTo(Element<?> e) { return Bool.valueOf((e.getType() == getType()) && ((Text)e).value.equals(value)); }
 
 	// We use the string's equals and hashcode
 	public boolean equals(Object e) { return (e instanceof Text) && ((Text)e).value.equals(value); }
@@ -60,10 +60,10 @@ public class Text extends BootElement<Text> {
 	public Namespace<?> getType() { return Boot.TEXT; }
 
 	// Text-specific functions
-	public Int length() { return new Int(value.length()); }	
+	public Int length() { return Int.valueOf(value.length()); }	
 	public char charAt(int index) { return value.charAt(index); }
-	public Char charAt(Int index) { return new Char(value.charAt(index.value)); }
-	public Bool isEmpty() { return new Bool(value.equals("")); }
+	public Char charAt(Int index) { return Char.valueOf(value.charAt(index.value)); }
+	public Bool isEmpty() { return Bool.valueOf(value.equals("")); }
 
 	// Caches compiled patterns for SPEEDY matching.
 	public static Hashtable<String,Matcher> patterns = new Hashtable<String,Matcher>();
@@ -76,11 +76,11 @@ public class Text extends BootElement<Text> {
 		}
 		
 		pattern.reset(value);
-		return pattern.matches() ? new Bool(true) : new Bool(false);		
+		return pattern.matches() ? Bool.valueOf(true) : Bool.valueOf(false);		
 	
 	}
 
-	public Bool contains(Char c) { return new Bool(value.indexOf(c.value) >= 0); }
+	public Bool contains(Char c) { return Bool.valueOf(value.indexOf(c.value) >= 0); }
 	public Text trim() { return new Text(value.trim()); }
 	
 	public List<Char> toCharList() {
@@ -93,8 +93,8 @@ public class Text extends BootElement<Text> {
 		
 	}
 	
-	public Bool startsWith(Text prefix) { return new Bool(value.startsWith(prefix.value)); }
-	public Bool endsWith(Text postfix) { return new Bool(value.endsWith(postfix.value)); }
+	public Bool startsWith(Text prefix) { return Bool.valueOf(value.startsWith(prefix.value)); }
+	public Bool endsWith(Text postfix) { return Bool.valueOf(value.endsWith(postfix.value)); }
 	
 	public Text print() { System.err.println(value); return this; }
 	
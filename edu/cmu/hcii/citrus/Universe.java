@@ -25,6 +25,10 @@ package edu.cmu.hcii.citrus;
 
 import java.io.*;
 import java.util.Hashtable;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static edu.cmu.hcii.citrus.Boot.*;
 
@@ -151,12 +155,22 @@ public class Universe extends BaseElement<Universe> {
 			Language newLanguage = new Language(languageName);
 			languages.put(newLanguage.getName(), newLanguage);
 			
-			for(File file : languageFolder.listFiles()) {
+			// Reading and tokenizing the units is independent, so we do it on the fork join 
+			// pool, but we parse them in order, since parsing may load other languages.
+			Vector<File> files = new Vector<File>();
+			Vector<ForkJoinTask<CitrusParser.TokenList>> tokenizations = new Vector<ForkJoinTask<CitrusParser.TokenList>>();
+			for(final File file : languageFolder.listFiles()) {
 				if(file.getName().endsWith(".citrus")) {
-					Unit unit = CitrusParser.unit(file);
-					newLanguage.include(unit);
+					files.add(file);
+					tokenizations.add(ForkJoinPool.commonPool().submit(new Callable<CitrusParser.TokenList>() {
+						public CitrusParser.TokenList call() { return CitrusParser.tokenize(file); }
+					}));
 				}
 			}
+			for(int i = 0; i < files.size(); i++) {
+				Unit unit = CitrusParser.unit(files.get(i), tokenizations.get(i).join());
+				newLanguage.include(unit);
+			}
 			newLanguage.extractTypesFromUnits();
 			return newLanguage;
 			
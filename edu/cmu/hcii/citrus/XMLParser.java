@@ -24,12 +24,27 @@
 package edu.cmu.hcii.citrus;
 
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.HashMap;
 import java.util.Vector;
+import java.util.zip.GZIPInputStream;
 
 public class XMLParser {
 	
-	public static Text readTextFrom(Text path) { return new Text(new String(readCharactersFrom(path))); }
+	public static Text readTextFrom(Text path) { 
+		
+		char[] characters = readCharactersFrom(path);
+		return new Text(new String(characters, 0, characters.length - 1)); 
+		
+	}
 
 	public static char[] readCharactersFrom(Text path) {
 
@@ -37,154 +52,273 @@ public class XMLParser {
 		
 	}
 	
+	// Reads the file's characters in the platform's default encoding, followed by a single zero,
+	// which CitrusParser.tokenize() stops at and may look ahead to.
 	public static char[] readCharactersFrom(File file) {
 		
-		char[] characters = new char[(int)file.length() * 4];
+		byte[] bytes;
 		try {
-			FileReader reader = new FileReader(file);
-			int numberOfCharacters = reader.read(characters, 0, characters.length);
-			reader.close();
-		} catch(java.io.FileNotFoundException ex) {
+			bytes = Files.readAllBytes(file.toPath());
+		} catch(java.nio.file.NoSuchFileException ex) {
 			System.err.println("Couldn't find file " + file + ": " + ex);
 			return null;
 		} catch(java.io.IOException ex) {
 			System.err.println("IO Exception: " + ex);
 			return null;
 		}
+		CharBuffer decoded = Charset.defaultCharset().decode(ByteBuffer.wrap(bytes));
+		char[] characters = new char[decoded.remaining() + 1];
+		decoded.get(characters, 0, decoded.remaining());
 		return characters;
 		
 	}
 
+	// Saved documents are a <File> header naming the languages used, followed by one element. 
+	// Each element is a tag naming its type, containing a tag for each property, containing the 
+	// property's value. Everything between angle brackets, and everything between them that 
+	// isn't whitespace, is a token.
+	//
+	// We pull tokens from the file as we need them, rather than reading it all first, so that
+	// large documents load in time and memory proportional to their size. Paths ending in .gz
+	// are decompressed as they're read, as AbstractElement.writeXMLTo() compresses them.
 	public static Element readXMLFrom(Text path) {
 		
-		// Read the file
-		Text text = readTextFrom(path);
-		String[] tokenArray = text.value.split("[<>]");
-		Vector<String> tokens = new Vector<String>();
-		for(String tok : tokenArray) {
-			tok = tok.trim();
-			if(!tok.equals("")) tokens.add(tok);
+		Tokens tokens;
+		try { 
+			InputStream stream = new FileInputStream(path.value);
+			if(path.value.endsWith(".gz")) stream = new GZIPInputStream(stream, 1 << 16);
+			tokens = new Tokens(new InputStreamReader(stream, Charset.defaultCharset())); 
 		}
-		
-		Vector<Language> languagesUsed = new Vector<Language>();
-		readToken("File", tokens, "Expected <File> at beginning of file");
-		while(tokens.firstElement().equals("uses")) {
-			readToken("uses", tokens, "Expected <uses>");
-			String languageName = tokens.remove(0);
-			Language language = Universe.getLanguage(languageName);
-			if(language == null) {
-				throw new ElementError("Couldn't find language named " + languageName, null);
+		catch(java.io.FileNotFoundException ex) { throw new ElementError("Couldn't find file " + path + ": " + ex, null); }
+		catch(IOException ex) { throw new ElementError("Couldn't read " + path + ": " + ex, null); }
+
+		try {
+			Vector<Language> languagesUsed = new Vector<Language>();
+			tokens.read("File", "Expected <File> at beginning of file");
+			while(tokens.peek().equals("uses")) {
+				tokens.read("uses", "Expected <uses>");
+				String languageName = tokens.next();
+				Language language = Universe.getLanguage(languageName);
+				if(language == null) {
+					throw new ElementError("Couldn't find language named " + languageName, null);
+				}
+				languagesUsed.add(language);
+				tokens.read("/uses", "Expected </uses>");
 			}
-			languagesUsed.add(language);
-			readToken("/uses", tokens, "Expected </uses>");
+			tokens.read("/File", "Expected </File> after uses declarations");
+			
+			return new Document(tokens, languagesUsed).readElement();
 		}
-		readToken("/File", tokens, "Expected </File> after uses declarations");
-		
-		return readElement(tokens, languagesUsed);
+		finally { tokens.close(); }
 		
 	}
 
-	private static String readToken(String expectedString, Vector<String> tokens, String error) {
+	// Pulls tokens from a reader one at a time, with one token of lookahead.
+	private static final class Tokens {
+
+		private final Reader reader;
+		private final char[] buffer = new char[8192];
+		private int position = 0, limit = 0;
+		private final StringBuilder token = new StringBuilder();
+
+		// The next token, or null if we haven't read it yet.
+		private String next = null;
+
+		Tokens(Reader reader) { this.reader = reader; }
+
+		String peek() {
+
+			if(next == null) next = readToken();
+			if(next == null) throw new ElementError("Unexpected end of file", null);
+			return next;
 
-		if(tokens.firstElement().equals(expectedString)) return tokens.remove(0);
-		else throw new ElementError("" + error, null);
-		
-	}
-	
-	private static Element<?> readElement(Vector<String> tokens, Vector<Language> languages) {
-		
-		// (1) Read the tag name
-		String typeName = tokens.remove(0);
-		
-		// (2) Find the type
-		Type t = null;
-		for(Language l : languages) {
-			t = l.getTypeNamed(typeName);
-			if(t != null) break;
 		}
 
-		if(t == null) { throw new ElementError("Couldn't find a type named " + typeName + " among " + languages + "\n " + tokens, null); }//; return null; }
-		
-		ArgumentList arguments = new ArgumentList();
-
-		// (4) Read properties until we read the terminating flag
-		while(!tokens.firstElement().startsWith("/")) {
-
-			// Eat the opening tag
-			String propertyName = tokens.remove(0);
-
-			// What's the type of the property?
-			DecInterface<?> declaration = t.getDeclarationOf(new Text(propertyName));
-			if(declaration == null) { System.err.println("" + t + " doesn't declare a property named " + propertyName); return null; }
-			Type propertyType = declaration.getTypeExpression().getBaseType();
-			if(propertyType == null)
-				throw new ElementError("Why wasn't " + declaration.ownerOfType(Boot.LANGUAGE) + 
-						"'s " + t + "'s declaration " + declaration + " type named " + 
-						declaration.getTypeExpression().getBaseTypeName() + " ?", null);
-			
-			Element value = null;
+		String next() {
+
+			String result = peek();
+			next = null;
+			return result;
 
-			if(tokens.firstElement().equals("nothing")) {
-				tokens.remove(0);
-				value = new Nothing();
+		}
+
+		void read(String expected, String error) {
+
+			if(peek().equals(expected)) next = null;
+			else throw new ElementError("" + error, null);
+
+		}
+
+		// Reads characters up to the next angle bracket, returning them trimmed if there are 
+		// any, or skipping them if not. Returns null at the end of the file.
+		private String readToken() {
+
+			while(true) {
+				token.setLength(0);
+				boolean end = true;
+				while(fill()) {
+					char c = buffer[position++];
+					if(c == '<' || c == '>') { end = false; break; }
+					token.append(c);
+				}
+				String trimmed = token.toString().trim();
+				if(!trimmed.equals("")) return trimmed;
+				if(end) return null;
 			}
-			else if(propertyType == Boot.LIST) {
 
-				List<Element> list = new List();
-				while(!tokens.firstElement().startsWith("/"))
-					list.append(readElement(tokens, languages));
-				value = list;
-				
+		}
+
+		// True if there's at least one character in the buffer.
+		private boolean fill() {
+
+			if(position < limit) return true;
+			try { limit = reader.read(buffer, 0, buffer.length); }
+			catch(IOException ex) { throw new ElementError("IO Exception: " + ex, null); }
+			position = 0;
+			if(limit < 0) limit = 0;
+			return limit > 0;
+
+		}
+
+		void close() {
+
+			try { reader.close(); } catch(IOException ex) {}
+
+		}
+
+	}
+
+	// The state of reading one document: its tokens, the languages it uses, and the types 
+	// and declarations its tags have named so far, so that each is only searched for once.
+	private static final class Document {
+
+		private final Tokens tokens;
+		private final Vector<Language> languages;
+		private final HashMap<String,Type> types = new HashMap<String,Type>();
+		private final HashMap<Type,HashMap<String,DecInterface<?>>> declarations = new HashMap<Type,HashMap<String,DecInterface<?>>>();
+
+		Document(Tokens tokens, Vector<Language> languages) {
+
+			this.tokens = tokens;
+			this.languages = languages;
+
+		}
+
+		private Type typeNamed(String typeName) {
+
+			Type t = types.get(typeName);
+			if(t == null) {
+				for(Language l : languages) {
+					t = l.getTypeNamed(typeName);
+					if(t != null) break;
+				}
+				if(t == null) { throw new ElementError("Couldn't find a type named " + typeName + " among " + languages + "\n " + tokens.peek(), null); }
+				types.put(typeName, t);
 			}
-			else if(propertyType == Boot.SET) {
+			return t;
 
-				Set<Element> list = new Set();
-				while(!tokens.firstElement().startsWith("/"))
-					list.add(readElement(tokens, languages));
-				value = list;
-				
+		}
+
+		private DecInterface<?> declarationOf(Type t, String propertyName) {
+
+			HashMap<String,DecInterface<?>> typesDeclarations = declarations.get(t);
+			if(typesDeclarations == null) {
+				typesDeclarations = new HashMap<String,DecInterface<?>>();
+				declarations.put(t, typesDeclarations);
 			}
-			else if(propertyType == Boot.REAL) {
-				value = new Real(Double.parseDouble(tokens.remove(0)));
+			DecInterface<?> declaration = typesDeclarations.get(propertyName);
+			if(declaration == null) {
+				declaration = t.getDeclarationOf(new Text(propertyName));
+				if(declaration != null) typesDeclarations.put(propertyName, declaration);
 			}
-			else if(propertyType == Boot.TEXT) {
-				if(tokens.firstElement().startsWith("/")) value = new Text("");
+			return declaration;
+
+		}
+
+		Element<?> readElement() {
+			
+			// (1) Read the tag name
+			String typeName = tokens.next();
+			
+			// (2) Find the type
+			Type t = typeNamed(typeName);
+			
+			ArgumentList arguments = new ArgumentList();
+	
+			// (4) Read properties until we read the terminating flag
+			while(!tokens.peek().startsWith("/")) {
+	
+				// Eat the opening tag
+				String propertyName = tokens.next();
+	
+				// What's the type of the property?
+				DecInterface<?> declaration = declarationOf(t, propertyName);
+				if(declaration == null) { System.err.println("" + t + " doesn't declare a property named " + propertyName); return null; }
+				Type propertyType = declaration.getTypeExpression().getBaseType();
+				if(propertyType == null)
+					throw new ElementError("Why wasn't " + declaration.ownerOfType(Boot.LANGUAGE) + 
+							"'s " + t + "'s declaration " + declaration + " type named " + 
+							declaration.getTypeExpression().getBaseTypeName() + " ?", null);
+				
+				Element value = null;
+	
+				if(tokens.peek().equals("nothing")) {
+					tokens.next();
+					value = new Nothing();
+				}
+				else if(propertyType == Boot.LIST) {
+	
+					List<Element> list = new List();
+					while(!tokens.peek().startsWith("/"))
+						list.append(readElement());
+					value = list;
+					
+				}
+				else if(propertyType == Boot.SET) {
+	
+					Set<Element> list = new Set();
+					while(!tokens.peek().startsWith("/"))
+						list.add(readElement());
+					value = list;
+					
+				}
+				else if(propertyType == Boot.REAL) {
+					value = new Real(Double.parseDouble(tokens.next()));
+				}
+				else if(propertyType == Boot.TEXT) {
+					if(tokens.peek().startsWith("/")) value = new Text("");
+					else {
+						String tok = tokens.next();
+						tok = tok.substring(1, tok.length() - 1);
+						tok = tok.replace("\\\"", "\"");
+						tok = tok.replace("\\n", "\n");
+						tok = tok.replace("\\t", "\t");
+						tok = tok.replace("\\b", "\b");
+						value = new Text(tok);
+					}
+				}
+				else if(propertyType == Boot.BOOL) {
+					value = Bool.valueOf(Boolean.valueOf(tokens.next()));
+				}
 				else {
-					String tok = tokens.remove(0);
-					tok = tok.substring(1, tok.length() - 1);
-					tok = tok.replace("\\\"", "\"");
-					tok = tok.replace("\\n", "\n");
-					tok = tok.replace("\\t", "\t");
-					tok = tok.replace("\\b", "\b");
-					value = new Text(tok);
+					value = readElement();
 				}
-			}
-			else if(propertyType == Boot.BOOL) {
-				value = new Bool(Boolean.valueOf(tokens.remove(0)));
-			}
-			else {
-//				if(declaration.isReferenceOnly()) { 
-//					String reference = tokens.remove(0);
-//					System.err.println("Don't know how to resolve reference to " + reference);
-//					value = null;
-//				}
-//				else 
-					value = readElement(tokens, languages);
+				
+				if(value != null) arguments.add(propertyName, false, value);
+	
+				// Remove the property closing tag
+				tokens.read("/" + propertyName, "Expected " + "</" + propertyName + ">");
+				
 			}
 			
-			if(value != null) arguments.add(propertyName, false, value);
-
-			// Remove the property closing tag
-			readToken("/" + propertyName, tokens, "Expected " + "</" + propertyName + ">");
+			// Read the closing element tag
+			tokens.read("/" + typeName, "Expected " + "</" + typeName + ">");
+			
+			// Instantiate the element with the arguments.
+			return t.instantiate(arguments);
 			
 		}
-		
-		// Read the closing element tag
-		readToken("/" + typeName, tokens, "Expected " + "</" + typeName + ">");
-		
-		// Instantiate the element with the arguments.
-		return t.instantiate(arguments);
-		
+
 	}
 
-}
\ No newline at end of file
+}
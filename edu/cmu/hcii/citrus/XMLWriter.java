@@ -0,0 +1,177 @@
+/*
+ * 
+ * Citrus - A object-oriented, interpreted language that is designed to simplify 
+ * the creation of dynamic, immediate feedback graphical desktop applications.
+ * 
+ * Copyright (c) 2005 Andrew Jensen Ko
+ * All rights reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package edu.cmu.hcii.citrus;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+// Writes elements in the format XMLParser reads, walking the element tree once and writing
+// straight to a Writer, rather than concatenating each element's text into its owner's.
+// The toXML() methods of elements, lists, sets, arrays and properties just use this. The
+// markup is what toXML() has always produced, with two differences: properties are written
+// in the order of the element's property table, rather than the arbitrary order of a hash set,
+// and Reals owned by an element are written as their literal, rather than as an empty tag
+// the parser couldn't read. XMLParser doesn't care about property order, so documents saved
+// before and after read back the same.
+//
+// Elements whose classes write themselves some other way, such as Text, Int and Bool, are 
+// written with their own toXML().
+public final class XMLWriter {
+
+	// How a class writes itself, based on which class declares the toXML() it uses.
+	private static enum Kind { ELEMENT, LIST, SET, ARRAY, OTHER }
+
+	private static final ClassValue<Kind> kinds = new ClassValue<Kind>() {
+		protected Kind computeValue(Class<?> type) {
+
+			Class<?> declarer;
+			try { declarer = type.getMethod("toXML").getDeclaringClass(); }
+			catch(NoSuchMethodException e) { return Kind.OTHER; }
+			if(declarer == AbstractElement.class) return Kind.ELEMENT;
+			else if(declarer == List.class) return Kind.LIST;
+			else if(declarer == Set.class) return Kind.SET;
+			else if(declarer == Array.class) return Kind.ARRAY;
+			else return Kind.OTHER;
+
+		}
+	};
+
+	private final Writer out;
+
+	public XMLWriter(Writer out) { this.out = out; }
+
+	// Writes characters in the platform's default encoding, which is what XMLParser reads.
+	public XMLWriter(OutputStream out) { this(new BufferedWriter(new OutputStreamWriter(out, Charset.defaultCharset()))); }
+
+	public void flush() throws IOException { out.flush(); }
+	public void close() throws IOException { out.close(); }
+
+	// The text that writing the given element or property would produce.
+	static Text toXML(Object elementOrProperty) {
+
+		StringWriter string = new StringWriter();
+		XMLWriter writer = new XMLWriter(string);
+		try {
+			if(elementOrProperty instanceof Property) writer.write((Property<?>)elementOrProperty);
+			else writer.write((Element<?>)elementOrProperty);
+		}
+		catch(IOException e) { throw new ElementError("Couldn't write XML: " + e, null); }
+		return new Text(string.toString());
+
+	}
+
+	// Writes the <File> header naming the languages the element that follows uses.
+	public void writeHeader(Iterable<Text> languagesUsed) throws IOException {
+
+		out.write("<File>\n");
+		for(Text language : languagesUsed)
+			out.write("<uses>" + language + "</uses>\n");
+		out.write("</File>\n");
+
+	}
+
+	public void write(Element<?> element) throws IOException {
+
+		switch(kinds.get(element.getClass())) {
+			case ELEMENT: {
+
+				Text typeReference = element.getType().toCitrusReference();
+				out.write("<" + typeReference + ">\n");
+				// Write all of the properties, ignoring those that haven't been requested yet.
+				Iterable<Property<?>> properties = element instanceof BaseElement ? 
+					((BaseElement<?>)element).getPropertiesInPlace() : element.getProperties();
+				for(Property<?> p : properties) {
+					if(p.getDeclaration() != BaseElement.environment &&
+					   p.getValueFunction() == null && !p.getDeclaration().isReferenceOnly()) {
+						write(p);
+						out.write("\n");
+					}
+				}
+				out.write("</" + typeReference + ">");
+				break;
+
+			}
+			case LIST: 
+				for(Element<?> item : (List<?>)element) { write(item); out.write("\n"); }
+				break;
+			case SET: 
+				for(Element<?> item : (Set<?>)element) { write(item); out.write("\n"); }
+				break;
+			case ARRAY: 
+				for(Property<?> item : ((Array<?>)element).items) { write(item.get()); out.write("\n"); }
+				break;
+			default: 
+				out.write(element.toXML().value);
+				break;
+		}
+
+	}
+
+	// A property's value goes between tags named for the property, on lines of its own if
+	// it spans more than one line.
+	public void write(Property<?> property) throws IOException {
+
+		out.write("<" + property.getName() + ">");
+
+		Element<?> value = property.getRawValue();
+		Kind kind = property.isReference() ? Kind.OTHER : kinds.get(value.getClass());
+		switch(kind) {
+			// An element's tags are on lines of their own, and it doesn't end with a newline.
+			case ELEMENT:
+				out.write("\n");
+				write(value);
+				out.write("\n");
+				break;
+			// A collection's items each end with a newline.
+			case LIST: case SET: case ARRAY:
+				if(!isEmpty(value)) out.write("\n");
+				write(value);
+				break;
+			default: {
+				Text valueText = property.isReference() ? value.toCitrusReference() : value.toXML();
+				boolean containsNewline = valueText.value.indexOf('\n') >= 0;
+				if(containsNewline) out.write("\n");
+				out.write(valueText.value);
+				if(!valueText.value.endsWith("\n") && containsNewline) out.write("\n");
+				break;
+			}
+		}
+
+		out.write("</" + property.getName() + ">");
+
+	}
+
+	private static boolean isEmpty(Element<?> collection) {
+
+		if(collection instanceof Array) return ((Array<?>)collection).items.length == 0;
+		else return ((Group<?,?>)collection).isEmpty().value;
+
+	}
+
+}
@@ -92,7 +92,7 @@ public class BehaviorEditor extends View {
 		public static final Dec<Real> hPad = new Dec<Real>(new Real(5));
 		public static final Dec<Real> vPad = new Dec<Real>(new Real(5));
 
-		public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+		public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 
 		public static final Dec<List<View>> children = new Dec<List<View>>(
 			"[" +
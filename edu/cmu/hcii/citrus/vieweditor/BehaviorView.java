@@ -15,8 +15,8 @@ public class BehaviorView extends ElementView {
 
 	public static final Dec<Behavior> model = new Dec<Behavior>();
 
-	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> collapse = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> collapse = new Dec<Bool>(Bool.valueOf(false));
 
 	public static final Dec<Real> hPad = new Dec<Real>(new Real(5));
 	public static final Dec<Real> vPad = new Dec<Real>(new Real(2));
@@ -16,7 +16,7 @@ public class ChildrenEditor extends View {
 
 	public static final Dec<Namespace> type = new Dec<Namespace>();
 	
-	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 
 	public static final Dec<Layout> layout = new Dec<Layout>(new VerticalLayout(-1, 0, 0));
 	
@@ -73,7 +73,7 @@ public class ChildrenEditor extends View {
 
 		public static final Dec<Namespace> type = new Dec<Namespace>((Element)null, true);
 		
-		public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+		public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 
 		public static final Dec<Real> hPad = new Dec<Real>(new Real(5));
 		public static final Dec<Real> vPad = new Dec<Real>(new Real(5));
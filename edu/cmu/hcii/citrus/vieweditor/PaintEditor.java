@@ -98,7 +98,7 @@ public class PaintEditor extends View {
 		public static final Dec<Real> hPad = new Dec<Real>(new Real(5));
 		public static final Dec<Real> vPad = new Dec<Real>(new Real(5));
 
-		public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+		public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 
 		// The children are views of each of the paint Dec's default values.
 		public static final Dec<List<View>> children = new Dec<List<View>>(View.<List<View>>parseExpression(
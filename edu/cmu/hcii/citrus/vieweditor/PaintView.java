@@ -33,7 +33,7 @@ public class PaintView extends ElementView {
 	public static final Dec<Real> vPad = new Dec<Real>(new Real(5));
 	public static final Dec<Real> hPad = new Dec<Real>(new Real(5));
 
-	public static final Dec<Bool> focusable = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> focusable = new Dec<Bool>(Bool.valueOf(true));
 
 	public static final Dec<List<Behavior>> behaviors = new Dec<List<Behavior>>("[(a Draggable)]");
 	
@@ -12,7 +12,7 @@ import edu.cmu.hcii.citrus.views.paints.FilledRectanglePaint;
 //
 public class Subtyper extends View {
 
-	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 
 	public static final Dec<View> label = new Dec<View>("(a Label text=typeToSubtype.name font=(this getStyle).italicFont)", true);
 	public static final Dec<Type> typeToSubtype = new Dec<Type>(new Parameter<Type>(), true);
@@ -32,7 +32,7 @@ public class Subtyper extends View {
 	public static final Dec<List<Behavior>> behaviors = new Dec<List<Behavior>>(new List<Behavior>(
 		// If the drop fails, then disable it, and reuse it later.
 		new Behavior(App.mouse.pointer.dropFailed, new Action() { public boolean evaluate(View t) {
-			App.mouse.pointer.getViewPicked().set(enabled, new Bool(false));
+			App.mouse.pointer.getViewPicked().set(enabled, Bool.valueOf(false));
 			App.mouse.pointer.getViewPicked().set(transparency, new Real(0.0), App.getGlobalStyle().getQuickTransition());
 			return true;
 		}}),
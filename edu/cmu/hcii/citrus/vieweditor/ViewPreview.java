@@ -90,7 +90,7 @@ public class ViewPreview extends View {
 		public static final Dec<Real> width = new Dec<Real>(true, "((this parentsWidth) times 0.75)");
 		public static final Dec<Real> height = new Dec<Real>(true, "((this parentsHeight) times 0.75)");
 
-		public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+		public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 
 		public static final Dec<List<Behavior>> behaviors = new Dec<List<Behavior>>(new List<Behavior>(
 				
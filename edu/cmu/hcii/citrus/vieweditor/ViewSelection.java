@@ -72,7 +72,7 @@ public class ViewSelection extends View {
 	public static final Dec<List<Paint>> background = new Dec<List<Paint>>(new NewList<Paint>(
 		new RectanglePaint(Color.blue, 0.8, 2.0, 0, 0, 0, 0, 0, 0)));
 
-	public static final Dec<Bool> focusable = new Dec<Bool>(new Bool(false));	
+	public static final Dec<Bool> focusable = new Dec<Bool>(Bool.valueOf(false));	
 
 	public ViewSelection(ArgumentList arguments) { super(arguments); }
 	
@@ -55,7 +55,7 @@ public class ViewTypeView extends ElementView {
 		Translator.noTranslation = true;
 		set(viewInstance, (ElementView)get(model).instantiate(args));
 		get(viewInstance).get(children);
-		get(viewInstance).set(enabled, new Bool(false));
+		get(viewInstance).set(enabled, Bool.valueOf(false));
 		Translator.noTranslation = false;
 		
 		// Add the listeners to the selection property for each of the sub panels.
@@ -72,7 +72,7 @@ public class ViewTypeView extends ElementView {
 	
 	private void disableChildren(View t) {
 
-		t.set(enabled, new Bool(false));
+		t.set(enabled, Bool.valueOf(false));
 		for(View child : t.get(children)) disableChildren(child);
 		
 	}
@@ -32,6 +32,6 @@ public abstract class Action extends Expression<Bool> {
 	public Action() {}
 
 	public abstract boolean evaluate(View env);
-	public final Bool evaluate(Element<?> env) { return new Bool(evaluate((View)env)); }
+	public final Bool evaluate(Element<?> env) { return Bool.valueOf(evaluate((View)env)); }
 	
 }
\ No newline at end of file
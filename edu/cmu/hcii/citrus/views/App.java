@@ -29,6 +29,7 @@ import java.util.Vector;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.Arrays;
 
 import edu.cmu.hcii.citrus.*;
 import edu.cmu.hcii.citrus.views.devices.*;
@@ -59,7 +60,7 @@ public class App extends Window {
 
 		public void handle() { get(action).evaluate(window); }
 		public boolean isNegligible() { return false; }
-		public Bool isEquivalentTo() { return new Bool(false); }
+		public Bool isEquivalentTo() { return Bool.valueOf(false); }
 		
 	}
 	
@@ -144,15 +145,15 @@ public class App extends Window {
 	public static final Dec<List<Behavior>> behaviors = new Dec<List<Behavior>>(new List<Behavior>(
 		new Behavior(App.keyboard.F11.pressed, new BaseElement<Bool>() { public Bool evaluate(Element t) {
 			Debug.debug.set(Debug.damage, Debug.debug.get(Debug.damage).not());
-			return new Bool(true);
+			return Bool.valueOf(true);
 		}}),
 		new Behavior(App.keyboard.F12.pressed, new BaseElement<Bool>() { public Bool evaluate(Element t) {
 			if(App.keyboard.COMMAND.isDown())
 				App.show(new DebugWindow());
-			return new Bool(true);
+			return Bool.valueOf(true);
 		}}),
 		new Behavior(App.windowClosing, new BaseElement<Bool>() { public Bool evaluate(Element<?> t) { 
-			System.exit(0); return new Bool(true); }})
+			System.exit(0); return Bool.valueOf(true); }})
 	));
 	
 	public App() { super(); initialize(null); }
@@ -169,7 +170,7 @@ public class App extends Window {
 		windows.add(this);
 
         // Load images, if necessary
-		Images.setComponent(frame.getContentPane());
+		if(frame != null) Images.setComponent(frame.getContentPane());
 
 		if(styleName != null) {
 			
@@ -186,7 +187,8 @@ public class App extends Window {
 
 	public Nothing show() {
 
-		if(!worker.isAlive()) worker.start();
+		// Headless applications are driven one frame at a time by a FrameHarness instead.
+		if(!HEADLESS && !worker.isAlive()) worker.start();
 		// Mark the width out of date so that everything is updated after being shown.
 		getPropertyByDeclaration(width).markOutOfDate(null);
 		super.show();
@@ -219,6 +221,16 @@ public class App extends Window {
 	private static int nextEmptyEventQueueIndex = 0;
 	private static int indexOfNextEventToProcess = 0;
 	public static Event eventJustProcessed;
+
+	// When each event in the queue was enqueued, and when the oldest event processed since
+	// the last frame was enqueued, for measuring how long input waits to reach the screen.
+	private static long[] eventEnqueueTimes = new long[eventQueue.length];
+	static long inputAwaitingPixels = 0;
+
+	// Input that the AWT thread has received, but that hasn't been made into events yet.
+	// Making an event makes and reads elements, which the worker may be changing, so when
+	// pipelined, the AWT thread only keeps the raw input, and the worker makes the events.
+	private static final Vector<Input> input = new Vector<Input>();
 	
 	// Whether or not the application is paused
 	private static int paused = 0;
@@ -237,6 +249,7 @@ public class App extends Window {
 	private static Vector<Property> outOfDatePropertiesWhileUpdating = new Vector<Property>(100);
 	private static HashSet<Property> propertiesWhoseTilesNeedPainting = new HashSet<Property>(100);
 	private static boolean updatingOutOfDateVisibleProperties = false;
+	private static Property.BatchUpdate lastBatchUpdate = null;
 	private static long updateTime = System.currentTimeMillis();
 	private static boolean postingDamage = false;
 
@@ -251,6 +264,20 @@ public class App extends Window {
 			App.work();
 		}
 	};
+
+	// When pipelined, the worker thread processes events, updates constraints and repairs
+	// damage in each window's buffer itself, and the AWT thread only copies finished frames
+	// to the screen, so that input keeps arriving while a frame is being made. Otherwise,
+	// all of the work happens on the AWT thread. Turn it on with -Dcitrus.pipelined=true.
+	public static final boolean PIPELINED = Boolean.getBoolean("citrus.pipelined");
+
+	// The least time between frames copied to the screen, in milliseconds, when pipelined.
+	// Frames finished sooner are merged into the next one. Frames whose work takes
+	// longer are counted as over budget.
+	public static final long FRAME_BUDGET = Long.getLong("citrus.frameBudget", 16);
+
+	// Held while working, so that the AWT thread can't resize a window mid-frame.
+	static final Object model = new Object();
 	
 	// The worker thread. While this application is running, do any work that
 	// needs to be done. But don't do any while the out of date visible properties are
@@ -260,11 +287,17 @@ public class App extends Window {
 			while(true) {
 				// If there's work to do, do it!
 				if(haveWorkToDo()) {
-					try {
-						EventQueue.invokeAndWait(doWork);
-					} 
-					catch(InterruptedException e) {}
-					catch(java.lang.reflect.InvocationTargetException e) {}
+					if(PIPELINED) {
+						try { work(); } 
+						catch(Throwable t) { t.printStackTrace(); }
+					}
+					else {
+						try {
+							EventQueue.invokeAndWait(doWork);
+						} 
+						catch(InterruptedException e) {}
+						catch(java.lang.reflect.InvocationTargetException e) {}
+					}
 				}
 				// Otherwise, wait until we get some work.
 				else {
@@ -290,15 +323,16 @@ public class App extends Window {
 	// Create a new window and return its ui.
 	public static void show(Window w) {
 
-		windows.addElement(w);
+		synchronized(model) { windows.addElement(w); }
 		w.show();
 
 	}
 
-	// Remove the window from the list of windows.
+	// Remove the window from the list of windows. We hold the model, since the
+	// worker goes through the windows while it repairs them.
 	public static void remove(Window w) {
 
-		windows.removeElement(w);
+		synchronized(model) { windows.removeElement(w); }
 		
 	}
 	
@@ -336,20 +370,26 @@ public class App extends Window {
 	// replaces the old event. This allows the system to ignore
 	// events that come frequently, such as moves.
 	public Nothing enqueueEvent(Event e) { App.enqueue(e); return null; }
-	public static void enqueue(Event e) {
+	public static void enqueue(Event e) { enqueue(e, System.nanoTime()); }
+	private static void enqueue(Event e, long received) {
 
 		synchronized(eventQueue) {
 
 			// If the new event has the same type as the previous event, and
 			// the event is negligible, replace the old with the new.
+			boolean replaced = false;
 			if(e.isNegligible()) {
 				Event mostRecentEvent = eventQueue[getPreviousEventQueueIndex(nextEmptyEventQueueIndex)];
-				if(mostRecentEvent != null && mostRecentEvent.isEquivalentTo(e).value)
+				if(mostRecentEvent != null && mostRecentEvent.isEquivalentTo(e).value) {
 					nextEmptyEventQueueIndex = getPreviousEventQueueIndex(nextEmptyEventQueueIndex);
+					replaced = true;
+				}
 			}
 
-			// Add the new event to the end of the queue.
+			// Add the new event to the end of the queue. An event that replaces another
+			// has been waiting since the one it replaced was enqueued.
 			eventQueue[nextEmptyEventQueueIndex] = e;
+			if(!replaced) eventEnqueueTimes[nextEmptyEventQueueIndex] = received;
 
 			// Increment the index, wrapping if necessary.
 			nextEmptyEventQueueIndex = getNextEventQueueIndex(nextEmptyEventQueueIndex);
@@ -360,6 +400,40 @@ public class App extends Window {
 		
 	}
 	
+	// Raw input from the AWT thread, which knows how to make itself into an event.
+	public static abstract class Input {
+
+		private final long received = System.nanoTime();
+
+		// Returns null if there's no event to enqueue.
+		protected abstract Event toEvent();
+
+	}
+
+	// Unless pipelined, the AWT thread is the one that works, so it makes the event now.
+	// Otherwise, the worker makes it when it next holds the model.
+	public static void enqueue(Input i) {
+
+		if(!PIPELINED) {
+			Event e = i.toEvent();
+			if(e != null) enqueue(e, i.received);
+			return;
+		}
+		input.addElement(i);
+		synchronized(worker) { worker.notify(); }
+
+	}
+
+	private static void makeEventsFromInput() {
+
+		while(!input.isEmpty()) {
+			Input i = input.remove(0);
+			Event e = i.toEvent();
+			if(e != null) enqueue(e, i.received);
+		}
+
+	}
+
 	private static int getNextEventQueueIndex(int index) {
 		
 		if(index + 1 > eventQueue.length - 1) return 0;
@@ -386,8 +460,8 @@ public class App extends Window {
 	public static Iterable<View> getViewsUnderViewPicked() { return viewsUnderViewPicked; }
 	public static Iterable<View> getViewsUnderCursor() { return viewsUnderCursor; }
 
-	// Process a single event.
-	private static void processAnEvent() {
+	// Process a single event, returning false if there were none to process.
+	private static boolean processAnEvent() {
 
 		synchronized(eventQueue) {
 			
@@ -400,6 +474,7 @@ public class App extends Window {
 				// Get the next event to process
 				eventJustProcessed = eventQueue[indexOfNextEventToProcess];
 				eventQueue[indexOfNextEventToProcess] = null;
+				if(inputAwaitingPixels == 0) inputAwaitingPixels = eventEnqueueTimes[indexOfNextEventToProcess];
 				indexOfNextEventToProcess = getNextEventQueueIndex(indexOfNextEventToProcess);
 	
 				if(Debug.input()) Debug.print("" + eventJustProcessed);
@@ -487,9 +562,13 @@ public class App extends Window {
 					}
 				}
 								
+				return true;
+
 			}
 
 		}
+
+		return false;
 		
 	}	
 
@@ -550,16 +629,28 @@ public class App extends Window {
 	// The basic UI cycle. This is synchronized since the tile window (the AWT thread)
 	// often calls quicklyResize(), while this is working.
 	public static void work() {
+
+		synchronized(model) { workOnAFrame(); }
+
+	}
+
+	private static void workOnAFrame() {
 		
 		threadDebug("WORKING.");
 		
+		long start = System.nanoTime();
+
 		// Update the update time.
 		updateTime = System.currentTimeMillis();
 
+		// Make events from any input the AWT thread received while we were working.
+		makeEventsFromInput();
+
 		// Process the next event. This will involve putting children
 		// in new parents, moving tiles, and doing other various
 		// operations which change the properties  of tiles.
-		processAnEvent();
+		Event event = processAnEvent() ? eventJustProcessed : null;
+		long afterEvent = System.nanoTime();
 		
 		// Update the update time.
 		updateTime = System.currentTimeMillis();
@@ -579,6 +670,7 @@ public class App extends Window {
 		}
 		
 		beforePaintingDamagedTiles = System.currentTimeMillis();
+		long afterUpdate = System.nanoTime();
 		
 		View.numCalls = 0;
 		
@@ -588,11 +680,19 @@ public class App extends Window {
 		
 		// Remember when we started painting.
 		beforePaintingWindow = System.currentTimeMillis();
+		long afterDamage = System.nanoTime();
 		
 		// Now that we've gathered up all of the damage resulting from
 		// the property changes, repair the damage in each window.
 		for(Window w : windows) w.repairDamagedArea();
 
+		lastFrameTiming = new FrameTiming(event, afterEvent - start, afterUpdate - afterEvent, 
+			afterDamage - afterUpdate, System.nanoTime() - afterDamage, View.numCalls);
+		if(lastFrameTiming.getTotal() > FRAME_BUDGET * 1000000) framesOverBudget++;
+
+		// Input that didn't damage anything never reaches the screen, so stop waiting for it.
+		inputAwaitingPixels = 0;
+
 		// Calculate how long it took to paint.
 		afterRepaintingWindow = System.currentTimeMillis();
 		if(afterRepaintingWindow - beforePaintingWindow > 0) {
@@ -611,15 +711,99 @@ public class App extends Window {
 		
 	}
 	
+	// How long each phase of a call to work() took, in nanoseconds: processing an event,
+	// updating out of date visible properties and animations, posting damage on the views
+	// of the properties that changed, and repairing the damage in each window.
+	public static final class FrameTiming {
+
+		public final Event eventProcessed;
+		public final long event, update, damage, paint;
+		public final int viewsPainted;
+
+		FrameTiming(Event eventProcessed, long eventTime, long updateTime, long damageTime, long paintTime, int views) {
+
+			this.eventProcessed = eventProcessed;
+			event = eventTime;
+			update = updateTime;
+			damage = damageTime;
+			paint = paintTime;
+			viewsPainted = views;
+
+		}
+
+		public long getTotal() { return event + update + damage + paint; }
+
+		public String toString() {
+
+			return String.format("%.3f ms (event %.3f, update %.3f, damage %.3f, paint %.3f), %d views painted%s", 
+				getTotal() / 1e6, event / 1e6, update / 1e6, damage / 1e6, paint / 1e6, viewsPainted, 
+				eventProcessed == null ? "" : ", after " + eventProcessed.getClass().getSimpleName());
+
+		}
+
+	}
+
+	private static FrameTiming lastFrameTiming = null;
+
+	// The phases of the most recent call to work().
+	public static FrameTiming getLastFrameTiming() { return lastFrameTiming; }
+
 	public static double getAverageFPS() { return (numberOfTimes / (totalTime / 1000.0)); }
+
+	/////////////////////////////////////////////////////////////////////////
+	// Input to pixel latency
+	/////////////////////////////////////////////////////////////////////////
+
+	// The most recent latencies, in nanoseconds, from an event being enqueued to the pixels
+	// it changed being copied to the screen (or to a headless window's image).
+	private static final long[] latencies = new long[1024];
+	private static int latencyCount = 0;
+	private static long framesOverBudget = 0, framesPresented = 0, framesMerged = 0;
+
+	static synchronized void recordLatency(long inputTime) {
+
+		latencies[latencyCount++ % latencies.length] = System.nanoTime() - inputTime;
+
+	}
+
+	static synchronized void recordPresentation(int framesInPresentation) {
+
+		framesPresented++;
+		framesMerged += framesInPresentation - 1;
+
+	}
+
+	public static synchronized void resetLatencies() { latencyCount = 0; framesOverBudget = framesPresented = framesMerged = 0; }
+
+	// The mean, median, 95th percentile and worst of the recent latencies, and how the frames fared.
+	public static synchronized String getLatencyReport() {
+
+		int count = Math.min(latencyCount, latencies.length);
+		String frames = "" + framesOverBudget + " frames over the " + FRAME_BUDGET + " ms budget" + 
+			(PIPELINED ? ", " + framesPresented + " presented, " + framesMerged + " merged into later frames" : "");
+		if(count == 0) return "No input has reached the screen; " + frames;
+
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		long sum = 0;
+		for(long l : sorted) sum += l;
+		return String.format("Input to pixel latency over %d inputs: mean %.2f ms, p50 %.2f, p95 %.2f, max %.2f; %s", 
+			count, sum / 1e6 / count, sorted[count / 2] / 1e6, sorted[Math.min(count - 1, (int)(count * 0.95))] / 1e6, 
+			sorted[count - 1] / 1e6, frames);
+
+	}
+
+	// What happened the last time the out of date visible properties were updated.
+	public static Property.BatchUpdate getLastBatchUpdate() { return lastBatchUpdate; }
 	
 	// If the event queue isn't empty, there's damage to paint, or there are properties to animate,
 	// then there's work to do.
-	private static boolean haveWorkToDo() {
+	static boolean haveWorkToDo() {
     	
 		// This should wait if its paused or it has no work to do.
 		return (paused == 0 &&
 				(nextEmptyEventQueueIndex != indexOfNextEventToProcess || 
+				 !input.isEmpty() ||
 				 !outOfDateProperties.isEmpty() || 
 				 !propertiesWhoseTilesNeedPainting.isEmpty() ||
 				 !animations.isEmpty()));
@@ -670,17 +854,14 @@ public class App extends Window {
 			
 			// We start with a list of properties that claim to be out of date and request their values,
 			// implicitly causing "changed" events to be called, adding to the propertiesWhoseTilesNeedPainting set.
-			Iterator<Property> outOfDateIterator = outOfDateProperties.iterator();
-			while(outOfDateIterator.hasNext()) { 
-				Property<?> p = outOfDateIterator.next();
-				p.get();
-			}
+			// The properties are updated as a batch, so that properties they share are only evaluated once.
+			lastBatchUpdate = Property.updateInTopologicalOrder(outOfDateProperties);
 			outOfDateProperties.clear();
 		
 			// We're done updating.
 			updatingOutOfDateVisibleProperties = false;
 	
-			if(Debug.threads()) System.err.println("" + Thread.currentThread().getName() + ": DONE UPDATING properties.");
+			if(Debug.threads()) System.err.println("" + Thread.currentThread().getName() + ": DONE UPDATING properties; " + lastBatchUpdate);
 
 		}
 		
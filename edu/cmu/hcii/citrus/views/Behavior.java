@@ -57,7 +57,7 @@ public class Behavior extends BaseElement<Behavior> {
 	}
 	
 	public static final Dec<Event> event = new Dec<Event>();
-	public static final Dec<Element<Bool>> action = new Dec(new Bool(false));
+	public static final Dec<Element<Bool>> action = new Dec(Bool.valueOf(false));
 	public static final Dec<Bool> undoable = new Dec(Bool.TRUE);
 	public static final Dec<List<Behavior>> behaviors = new Dec<List<Behavior>>(new List<Behavior>());
 	public static final Dec<Text> description = new Dec(new Text(""));
@@ -74,7 +74,7 @@ public class Behavior extends BaseElement<Behavior> {
 
 		set(event, eventInstance);
 		set(action, newAction);
-		set(undoable, new Bool(isUndoable));
+		set(undoable, Bool.valueOf(isUndoable));
 		
 	}
 	public Behavior(Event eventInstance, String newAction) {
@@ -86,10 +86,10 @@ public class Behavior extends BaseElement<Behavior> {
 
 	public Bool reactsTo(Event e) { 
 
-		if(get(event) != null && get(event).isEquivalentTo(e).value) return new Bool(true); 
+		if(get(event) != null && get(event).isEquivalentTo(e).value) return Bool.valueOf(true); 
 		for(Behavior next : get(behaviors))
-			if(next.reactsTo(e).value) return new Bool(true);
-		return new Bool(false);		
+			if(next.reactsTo(e).value) return Bool.valueOf(true);
+		return Bool.valueOf(false);		
 	
 	}
 	
@@ -104,7 +104,7 @@ public class Behavior extends BaseElement<Behavior> {
 			if(e != null && newEvent.isEquivalentTo(e.evaluate(view)).value) {
 
 				Element actionToDo = get(action);
-				Element result = new Bool(false);
+				Element result = Bool.valueOf(false);
 				
 				// Push a property set event accumulator 
 				boolean isUndoable = get(undoable).value;
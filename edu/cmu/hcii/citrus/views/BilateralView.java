@@ -36,13 +36,13 @@ public class BilateralView extends ElementView {
 	
 	public Bool replaceWithPropertyNamed(Text propertyName) {
 
-		return new Bool(true);
+		return Bool.valueOf(true);
 		
 	}	
 	
-	public static final Dec<Bool> focusable = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> focusable = new Dec<Bool>(Bool.valueOf(true));
 
-	public static final Dec<Bool> onTheLeft = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> onTheLeft = new Dec<Bool>(Bool.valueOf(true));
 	static { onTheLeft.set(Dec.isUndoable, Bool.TRUE); }
 
 	public static final Dec<Paint> caretPaint = new Dec<Paint>(
@@ -75,8 +75,8 @@ public class BilateralView extends ElementView {
 			}
 
 			String direction = t.getWindow().getDirectionOfLastFocusMovement();
-			if(direction.equals("next")) t.set(onTheLeft, new Bool(true));
-			else if(direction.equals("previous")) t.set(onTheLeft, new Bool(false));
+			if(direction.equals("next")) t.set(onTheLeft, Bool.valueOf(true));
+			else if(direction.equals("previous")) t.set(onTheLeft, Bool.valueOf(false));
 			else if(direction.equals("mouse")) {
 				return true;				
 			}
@@ -120,24 +120,24 @@ public class BilateralView extends ElementView {
 				if(direction.value) {
 					debugNavigation("Moving from the left to the next focusable child");
 					View focusableView = firstFocusableChild(Bool.TRUE);
-					if(focusableView == null) return new Bool(false);
+					if(focusableView == null) return Bool.valueOf(false);
 					getWindow().focusOn(focusableView, direction.value ? "next" : "previous");
-					return new Bool(true);
+					return Bool.valueOf(true);
 				}
 				// If we're moving to the left, don't handle this
-				return new Bool(false);				
+				return Bool.valueOf(false);				
 			}
 			// On the right
 			else {
 				// And we're moving to the right
-				if(direction.value) return new Bool(false);
+				if(direction.value) return Bool.valueOf(false);
 				// And we're moving to the left
 				else {
 					debugNavigation("Moving from the right to the previous focusable child");
 					View focusableView = firstFocusableChild(Bool.FALSE);
-					if(focusableView == null) return new Bool(false);
+					if(focusableView == null) return Bool.valueOf(false);
 					getWindow().focusOn(focusableView, direction.value ? "next" : "previous");
-					return new Bool(true);	
+					return Bool.valueOf(true);	
 				}
 			}
 		}		
@@ -148,7 +148,7 @@ public class BilateralView extends ElementView {
 				if(childWithFocus == null) {
 					getWindow().focusOn(this, "internal");
 					debugNavigation("Moving right from outside to the left");
-					set(onTheLeft, new Bool(true));
+					set(onTheLeft, Bool.valueOf(true));
 				}
 				else {
 					// Does the child with focus have a focusable sibling?
@@ -160,7 +160,7 @@ public class BilateralView extends ElementView {
 					else {
 						getWindow().focusOn(this, "internal");
 						debugNavigation("Moving right from inside to the right");
-						set(onTheLeft, new Bool(false));
+						set(onTheLeft, Bool.valueOf(false));
 					}
 				}
 			}
@@ -169,7 +169,7 @@ public class BilateralView extends ElementView {
 				if(childWithFocus == null) {
 					getWindow().focusOn(this, "internal");
 					debugNavigation("Moving left from outside to right.");
-					set(onTheLeft, new Bool(false));
+					set(onTheLeft, Bool.valueOf(false));
 				}
 				else {
 					// Does the child with focus have a focusable sibling?
@@ -181,11 +181,11 @@ public class BilateralView extends ElementView {
 					else {
 						getWindow().focusOn(this, "internal");
 						debugNavigation("Moving left from inside to left.");
-						set(onTheLeft, new Bool(true));
+						set(onTheLeft, Bool.valueOf(true));
 					}					
 				}
 			}
-			return new Bool(true);
+			return Bool.valueOf(true);
 		}
 		
 	}
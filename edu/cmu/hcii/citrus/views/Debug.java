@@ -27,22 +27,22 @@ import edu.cmu.hcii.citrus.*;
 
 public class Debug extends BaseElement<Debug> {
 	
-	public static final Dec<Bool> worker = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> memory = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> events = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> damage = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> postDamage = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> clip = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> children = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> layout = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> paintBoundaries = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> fps = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> windowState = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> navigation = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> translation = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> elementTranslation = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> propertyFinalization = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> elementFinalization = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> worker = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> memory = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> events = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> damage = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> postDamage = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> clip = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> children = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> layout = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> paintBoundaries = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> fps = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> windowState = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> navigation = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> translation = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> elementTranslation = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> propertyFinalization = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> elementFinalization = new Dec<Bool>(Bool.valueOf(false));
 	
 	public static final Debug debug = new Debug();
 	
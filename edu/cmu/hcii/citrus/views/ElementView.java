@@ -43,18 +43,46 @@ public class ElementView extends View {
 
 	public String toString() { return super.toString() + " of " + getModel(); }
 
+	// The property that holds this view's model. Shared values have no owner, but this view
+	// knows the property it shows.
+	private Property getModelsProperty() {
+
+		Element m = get(model);
+		return m.isShared() ? get(property) : m.getPropertyOwner();
+
+	}
+
+	// Replaces this view's model in the property that holds it. Shared values can't replace
+	// themselves, so we set the property instead.
+	private void replaceModelWith(Element newValue, Transition t) {
+
+		Element oldValue = get(model);
+		if(oldValue.isShared()) getModelsProperty().set(newValue, t);
+		else oldValue.getPropertyOwner().replaceWith(oldValue, newValue, t);
+
+	}
+
+	// Shared values have no views of their own, so we use this view, if it shows the value.
+	private View getFirstViewOf(Element e) {
+
+		if(e.isShared()) return e == get(model) ? this : null;
+		return e.getFirstView();
+
+	}
+
 	public Nothing replaceAndFocusOnValue(Element newValue, Element valueToFocusOn) {
 
 		// We don't want to set here; we want a general way to tell the property to update its value.
 		// For example, if this property is pointing to a list, we'd like to replace the model
 		// that this element view represents with this new model. This may involve explicitly setting
 		// the property, or it may involve the element replacing something.
-		Element oldValue = get(model);
-		oldValue.getPropertyOwner().replaceWith(oldValue, newValue, App.getGlobalStyle().getQuickTransition());
-		if(valueToFocusOn != null)
-			valueToFocusOn.getFirstView().getDeepestFocusableAncestor(true).requestKeyboardFocus("previous");
-		else
-			newValue.getFirstView().getDeepestFocusableAncestor(true).requestKeyboardFocus("previous");
+		Property owner = getModelsProperty();
+		replaceModelWith(newValue, App.getGlobalStyle().getQuickTransition());
+		if(valueToFocusOn == null) valueToFocusOn = newValue;
+		// If the value has no view, focus on the property's view instead.
+		View view = getFirstViewOf(valueToFocusOn);
+		if(view == null) view = owner.getFirstView();
+		if(view != null) view.getDeepestFocusableAncestor(true).requestKeyboardFocus("previous");
 		
 		return null;
 			
@@ -69,7 +97,7 @@ public class ElementView extends View {
 		Element oldValue = get(model);
 		if(oldValue.getElementOwner() instanceof Group) 
 			oldValue.getElementOwner().replaceWith(oldValue, newValue, t);
-		else oldValue.getPropertyOwner().replaceWith(oldValue, newValue, t);
+		else replaceModelWith(newValue, t);
 		if(!propertyName.value.equals(""))
 			focusOnProperty(newValue, propertyName);
 //		else {
@@ -77,7 +105,7 @@ public class ElementView extends View {
 //			if(view == null) System.err.println("" + newValue + " has no view");
 //			else view.requestKeyboardFocus("next");
 //		}
-		return new Bool(true);
+		return Bool.valueOf(true);
 		
 	}
 	
@@ -85,10 +113,10 @@ public class ElementView extends View {
 
 		// Disown this view's model.
 		Element oldValue = get(model);
-		oldValue.getPropertyOwner().replaceWith(oldValue, newValue, App.getGlobalStyle().getQuickTransition());
+		replaceModelWith(newValue, App.getGlobalStyle().getQuickTransition());
 		newValue.set(propertyName, oldValue);
 		focusOnProperty(newValue, propertyToFocusOn);
-		return new Bool(true);
+		return Bool.valueOf(true);
 		
 	}
 	
@@ -101,7 +129,7 @@ public class ElementView extends View {
 		
 	}
 
-	public Bool focusOn(Text propertyName) { focusOnProperty(get(model), propertyName); return new Bool(true); }
+	public Bool focusOn(Text propertyName) { focusOnProperty(get(model), propertyName); return Bool.valueOf(true); }
 	
 	private void focusOnProperty(Element model, Text propertyName) {
 		
@@ -111,7 +139,7 @@ public class ElementView extends View {
 			return;
 		}
 		View propertyView = p.getFirstView();
-		if(propertyView == null) propertyView = model.getFirstView();
+		if(propertyView == null) propertyView = getFirstViewOf(model);
 		if(propertyView == null) {
 			System.err.println("No view of property named " + propertyName);
 			return;
@@ -128,16 +156,16 @@ public class ElementView extends View {
 	public Bool focusOnProperty(Property p) {
 		
 		p.getFirstView().requestKeyboardFocus("next");
-		return new Bool(true);		
+		return Bool.valueOf(true);		
 		
 	}
 	
 	public Bool focusOnModel(Element e) {
 
-		View firstView = e.getFirstView();
+		View firstView = getFirstViewOf(e);
 		if(firstView == null) throw new ElementError("" + e + " has no view yet; could it be that it's owner's view's children property hasn't been initialized yet?", null);
-		e.getFirstView().requestKeyboardFocus("next");
-		return new Bool(true);
+		firstView.requestKeyboardFocus("next");
+		return Bool.valueOf(true);
 		
 	}
 	
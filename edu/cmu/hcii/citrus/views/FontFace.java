@@ -43,9 +43,9 @@ public class FontFace extends BaseElement<FontFace> {
 	
 	static {
 
-		descent.set(Dec.isConstant, new Bool(true));
-		ascent.set(Dec.isConstant, new Bool(true));
-		spaceWidth.set(Dec.isConstant, new Bool(true));
+		descent.set(Dec.isConstant, Bool.valueOf(true));
+		ascent.set(Dec.isConstant, Bool.valueOf(true));
+		spaceWidth.set(Dec.isConstant, Bool.valueOf(true));
 		
 //		String[] fontFamilyNames = java.awt.GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames();
 //		for(int i = 0; i < fontFamilyNames.length; i++) fontFamilies.mayBe(new Text(fontFamilyNames[i]));
@@ -0,0 +1,242 @@
+/*
+ * 
+ * Citrus - A object-oriented, interpreted language that is designed to simplify 
+ * the creation of dynamic, immediate feedback graphical desktop applications.
+ * 
+ * Copyright (c) 2005 Andrew Jensen Ko
+ * All rights reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package edu.cmu.hcii.citrus.views;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import edu.cmu.hcii.citrus.*;
+import edu.cmu.hcii.citrus.views.devices.*;
+
+// Drives App.work() synchronously, one frame at a time, so that an application can be run
+// and measured without a display or a worker thread. Input is replayed by enqueueing the
+// same events that a Window's AWT listeners would have enqueued, and the phases of each
+// frame are recorded so they can be summarized afterwards.
+//
+// Windows only render into an offscreen image when they're headless, so set citrus.headless
+// (or run with java.awt.headless) before the first window is created.
+public class FrameHarness {
+
+	private final Window window;
+	private final List<App.FrameTiming> frames = new ArrayList<App.FrameTiming>();
+	private long time = 0;
+	
+	public FrameHarness(Window window) {
+		
+		if(!window.isHeadless())
+			throw new ViewError("FrameHarness can only drive headless windows; run with -Dcitrus.headless=true");
+		this.window = window;
+		
+	}
+	
+	public Window getWindow() { return window; }
+	
+	// Runs a single frame, recording how long each of its phases took.
+	public App.FrameTiming frame() {
+		
+		App.work();
+		App.FrameTiming timing = App.getLastFrameTiming();
+		frames.add(timing);
+		return timing;
+		
+	}
+	
+	// Runs frames until there's nothing left to do, or until the given number of frames have
+	// been run, since animations can keep an application busy indefinitely. Returns the number
+	// of frames run.
+	public int settle(int maximumFrames) {
+		
+		int count = 0;
+		while(count < maximumFrames && App.haveWorkToDo()) {
+			frame();
+			count++;
+		}
+		return count;
+		
+	}
+	
+	// Enqueues the event and runs frames until it and everything it caused have been handled.
+	public int play(Event event, int maximumFrames) {
+		
+		App.enqueue(event);
+		return settle(maximumFrames);
+		
+	}
+	
+	public int play(Iterable<Event> events, int maximumFramesPerEvent) {
+		
+		int count = 0;
+		for(Event event : events) count += play(event, maximumFramesPerEvent);
+		return count;
+		
+	}
+
+	// Events with the same arguments the window's listeners would have given them. Each gets
+	// a later time stamp than the last, so that double clicks and transitions see time pass.
+	private long nextTimeStamp() { time = Math.max(time + 16, System.currentTimeMillis()); return time; }
+	
+	public Event mouseMovedTo(double x, double y) {
+		
+		return new MousePointer.Moved(window, nextTimeStamp(), App.mouse.pointer, new Real(x), new Real(y));
+		
+	}
+
+	public Event mousePressed(double x, double y) {
+		
+		return new MouseButton.Pressed(window, nextTimeStamp(), App.mouse.leftButton, new Point(x, y));
+		
+	}
+
+	public Event mouseReleased(double x, double y) {
+		
+		return new MouseButton.Released(window, nextTimeStamp(), App.mouse.leftButton, new Point(x, y));
+		
+	}
+
+	public Event typed(char c) {
+		
+		return new Keyboard.Typed(window, nextTimeStamp(), App.keyboard, new Char(c),
+				App.keyboard.SHIFT.get(KeyboardKey.down),
+				App.keyboard.CONTROL.get(KeyboardKey.down),
+				App.keyboard.ALT.get(KeyboardKey.down),
+				App.keyboard.COMMAND.get(KeyboardKey.down));
+		
+	}
+	
+	/////////////////////////////////////////////////////////////////////////
+	// Metrics
+	/////////////////////////////////////////////////////////////////////////
+
+	public List<App.FrameTiming> getFrames() { return frames; }
+	
+	public void reset() { frames.clear(); }
+	
+	// The mean, median, 95th percentile and worst time of each phase over the frames recorded.
+	public String getReport() {
+		
+		int count = frames.size();
+		if(count == 0) return "No frames recorded.";
+
+		long[] event = new long[count], update = new long[count], damage = new long[count], paint = new long[count], total = new long[count];
+		long views = 0;
+		for(int i = 0; i < count; i++) {
+			App.FrameTiming f = frames.get(i);
+			event[i] = f.event;
+			update[i] = f.update;
+			damage[i] = f.damage;
+			paint[i] = f.paint;
+			total[i] = f.getTotal();
+			views += f.viewsPainted;
+		}
+		
+		StringBuilder report = new StringBuilder();
+		report.append(count).append(" frames, ").append(String.format("%.1f", (double)views / count)).append(" views painted per frame\n");
+		report.append(String.format("%-8s %9s %9s %9s %9s\n", "ms", "mean", "p50", "p95", "max"));
+		report.append(summarize("event", event));
+		report.append(summarize("update", update));
+		report.append(summarize("damage", damage));
+		report.append(summarize("paint", paint));
+		report.append(summarize("total", total));
+		return report.toString();
+		
+	}
+	
+	private static String summarize(String phase, long[] times) {
+		
+		Arrays.sort(times);
+		long sum = 0;
+		for(long t : times) sum += t;
+		return String.format("%-8s %9.3f %9.3f %9.3f %9.3f\n", phase, 
+			sum / 1e6 / times.length, 
+			times[times.length / 2] / 1e6, 
+			times[Math.min(times.length - 1, (int)(times.length * 0.95))] / 1e6, 
+			times[times.length - 1] / 1e6);
+		
+	}
+	
+	// Runs the init procedure of the given Citrus file headlessly, sweeps the mouse pointer
+	// back and forth across the application's window -Dframes times, and prints the frame
+	// timings. If -Dpng names a file, the final frame is written to it.
+	public static void main(String[] args) throws Exception {
+		
+		if(args.length == 0) {
+			System.err.println("java edu.cmu.hcii.citrus.views.FrameHarness program.citrus");
+			System.exit(0);
+		}
+
+		System.setProperty("citrus.headless", "true");
+
+		Boot.init();
+
+		// Same hack as Citrus.main, to load all of the relevant packages.
+		new View();
+		new edu.cmu.hcii.citrus.views.transitions.FastToSlow(200);
+		new edu.cmu.hcii.citrus.views.behaviors.Moveable();
+		new edu.cmu.hcii.citrus.views.paints.RectanglePaint();
+		if(edu.cmu.hcii.citrus.views.widgets.Toggle.class == null) return;
+
+		Unit unit = CitrusParser.unit(new Text(args[0]));
+		Element<?> init = unit.get(Unit.init);
+		if(init == null) {
+			System.err.println("" + args[0] + " has no initialization expression.");
+			return;
+		}
+		init.evaluate(unit);
+
+		App app = App.getApp();
+		if(app == null) {
+			System.err.println("" + args[0] + " didn't create an App.");
+			return;
+		}
+		
+		FrameHarness harness = new FrameHarness(app);
+		int frames = Integer.getInteger("frames", 200);
+		
+		// Let the first layout and paint finish before measuring anything.
+		harness.settle(1000);
+		System.out.println("first frames:\n" + harness.getReport());
+		harness.reset();
+		App.resetLatencies();
+
+		int width = app.getCanvasWidth(), height = app.getCanvasHeight();
+		for(int i = 0; i < frames; i++) {
+			double x = (i % 100) / 100.0 * width;
+			double y = ((i / 100) % 2 == 0 ? i % 100 : 100 - i % 100) / 100.0 * height;
+			harness.play(harness.mouseMovedTo(x, y), 100);
+		}
+		System.out.println("pointer sweep:\n" + harness.getReport());
+		System.out.println(App.getLatencyReport());
+		
+		String png = System.getProperty("png");
+		if(png != null) ImageIO.write(app.getImage(), "png", new File(png));
+
+		System.exit(0);
+		
+	}
+	
+}
@@ -42,14 +42,14 @@ public class GroupView extends ElementView {
 
 	public static final Dec<Layout> layout = new Dec<Layout>(new VerticalLayout(-1, 0, 2));
 
-	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 
 	public static final Dec<Real> width = new Dec<Real>(true, "(if (model isEmpty) 45.0 (this rightmostChildsRight))");
 	public static final Dec<Real> height = new Dec<Real>(true, "(if (model isEmpty) 20.0 (this lastChildsBottom))"); 
 
 	public static final Dec<Paint> focusPaint = new Dec<Paint>("(this getStyle).listFocusPaint");
 	
-	public static final Dec<Bool> focusable = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> focusable = new Dec<Bool>(Bool.valueOf(true));
 
 	public Nothing updateWith(Group<?,?> newValue) { 
 		
@@ -112,6 +112,6 @@ public class GroupView extends ElementView {
 	
 	public View viewFor(Property p) { return Translator.toView(p); }
 
-	public Bool include(Element<?> item) { return new Bool(true); }
+	public Bool include(Element<?> item) { return Bool.valueOf(true); }
 	
 }
@@ -46,6 +46,6 @@ public class Image extends BootElement<Image> {
 	public Text toCitrus() { return new Text(value.toString()); }
 	public String toString() { return value.toString(); }
 	
-	public Bool isEquivalentTo(Element<?> o) { return new Bool(this.equals(o)); }
+	public Bool isEquivalentTo(Element<?> o) { return Bool.valueOf(this.equals(o)); }
 
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+/*
+ * 
+ * Citrus - A object-oriented, interpreted language that is designed to simplify 
+ * the creation of dynamic, immediate feedback graphical desktop applications.
+ * 
+ * Copyright (c) 2005 Andrew Jensen Ko
+ * All rights reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package edu.cmu.hcii.citrus.views;
+
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Offscreen images of the subtrees of views that set View.cachesLayer. When a cached
+// view is repaired and nothing in its subtree has posted damage since its layer was
+// painted, we copy the layer instead of running every paint in the subtree again.
+//
+// A layer is keyed by its view's paintIdentity and the device bounds of the view's own
+// painted boundaries, and covers the painted boundaries of the whole subtree. It's dropped
+// whenever the view or one of its descendants posts damage, or a child is added or
+// removed, and when the view itself is removed. Layers are kept in least recently used
+// order, and the oldest are evicted to keep the pixels held under a budget, set in bytes
+// with -Dcitrus.layerCacheBytes. A budget of zero turns layers off.
+public final class LayerCache {
+
+	public static final long BUDGET = Long.getLong("citrus.layerCacheBytes", 64L * 1024 * 1024);
+	public static final boolean ENABLED = BUDGET > 0;
+
+	static final class Layer {
+
+		final View view;
+		final long identity;
+		final Rectangle key;
+		final Rectangle bounds;
+		final BufferedImage image;
+		final long bytes;
+
+		Layer(View view, long identity, Rectangle key, Rectangle bounds, BufferedImage image) {
+
+			this.view = view;
+			this.identity = identity;
+			this.key = key;
+			this.bounds = bounds;
+			this.image = image;
+			this.bytes = 4L * bounds.width * bounds.height;
+
+		}
+
+	}
+
+	// The layers, least recently used first.
+	private static final LinkedHashMap<Layer, Layer> layers = new LinkedHashMap<Layer, Layer>(16, 0.75f, true);
+	private static long bytesHeld = 0;
+
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
+	private static final AtomicLong invalidations = new AtomicLong();
+	private static final AtomicLong evictions = new AtomicLong();
+
+	private LayerCache() {}
+
+	// The smallest rectangle of whole device pixels that covers the given global rectangle.
+	public static Rectangle deviceBoundsOf(Rectangle2D bounds) {
+
+		int x = (int)Math.floor(bounds.getMinX()), y = (int)Math.floor(bounds.getMinY());
+		return new Rectangle(x, y, (int)Math.ceil(bounds.getMaxX()) - x, (int)Math.ceil(bounds.getMaxY()) - y);
+
+	}
+
+	// Whether a layer with the given bounds could ever fit in the budget.
+	static boolean fits(Rectangle bounds) { return !bounds.isEmpty() && 4L * bounds.width * bounds.height <= BUDGET; }
+
+	// Whether any view has asked for a layer yet.
+	private static volatile boolean requested = false;
+
+	// Returns the view's layer if it's still good for the given identity and key.
+	static synchronized Layer get(View view, long identity, Rectangle key) {
+
+		requested = true;
+		Layer layer = view.layer;
+		if(layer != null && layer.identity == identity && layer.key.equals(key)) {
+			layers.get(layer);
+			hits.incrementAndGet();
+			return layer;
+		}
+		misses.incrementAndGet();
+		return null;
+
+	}
+
+	static synchronized void put(Layer layer) {
+
+		remove(layer.view);
+		layer.view.layer = layer;
+		layers.put(layer, layer);
+		bytesHeld += layer.bytes;
+
+		Iterator<Layer> oldest = layers.keySet().iterator();
+		while(bytesHeld > BUDGET && oldest.hasNext()) {
+			Layer evicted = oldest.next();
+			oldest.remove();
+			evicted.view.layer = null;
+			bytesHeld -= evicted.bytes;
+			evictions.incrementAndGet();
+		}
+
+	}
+
+	// Drops the layers of the given view and all of its ancestors, since they all
+	// contain the view's pixels. Until some view has asked for a layer, there's nothing to do.
+	static void invalidateFrom(View view) {
+
+		if(!requested) return;
+		synchronized(LayerCache.class) {
+			for(View v = view; v != null; v = v.getParent()) {
+				v.unchangedSinceLastPaint = false;
+				if(remove(v)) invalidations.incrementAndGet();
+			}
+		}
+
+	}
+
+	// Drops the layers of the given view and all of its descendants, so that a subtree
+	// that leaves its window isn't held here until its layers are evicted.
+	static void removeTree(View view) {
+
+		if(!requested) return;
+		synchronized(LayerCache.class) {
+			remove(view);
+		}
+		for(View child : view.get(View.children)) removeTree(child);
+
+	}
+
+	private static boolean remove(View view) {
+
+		Layer layer = view.layer;
+		if(layer == null) return false;
+		view.layer = null;
+		if(layers.remove(layer) != null) bytesHeld -= layer.bytes;
+		return true;
+
+	}
+
+	/////////////////////////////////////////////////////////////////////////
+	// Metrics
+	/////////////////////////////////////////////////////////////////////////
+
+	public static long getHits() { return hits.get(); }
+	public static long getMisses() { return misses.get(); }
+	public static long getInvalidations() { return invalidations.get(); }
+	public static long getEvictions() { return evictions.get(); }
+	public static synchronized long getBytesHeld() { return bytesHeld; }
+	public static synchronized int getLayerCount() { return layers.size(); }
+
+	public static void resetCounts() {
+
+		hits.set(0);
+		misses.set(0);
+		invalidations.set(0);
+		evictions.set(0);
+
+	}
+
+	public static String getReport() {
+
+		long h = hits.get(), m = misses.get();
+		return "Layer cache: " + (ENABLED ? getLayerCount() + " layers holding " + (getBytesHeld() / 1024) + " KB of " + (BUDGET / 1024) + " KB" : "off") + ", " + 
+			h + " hits, " + m + " misses (" + (h + m == 0 ? 0 : (100 * h / (h + m))) + "% hit), " + 
+			invalidations.get() + " invalidations, " + evictions.get() + " evictions";
+
+	}
+
+}
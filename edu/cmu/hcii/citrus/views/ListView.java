@@ -45,11 +45,11 @@ public class ListView extends GroupView {
 
 		((List)get(model)).insertAfterIndexOverTime(index, elementToInsert, t);
 		View firstView = elementToInsert.getFirstView();
-		if(firstView == null) return new Bool(true);
+		if(firstView == null) return Bool.valueOf(true);
 		View firstFocusable = firstView.getDeepestFocusableAncestor(true);
-		if(firstFocusable == null) return new Bool(true);
+		if(firstFocusable == null) return Bool.valueOf(true);
 		firstFocusable.requestKeyboardFocus("previous");
-		return new Bool(true);
+		return Bool.valueOf(true);
 		
 	}
 
@@ -58,13 +58,13 @@ public class ListView extends GroupView {
 		// Before or after is determined by the the bilateral view's state
 		((List)get(model)).insertAfterIndex(index, elementToInsert);
 		Property p = elementToInsert.getProperty(propertyName);
-		if(p == null) return new Bool(true);
+		if(p == null) return Bool.valueOf(true);
 		View firstView = p.getFirstView();
-		if(firstView == null) return new Bool(true);
+		if(firstView == null) return Bool.valueOf(true);
 		View firstFocusable = firstView.getDeepestFocusableAncestor(true);
-		if(firstFocusable == null) return new Bool(true);
+		if(firstFocusable == null) return Bool.valueOf(true);
 		firstFocusable.requestKeyboardFocus("previous");
-		return new Bool(true);
+		return Bool.valueOf(true);
 		
 	}
 
@@ -94,7 +94,7 @@ public class ListView extends GroupView {
 //		caretIndex.is(new Boundary(new Int(0), false));
 //	}
 //	
-//	public static final Dec<Bool> vertical = new Dec<Bool>(new Bool(true));
+//	public static final Dec<Bool> vertical = new Dec<Bool>(Bool.valueOf(true));
 //
 //	public static final Dec<Paint> caretPaint = new Dec<Paint>(
 //			"(a LinePaint " +
@@ -160,7 +160,7 @@ public class ListView extends GroupView {
 //	public Bool focusOnFocusableItem(Bool direction) {
 //
 //		// If this has focus, let someone else get focus.
-//		if(hasKeyboardFocus().value) return new Bool(false);
+//		if(hasKeyboardFocus().value) return Bool.valueOf(false);
 //		
 //		// Otherwise, use the current index and the list to determine what to focus on.
 //		View childWithFocus = childWithFocus();
@@ -184,11 +184,11 @@ public class ListView extends GroupView {
 //		}
 //		
 //		// If there is no focusable view, don't handle this.
-//		if(focusableView == null) return new Bool(false);
+//		if(focusableView == null) return Bool.valueOf(false);
 //		// Focus on the view!
 //		getWindow().focusOn(focusableView, direction.value ? "next" : "previous");
 //		set(caretIndex, newIndex);		
-//		return new Bool(true);
+//		return Bool.valueOf(true);
 //				
 //	}
 //
@@ -65,7 +65,7 @@ public class Rectangle extends BootElement<Rectangle> {
 		
 	}
 	
-	public Bool isEquivalentTo(Element<?> o) { return new Bool(o instanceof Rectangle && ((Rectangle)o).value.equals(value)); }
+	public Bool isEquivalentTo(Element<?> o) { return Bool.valueOf(o instanceof Rectangle && ((Rectangle)o).value.equals(value)); }
 
 
 }
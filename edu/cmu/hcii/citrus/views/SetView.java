@@ -33,9 +33,9 @@ public class SetView extends GroupView {
 	// An expression that takes two arguments and chooses one.
 	public static final Dec<Element<Bool>> comparator = new Dec<Element<Bool>>();
 	// The order in which to place the set elements.
-	public static final Dec<Bool> direction = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> direction = new Dec<Bool>(Bool.valueOf(true));
 
-	public static final Dec<Bool> referenceViewsOnly = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> referenceViewsOnly = new Dec<Bool>(Bool.valueOf(false));
 
 	public SetView() { this(null, null); }
 	public SetView(ArgumentList arguments) { this(null, arguments); }
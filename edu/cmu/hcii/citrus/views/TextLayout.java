@@ -35,7 +35,7 @@ public class TextLayout extends BaseElement<TextLayout> implements Iterable<Text
     public static final Text CENTERED = new Text("centered");
     public static final Text RIGHT_JUSTIFIED = new Text("right-justified");
 
-	public static final Dec<Bool> fitToWidth = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> fitToWidth = new Dec<Bool>(Bool.valueOf(false));
 	public static final Dec<Text> horizontalAlignment = new Dec<Text>(LEFT_JUSTIFIED);
 	public static final Dec<Real> hangingIndentation = new Dec<Real>(new Real(0.0));
 	// Store the right and bottom edges of the text layout, so that tiles can constrain to the text
@@ -79,6 +79,6 @@ public class Transform extends BootElement<Transform> {
 		
 	}
 	
-	public Bool isEquivalentTo(Element<?> o) { return new Bool(o instanceof Transform && ((Transform)o).value.equals(value)); }
+	public Bool isEquivalentTo(Element<?> o) { return Bool.valueOf(o instanceof Transform && ((Transform)o).value.equals(value)); }
 	
 }
@@ -26,6 +26,7 @@ package edu.cmu.hcii.citrus.views;
 import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
 import java.awt.geom.*;
+import java.awt.image.BufferedImage;
 import java.util.Vector;
 
 import edu.cmu.hcii.citrus.*;
@@ -81,21 +82,25 @@ public class View extends BaseElement<View> implements Listener<Element> {
 	// ///////////////////////////////////////////
 
 	// Whether or not this tile's children are clipped when painting.
-	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(true));
 
 	// Whether or not this tile is hidden
-	public static final Dec<Bool> hidden = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> hidden = new Dec<Bool>(Bool.valueOf(false));
 
 	// Whether or not this tile is allowed to obtain keyboard focus.
-	public static final Dec<Bool> focusable = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> focusable = new Dec<Bool>(Bool.valueOf(false));
+
+	// Whether this tile and its children are painted once into an offscreen layer,
+	// and copied from there until something in the subtree changes. See LayerCache.
+	public static final Dec<Bool> cachesLayer = new Dec<Bool>(Bool.valueOf(false));
 
 	// Whether this tile and its children are "hoisted" (painted above its
 	// ancestors and siblings).
-	public static final Dec<Bool> hoisted = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> hoisted = new Dec<Bool>(Bool.valueOf(false));
 
 	// Whether this tile reacts to events. Put a constraint on it to make it
 	// depend on other state.
-	public static final Dec<Bool> enabled = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> enabled = new Dec<Bool>(Bool.valueOf(true));
 
 	// ///////////////////////////////////////////
 	// Tile geometry
@@ -265,10 +270,10 @@ public class View extends BaseElement<View> implements Listener<Element> {
 	static {
 
 		// Parent, clip, and the two transforms aren't overridable
-		parent.set(Dec.isOverridable, new Bool(false));
-		clip.set(Dec.isOverridable, new Bool(false));
-		contentTransform.set(Dec.isOverridable, new Bool(false));
-		cumulativeTransform.set(Dec.isOverridable, new Bool(false));
+		parent.set(Dec.isOverridable, Bool.valueOf(false));
+		clip.set(Dec.isOverridable, Bool.valueOf(false));
+		contentTransform.set(Dec.isOverridable, Bool.valueOf(false));
+		cumulativeTransform.set(Dec.isOverridable, Bool.valueOf(false));
 
 		transparency.is(new PropertyRestriction("(transparency >= 0.0)", "0.0"));
 		transparency.is(new PropertyRestriction("(transparency <= 1.0)", "1.0"));
@@ -298,6 +303,16 @@ public class View extends BaseElement<View> implements Listener<Element> {
 
 	public long paintIdentity = 0;
 
+	// When a window with a spatial index repairs damage, it stamps the views that
+	// intersect the damage and their ancestors, and passes the stamp down as it paints,
+	// so that painting skips any child that wasn't stamped. Zero means every child is painted.
+	int paintStamp = 0;
+
+	// This tile's cached layer, if it caches one and the layer is still good, and
+	// whether nothing in its subtree has changed since it was last painted.
+	LayerCache.Layer layer = null;
+	boolean unchangedSinceLastPaint = false;
+
 	// If hoisted changes, we asked the tile's window to hoist or unhoist this
 	// tile.
 	private ListenerAdapter<Bool> hoistedListener = new ListenerAdapter<Bool>() {
@@ -323,6 +338,12 @@ public class View extends BaseElement<View> implements Listener<Element> {
 			if (((Element) newValue).isNothing().value
 					&& ((Element) oldValue).isSomething().value) {
 
+				// This tile and its children are no longer in the old parent's window.
+				Window oldWindow = ((View) oldValue).getWindow();
+				if (oldWindow != null)
+					oldWindow.unindex(View.this);
+				LayerCache.invalidateFrom((View) oldValue);
+
 				// Get the window and post the damage.
 				View oldParent = ((View) oldValue).getParent();
 				if (oldParent != null) {
@@ -345,6 +366,8 @@ public class View extends BaseElement<View> implements Listener<Element> {
 			else if (((Element)oldValue).isNothing().value
 					&& ((Element) newValue).isSomething().value) {
 
+				LayerCache.invalidateFrom((View) newValue);
+
 				// Get the window and post the damage.
 				Window w = ((View) newValue).getWindow();
 				if (w != null) {
@@ -517,6 +540,25 @@ public class View extends BaseElement<View> implements Listener<Element> {
 	//
 	// ///////////////////////////////////////////////////////////////////
 
+	// When this tile gets an owner inside of a window, that window indexes this tile and
+	// its descendants, since they may never post damage of their own. When it loses its
+	// owner, we drop the cached layers of this tile and its descendants.
+	protected void setPropertyOwner(Property p) {
+
+		super.setPropertyOwner(p);
+		if (p == null)
+			LayerCache.removeTree(this);
+		else if (Window.SPATIAL_INDEX) {
+			Element<?> owner = p.getElementOwner();
+			if (owner != null && !(owner instanceof View))
+				owner = owner.ownerOfType(Reflection.getJavaType(View.class));
+			Window w = owner == null ? null : ((View) owner).getWindow();
+			if (w != null)
+				w.indexLater(this);
+		}
+
+	}
+
 	// Search up the parent hierarchy for the window. This method may return
 	// null,
 	// indicating that this tile is not in a window (has no parent). Therefore,
@@ -565,10 +607,10 @@ public class View extends BaseElement<View> implements Listener<Element> {
 		View par = getParent();
 		while (par != null) {
 			if (par == t)
-				return new Bool(true);
+				return Bool.valueOf(true);
 			par = par.getParent();
 		}
-		return new Bool(false);
+		return Bool.valueOf(false);
 
 	}
 
@@ -672,7 +714,7 @@ public class View extends BaseElement<View> implements Listener<Element> {
 
 		View par = getParent();
 		if (par == null)
-			return new Bool(false);
+			return Bool.valueOf(false);
 		else {
 			Window w = getWindow();
 			if (w != null)
@@ -921,7 +963,7 @@ public class View extends BaseElement<View> implements Listener<Element> {
 			if (b.reactTo(event, this))
 				return Bool.TRUE;
 		}
-		return new Bool(reacted);
+		return Bool.valueOf(reacted);
 
 	}
 
@@ -929,8 +971,8 @@ public class View extends BaseElement<View> implements Listener<Element> {
 
 		for (Behavior b : get(behaviors))
 			if (b.reactsTo(event).value)
-				return new Bool(true);
-		return new Bool(false);
+				return Bool.valueOf(true);
+		return Bool.valueOf(false);
 
 	}
 
@@ -993,6 +1035,14 @@ public class View extends BaseElement<View> implements Listener<Element> {
 
 	public void paint(Graphics2D g, boolean drawHoistedTiles) {
 
+		paint(g, drawHoistedTiles, 0, null);
+
+	}
+
+	// Tiles paint in global coordinates. While painting into a cached layer, the device
+	// transform maps global coordinates onto the layer's image; otherwise it's null.
+	void paint(Graphics2D g, boolean drawHoistedTiles, int paintStampToPaint, AffineTransform deviceTransform) {
+
 		numCalls++;
 
 		// If this
@@ -1036,10 +1086,25 @@ public class View extends BaseElement<View> implements Listener<Element> {
 		// we can stop painting. We have to untransform the context first, to
 		// get the clip
 		// into global coordinates.
-		g.setTransform(new AffineTransform());
-		if (clipChildren && !paintedBoundaries.intersects(g.getClipBounds()))
+		setTransform(g, new AffineTransform(), deviceTransform);
+		java.awt.Rectangle clipBounds = g.getClipBounds();
+		if (clipChildren && clipBounds != null && !paintedBoundaries.intersects(clipBounds))
 			return;
-		g.setTransform(parentsTransform);
+
+		// If this tile caches its subtree, copy the layer instead of painting it,
+		// unless we're already painting into a layer. Most views never set
+		// cachesLayer, so we don't make its property just to learn it's false.
+		if (deviceTransform == null && LayerCache.ENABLED && !hasOnlyDefault(cachesLayer) && bool(cachesLayer)
+				&& paintFromLayer(g, drawHoistedTiles))
+			return;
+
+		setTransform(g, parentsTransform, deviceTransform);
+
+		// If this tile's own paint falls outside of the clip, we skip its paints, but
+		// still visit its children, since they may paint outside of this tile. Empty
+		// boundaries may not have been computed yet, so we paint those anyway.
+		boolean paintsInClip = clipBounds == null || paintedBoundaries.isEmpty()
+				|| paintedBoundaries.intersects(clipBounds);
 
 		// Translate by the offset.
 		g.translate(-ox, -oy);
@@ -1050,8 +1115,9 @@ public class View extends BaseElement<View> implements Listener<Element> {
 				(float) getVisible(transparency) * oldComposite.getAlpha()));
 
 		// Paint the background layer.
-		for (Paint paint : get(background))
-			paint.paint(g, this, l, t, r, b);
+		if (paintsInClip)
+			for (Paint paint : get(background))
+				paint.paint(g, this, l, t, r, b);
 
 		// Save the old clip before clipping the children.
 		java.awt.Shape oldClip = g.getClip();
@@ -1062,20 +1128,22 @@ public class View extends BaseElement<View> implements Listener<Element> {
 		// Draw the content paint layer
 		double visibleScale = getVisible(scale);
 		g.scale(visibleScale, visibleScale);
-		for (Paint paint : get(content))
-			paint.paint(g, this, vcl / visibleScale, vct / visibleScale, vcr
-					/ visibleScale, vcb / visibleScale);
+		if (paintsInClip)
+			for (Paint paint : get(content))
+				paint.paint(g, this, vcl / visibleScale, vct / visibleScale, vcr
+						/ visibleScale, vcb / visibleScale);
 
 		// Apply this tile's transform onto the children.
-		g.setTransform((getPropertyByDeclaration(cumulativeTransform))
-				.getVisible().value);
+		setTransform(g, (getPropertyByDeclaration(cumulativeTransform))
+				.getVisible().value, deviceTransform);
 
 		// Paint each child, first to last
 		for (View child : get(children))
-			child.paint(g, drawHoistedTiles);
+			if (paintStampToPaint == 0 || child.paintStamp == paintStampToPaint)
+				child.paint(g, drawHoistedTiles, paintStampToPaint, deviceTransform);
 
 		// Restore the old transform.
-		g.setTransform(parentsTransform);
+		setTransform(g, parentsTransform, deviceTransform);
 
 		// Now we translate the origin back to paint the foreground.
 		g.translate(-ox, -oy);
@@ -1084,13 +1152,14 @@ public class View extends BaseElement<View> implements Listener<Element> {
 		g.setClip(oldClip);
 
 		// Paint the foreground on top of the children's paint.
-		for (Paint p : get(foreground))
-			p.paint(g, this, l, t, r, b);
+		if (paintsInClip)
+			for (Paint p : get(foreground))
+				p.paint(g, this, l, t, r, b);
 
 		// Paint some debugging paint
 		if (Debug.boundaries()) {
 			AffineTransform at = g.getTransform();
-			g.setTransform(new AffineTransform());
+			setTransform(g, new AffineTransform(), deviceTransform);
 			g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER,
 					.5f));
 			g.setColor(java.awt.Color.green);
@@ -1107,7 +1176,84 @@ public class View extends BaseElement<View> implements Listener<Element> {
 		g.setClip(oldClip);
 
 		// Restore the original transform
+		setTransform(g, getParentsVisibleCumulativeTransform(), deviceTransform);
+
+	}
+
+	private static void setTransform(Graphics2D g, AffineTransform transform, AffineTransform deviceTransform) {
+
+		if (deviceTransform == null)
+			g.setTransform(transform);
+		else {
+			g.setTransform(deviceTransform);
+			g.transform(transform);
+		}
+
+	}
+
+	// Copies this tile's cached layer into the graphics context, painting the
+	// layer first if it's missing or out of date. Returns false if the layer
+	// can't be cached, in which case the caller should paint normally.
+	private boolean paintFromLayer(Graphics2D g, boolean drawHoistedTiles) {
+
+		java.awt.Rectangle key = LayerCache.deviceBoundsOf(paintedBoundaries);
+		LayerCache.Layer cached = LayerCache.get(this, paintIdentity, key);
+		if (cached == null) {
+
+			// Only paint a layer once the subtree has stayed the same from one
+			// repair to the next, so that animating subtrees don't paint a layer
+			// every frame that's never reused.
+			if (!unchangedSinceLastPaint) {
+				unchangedSinceLastPaint = true;
+				return false;
+			}
+
+			// Children may paint outside of this tile's own painted boundaries, so the
+			// layer has to cover the whole subtree.
+			java.awt.Rectangle bounds = LayerCache.deviceBoundsOf(getSubtreePaintedBoundaries());
+			if (!LayerCache.fits(bounds))
+				return false;
+
+			BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB_PRE);
+			Graphics2D layerGraphics = image.createGraphics();
+			layerGraphics.setRenderingHints(g.getRenderingHints());
+			layerGraphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
+
+			// Paint the whole subtree, in global coordinates, offset onto the image.
+			AffineTransform device = AffineTransform.getTranslateInstance(-bounds.x, -bounds.y);
+			layerGraphics.setTransform(device);
+			layerGraphics.setClip(bounds);
+			try {
+				paint(layerGraphics, drawHoistedTiles, 0, device);
+			} finally {
+				layerGraphics.dispose();
+			}
+
+			cached = new LayerCache.Layer(this, paintIdentity, key, bounds, image);
+			LayerCache.put(cached);
+
+		}
+
+		// The context is untransformed, so the layer lands on the pixels it was painted for.
+		g.drawImage(cached.image, cached.bounds.x, cached.bounds.y, null);
 		g.setTransform(getParentsVisibleCumulativeTransform());
+		return true;
+
+	}
+
+	// The union of the painted boundaries of this tile and its visible descendants.
+	// Children's painted boundaries are already clipped by their parents' clips.
+	private Rectangle2D getSubtreePaintedBoundaries() {
+
+		Rectangle2D bounds = (Rectangle2D) paintedBoundaries.clone();
+		for (View child : get(children)) {
+			if (!child.isHidden()) {
+				Rectangle2D childBounds = child.getSubtreePaintedBoundaries();
+				if (!childBounds.isEmpty())
+					bounds.add(childBounds);
+			}
+		}
+		return bounds;
 
 	}
 
@@ -1122,7 +1268,7 @@ public class View extends BaseElement<View> implements Listener<Element> {
 	public Bool contains(Point2D point) {
 
 		Point2D localPoint = globalToLocal(point);
-		return new Bool(get(shape).contains(getVisible(left), getVisible(top),
+		return Bool.valueOf(get(shape).contains(getVisible(left), getVisible(top),
 				getVisible(right), getVisible(bottom), localPoint.getX(),
 				localPoint.getY()));
 
@@ -1130,7 +1276,7 @@ public class View extends BaseElement<View> implements Listener<Element> {
 	
 	public Bool containsLocalPoint(Point point) {
 		
-		return new Bool(get(shape).contains(getVisible(left), getVisible(top),
+		return Bool.valueOf(get(shape).contains(getVisible(left), getVisible(top),
 				getVisible(right), getVisible(bottom), point.getX(),
 				point.getY()));
 		
@@ -1317,6 +1463,25 @@ public class View extends BaseElement<View> implements Listener<Element> {
 
 	}
 
+	// The global rectangle a window's spatial index should file this tile under:
+	// its painted boundaries, plus the global bounds of its shape, which is what
+	// contains() tests. Hidden tiles can't be painted or picked, so they get nothing.
+	Rectangle2D getIndexedBoundaries() {
+
+		if (isHidden())
+			return null;
+
+		Rectangle2D bounds = new Rectangle2D.Double(getVisible(left), getVisible(top),
+				getVisible(right) - getVisible(left), getVisible(bottom) - getVisible(top));
+		AffineTransform transform = getParentsCumulativeTransform();
+		if (transform != null)
+			bounds = transform.createTransformedShape(bounds).getBounds2D();
+		if (!paintedBoundaries.isEmpty())
+			bounds.add(paintedBoundaries);
+		return bounds;
+
+	}
+
 	// Reports this tile's old and new painted boundaries if the tile
 	// is inside of a window. If damage has already been reported,
 	// we don't report it.
@@ -1350,6 +1515,8 @@ public class View extends BaseElement<View> implements Listener<Element> {
 
 		// Compute the new paint boundaries
 		Rectangle2D newDamage = computePaintedBoundaries();
+		win.reindex(this);
+		LayerCache.invalidateFrom(this);
 
 		// Did the identity change?
 //		if (oldPaintIdentity == paintIdentity) {
@@ -1516,9 +1683,9 @@ public class View extends BaseElement<View> implements Listener<Element> {
 
 		Window w = getWindow();
 		if (w == null)
-			return new Bool(false);
+			return Bool.valueOf(false);
 		else
-			return new Bool(w.isFocusedOn(this));
+			return Bool.valueOf(w.isFocusedOn(this));
 
 	}
 
@@ -2241,7 +2408,7 @@ public class View extends BaseElement<View> implements Listener<Element> {
 	}
 
 	public Bool undo() {
-		return new Bool(Behavior.undo());
+		return Bool.valueOf(Behavior.undo());
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,286 @@
+/*
+ * 
+ * Citrus - A object-oriented, interpreted language that is designed to simplify 
+ * the creation of dynamic, immediate feedback graphical desktop applications.
+ * 
+ * Copyright (c) 2005 Andrew Jensen Ko
+ * All rights reserved.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package edu.cmu.hcii.citrus.views;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Vector;
+
+// A uniform grid over the global boundaries of the views in a window, so that picking
+// and repairing damage only visit the views near a point or a damaged rectangle, rather
+// than every view in the window. Each view's entry covers both its painted boundaries
+// and the global bounds of its shape, and is kept current by postDamage(), which is the
+// only place a view's painted boundaries change. Views that join a window are indexed
+// along with their whole subtree before the window next picks or repairs, since views
+// in a subtree added in one step may never post damage of their own.
+final class ViewIndex {
+
+	// The width and height of each grid cell, in pixels.
+	static final int CELL_SIZE = Math.max(8, Integer.getInteger("citrus.spatialIndexCellSize", 64));
+
+	// Views covering more than this many cells are kept in a separate list that every
+	// query checks, rather than being added to every cell they cover.
+	private static final int MAXIMUM_CELLS_PER_VIEW = 64;
+
+	private static final class Entry {
+
+		final Rectangle2D bounds = new Rectangle2D.Double();
+		int minColumn, minRow, maxColumn, maxRow;
+		boolean large;
+
+	}
+
+	private final IdentityHashMap<View, Entry> entries = new IdentityHashMap<View, Entry>();
+	private final HashMap<Long, ArrayList<View>> cells = new HashMap<Long, ArrayList<View>>();
+	private final ArrayList<View> largeViews = new ArrayList<View>();
+
+	// Incremented each time we mark the views that a repair needs to visit.
+	private int paintStamp = 0;
+
+	// Cells are keyed by column and row. Multiplying the row by an odd constant scrambles it
+	// without losing it, so that the key's hash doesn't collide along the grid's diagonals.
+	private static long keyFor(int column, int row) { return ((long)column << 32) | ((row * 0x9E3779B1) & 0xffffffffL); }
+	private static int cellFor(double coordinate) { return (int)Math.floor(coordinate / CELL_SIZE); }
+
+	public synchronized int size() { return entries.size(); }
+
+	// Records the view's new boundaries, moving it between cells if necessary.
+	public synchronized void update(View view, Rectangle2D bounds) {
+
+		if(bounds == null || bounds.isEmpty()) {
+			remove(view);
+			return;
+		}
+
+		int minColumn = cellFor(bounds.getMinX()), maxColumn = cellFor(bounds.getMaxX());
+		int minRow = cellFor(bounds.getMinY()), maxRow = cellFor(bounds.getMaxY());
+		boolean large = (long)(maxColumn - minColumn + 1) * (maxRow - minRow + 1) > MAXIMUM_CELLS_PER_VIEW;
+
+		Entry entry = entries.get(view);
+		if(entry != null && entry.large == large && (large || 
+			(entry.minColumn == minColumn && entry.maxColumn == maxColumn && entry.minRow == minRow && entry.maxRow == maxRow))) {
+			entry.bounds.setRect(bounds);
+			return;
+		}
+
+		if(entry != null) removeFromCells(view, entry);
+		else {
+			entry = new Entry();
+			entries.put(view, entry);
+		}
+
+		entry.bounds.setRect(bounds);
+		entry.minColumn = minColumn; entry.maxColumn = maxColumn;
+		entry.minRow = minRow; entry.maxRow = maxRow;
+		entry.large = large;
+
+		if(large) largeViews.add(view);
+		else {
+			for(int column = minColumn; column <= maxColumn; column++) {
+				for(int row = minRow; row <= maxRow; row++) {
+					Long key = keyFor(column, row);
+					ArrayList<View> cell = cells.get(key);
+					if(cell == null) {
+						cell = new ArrayList<View>(4);
+						cells.put(key, cell);
+					}
+					cell.add(view);
+				}
+			}
+		}
+
+	}
+
+	// Forgets the view and all of its descendants.
+	public synchronized void removeTree(View view) {
+
+		remove(view);
+		for(View child : view.get(View.children)) removeTree(child);
+
+	}
+
+	private void remove(View view) {
+
+		Entry entry = entries.remove(view);
+		if(entry != null) removeFromCells(view, entry);
+
+	}
+
+	private void removeFromCells(View view, Entry entry) {
+
+		if(entry.large) largeViews.remove(view);
+		else {
+			for(int column = entry.minColumn; column <= entry.maxColumn; column++) {
+				for(int row = entry.minRow; row <= entry.maxRow; row++) {
+					Long key = keyFor(column, row);
+					ArrayList<View> cell = cells.get(key);
+					if(cell != null) {
+						cell.remove(view);
+						if(cell.isEmpty()) cells.remove(key);
+					}
+				}
+			}
+		}
+
+	}
+
+	/////////////////////////////////////////////////////////////////////
+	//
+	// Picking
+	//
+	/////////////////////////////////////////////////////////////////////
+
+	// Adds the views in the given window that contain the point, in the same order as
+	// View.whichViewsContain(): deepest first, and later siblings before earlier ones.
+	// A view qualifies if it contains the point and isn't hidden, and none of its
+	// ancestors are hidden or clip their children without containing the point.
+	public synchronized void whichViewsContain(Window window, Point2D point, Vector<View> views) {
+
+		if(window.bool(View.hidden) || (window.bool(View.clipsChildren) && !window.contains(point).value)) return;
+
+		ArrayList<View> candidates = new ArrayList<View>();
+		ArrayList<View> cell = cells.get(keyFor(cellFor(point.getX()), cellFor(point.getY())));
+		if(cell != null) candidates.addAll(cell);
+		candidates.addAll(largeViews);
+
+		// Whether each ancestor we've checked lets its descendants be picked, so that 
+		// siblings don't check the same ancestors over and over.
+		IdentityHashMap<View, Boolean> ancestorsChecked = new IdentityHashMap<View, Boolean>();
+		ancestorsChecked.put(window, Boolean.TRUE);
+
+		final IdentityHashMap<View, int[]> paths = new IdentityHashMap<View, int[]>();
+		ArrayList<View> picked = new ArrayList<View>();
+		for(View view : candidates) {
+
+			if(!covers(entries.get(view).bounds, point)) continue;
+			if(view.bool(View.hidden) || !view.contains(point).value) continue;
+
+			// Check the ancestors. If we don't reach this window, the view has left it.
+			View ancestor = view.getParent();
+			ArrayList<View> unchecked = new ArrayList<View>();
+			while(ancestor != null && !ancestorsChecked.containsKey(ancestor)) {
+				unchecked.add(ancestor);
+				ancestor = ancestor.getParent();
+			}
+			if(ancestor == null) {
+				remove(view);
+				continue;
+			}
+			boolean qualifies = ancestorsChecked.get(ancestor);
+			for(int i = unchecked.size() - 1; i >= 0; i--) {
+				View a = unchecked.get(i);
+				if(qualifies) qualifies = !a.bool(View.hidden) && (!a.bool(View.clipsChildren) || a.contains(point).value);
+				ancestorsChecked.put(a, qualifies);
+			}
+
+			if(qualifies) {
+				picked.add(view);
+				paths.put(view, pathTo(view));
+			}
+
+		}
+
+		// Order the views the way a traversal of the tree would have found them.
+		Collections.sort(picked, new Comparator<View>() {
+			public int compare(View a, View b) {
+				int[] pathA = paths.get(a), pathB = paths.get(b);
+				for(int i = 0; i < pathA.length && i < pathB.length; i++)
+					if(pathA[i] != pathB[i]) return pathB[i] - pathA[i];
+				return pathB.length - pathA.length;
+			}
+		});
+		views.addAll(picked);
+
+		if(window.contains(point).value) views.add(window);
+
+	}
+
+	// Like Rectangle2D.contains(), but including the right and bottom edges, as shapes do.
+	private static boolean covers(Rectangle2D bounds, Point2D point) {
+
+		return point.getX() >= bounds.getMinX() && point.getX() <= bounds.getMaxX() &&
+			point.getY() >= bounds.getMinY() && point.getY() <= bounds.getMaxY();
+
+	}
+
+	// The position of each of the view's ancestors among its siblings, from the root down.
+	private static int[] pathTo(View view) {
+
+		int depth = 0;
+		for(View v = view; v.getParent() != null; v = v.getParent()) depth++;
+		int[] path = new int[depth];
+		for(View v = view; v.getParent() != null; v = v.getParent())
+			path[--depth] = v.getParent().get(View.children).indexOf(v).value;
+		return path;
+
+	}
+
+	/////////////////////////////////////////////////////////////////////
+	//
+	// Repairing
+	//
+	/////////////////////////////////////////////////////////////////////
+
+	// Stamps every view whose boundaries intersect the area, and all of their ancestors, 
+	// so that painting can skip the subtrees that have nothing to paint there. Returns the stamp.
+	public synchronized int markViewsIntersecting(Rectangle2D area) {
+
+		paintStamp++;
+		if(paintStamp == 0) paintStamp = 1;
+
+		int minColumn = cellFor(area.getMinX()), maxColumn = cellFor(area.getMaxX());
+		int minRow = cellFor(area.getMinY()), maxRow = cellFor(area.getMaxY());
+
+		// If the area covers more cells than we have, it's faster to check every view.
+		if((long)(maxColumn - minColumn + 1) * (maxRow - minRow + 1) > cells.size()) {
+			for(View view : entries.keySet()) mark(view, area);
+		}
+		else {
+			for(int column = minColumn; column <= maxColumn; column++) {
+				for(int row = minRow; row <= maxRow; row++) {
+					ArrayList<View> cell = cells.get(keyFor(column, row));
+					if(cell != null) for(View view : cell) mark(view, area);
+				}
+			}
+			for(View view : largeViews) mark(view, area);
+		}
+
+		return paintStamp;
+
+	}
+
+	private void mark(View view, Rectangle2D area) {
+
+		if(view.paintStamp == paintStamp || !entries.get(view).bounds.intersects(area)) return;
+		for(View v = view; v != null && v.paintStamp != paintStamp; v = v.getParent())
+			v.paintStamp = paintStamp;
+
+	}
+
+}
@@ -61,6 +61,18 @@ public class Window extends View {
 
     // The buffer that we'll paint to and then paint to screen.
     private BufferedImage buffer;
+
+    // When the application is pipelined, the worker copies each repaired area of the buffer
+    // into this image, which is the only one the AWT thread reads from. The areas copied
+    // since the screen was last updated, how many frames they came from, and the oldest
+    // input they reflect wait here until the AWT thread copies them to the canvas.
+    private BufferedImage presentedBuffer;
+    private final Object presentation = new Object();
+    private LinkedList<Rectangle2D> areasToPresent = new LinkedList<Rectangle2D>();
+    private Rectangle2D areaToPresent = null;
+    private int framesToPresent = 0;
+    private long inputToPresent = 0;
+    private long lastPresented = 0;
     
 	// The tiles currently hoisted above their containers. These are paint last,
 	// get events first, and aren't clipped.
@@ -71,16 +83,28 @@ public class Window extends View {
 
 	// Clusters of damage
 	private LinkedList<Rectangle2D> damagedAreas;
+
+	// An optional grid of the views in this window, for picking and repairing
+	// damage without visiting every view. Turn it on with -Dcitrus.spatialIndex=true.
+	public static final boolean SPATIAL_INDEX = Boolean.getBoolean("citrus.spatialIndex");
+	private final ViewIndex index = SPATIAL_INDEX ? new ViewIndex() : null;
+	private final Vector<View> subtreesToIndex = new Vector<View>();
     
 	// The JFrame
 	protected JFrame frame;
 
+	// Without a display there's no frame or canvas, and the window paints into an image
+	// of its size that is never shown, for benchmarks and tests. Set -Dcitrus.headless=true
+	// to get the same even with a display. See FrameHarness.
+	public static final boolean HEADLESS = Boolean.getBoolean("citrus.headless") || GraphicsEnvironment.isHeadless();
+	private int headlessWidth, headlessHeight;
+
 	// The keyboard focus in this window.
 	public static final String FOCUS = "focus";
 	public static final String LASTFOCUS = "lastFocus";
 	
 	public static final Dec<Int> blinkRate = new Dec(new Int(600));
-	public static final Dec<Bool> paintCaret = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> paintCaret = new Dec<Bool>(Bool.valueOf(true));
 	private long lastFocusChange = 0;
 
 	// The keyboard focus is the tile that is currently receiving keyboard events
@@ -119,8 +143,9 @@ public class Window extends View {
 				
 			}
 
-			// If the new focus is not null, set the blinker
-			if(newFocus != null && caretBlinkTimer == null) {
+			// If the new focus is not null, set the blinker. Headless windows don't blink 
+			// on their own, so that runs are repeatable; scripts can enqueue App.blinkCaret.
+			if(newFocus != null && caretBlinkTimer == null && !HEADLESS) {
 				caretBlinkTimer = new Timer(true);
 				caretBlinkTimer.scheduleAtFixedRate(new TimerTask() { public void run() {
 					if(System.currentTimeMillis() - lastFocusChange > 500)
@@ -143,7 +168,7 @@ public class Window extends View {
 			
 				// Set the paint caret flag to true and have the focus react to the blink
 				lastFocusChange = System.currentTimeMillis();
-				set(paintCaret, new Bool(true));
+				set(paintCaret, Bool.valueOf(true));
 				newFocus.reactTo(App.blinkCaret);
 
 				View par = newFocus.getParent();
@@ -161,7 +186,7 @@ public class Window extends View {
 	};
 
 
-	public static final Dec<Bool> resizable = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> resizable = new Dec<Bool>(Bool.valueOf(true));
 
 	public static final Dec<Real> width = new Dec<Real>(new Real(200.0));
 	public static final Dec<Real> height = new Dec<Real>(new Real(200.0));
@@ -218,6 +243,127 @@ public class Window extends View {
 	}
 
 	protected void init(String title, boolean resizable, int width, int height) {
+
+		if(HEADLESS) initHeadless(width, height);
+		else initFrame(title, resizable, width, height);
+
+		// No damage yet
+		damagedArea = null;
+
+		// Anything that joined before the index existed gets indexed with the rest of the window.
+		indexLater(this);
+
+		// Update the dimensions. 
+		set(Window.width, new Real(width));
+		set(Window.height, new Real(height));
+		
+		get(behaviors).append(new Behavior(App.keyboard.typed, new Action() { public boolean evaluate(View t) {
+				
+			if(App.keyboard.COMMAND.isDown()) {
+				char lastCharacter = App.keyboard.character(Keyboard.lastChar);
+				if(lastCharacter == 'c') {
+					debug("Copying focus");
+					View focus = getFocus();
+					if(focus instanceof ElementView) {
+						
+						Element e = focus.get(ElementView.model);
+						if(e != null) {
+							
+							clipboard = e.duplicate();
+							return true;
+							
+						} debug("Focus has no element");
+						
+					} else debug("Focus is not an element view: " + focus);
+
+				}
+				else if(lastCharacter == 'v') {
+
+					View focus = getFocus();
+					if(focus != null && !(focus instanceof ElementView)) focus = focus.getParent();
+					if(focus instanceof ElementView) {
+						
+						Element duplicate = clipboard.duplicate();
+						debug("Replacing " + ((ElementView)focus).getModel() + " with " + duplicate);
+						((ElementView)focus).getModel().replaceWith(null, duplicate, getStyle().getQuickTransition());
+						return true;
+						
+					} else debug("Focus is not an element view: " + focus);
+					
+				}
+			}
+			return false;
+				
+		}}));
+		
+		getPropertyByDeclaration(focus).addListener(focusChangeListener);
+		
+    }
+
+	// Paints into an image the size of the window, with nothing to show it in.
+	private void initHeadless(int width, int height) {
+
+		headlessWidth = width;
+		headlessHeight = height;
+		buffer = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_RGB);
+		createGraphics();
+
+	}
+
+	// Create a graphics context from the image, and set the anti-aliasing flags for quality.
+	private void createGraphics() {
+
+		graphics = buffer.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+		graphics.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_SPEED);
+		graphics.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED);        
+
+		// Clear the canvas
+		graphics.setBackground(java.awt.Color.black);
+		graphics.clearRect(0, 0, buffer.getWidth(), buffer.getHeight());        
+
+	}
+
+	// A key's input, with the modifiers that AWT reported with it. The worker may not have
+	// handled the input before this one when it makes this into an event, so the keyboard's
+	// own modifier keys may not be down yet.
+	private static abstract class KeyInput extends App.Input {
+
+		final long when;
+		final boolean shift, control, alt, meta;
+
+		KeyInput(KeyEvent e) {
+
+			when = e.getWhen();
+			shift = e.isShiftDown();
+			control = e.isControlDown();
+			alt = e.isAltDown();
+			meta = e.isMetaDown();
+
+		}
+
+	}
+
+	// The mouse's input, with where and when AWT reported it.
+	private static abstract class MouseInput extends App.Input {
+
+		final long when;
+		final int x, y;
+
+		MouseInput(MouseEvent e) {
+
+			when = e.getWhen();
+			x = e.getX();
+			y = e.getY();
+
+		}
+
+	}
+
+	// Creates the frame and canvas, and listens to them for input.
+	private void initFrame(String title, boolean resizable, int width, int height) {
     		
         	// TODO: Dynamic layout doesn't seem to work on Windows.
 		// Turn on dynamic layout during resize.
@@ -228,7 +374,9 @@ public class Window extends View {
         // onto via it's graphics context without calling repaint.
 		canvas = new JComponent() { 
 			public void paint(Graphics g) {
-				repaintCanvas(new Rectangle2D.Double(0, 0, getCanvasWidth(), getCanvasHeight()), null); }};
+				Rectangle2D all = new Rectangle2D.Double(0, 0, getCanvasWidth(), getCanvasHeight());
+				if(App.PIPELINED) synchronized(presentation) { if(presentedBuffer != null) copyToCanvas(presentedBuffer, all, null); }
+				else repaintCanvas(all, null); }};
 		RepaintManager.currentManager(canvas).setDoubleBufferingEnabled(false);		
 		canvas.setMinimumSize(minimumCanvasSize);
 		canvas.setPreferredSize(new Dimension(width, height));
@@ -251,21 +399,9 @@ public class Window extends View {
         	java.awt.Dimension screenSize = java.awt.Toolkit.getDefaultToolkit().getScreenSize();
         	if(frame.isResizable()) buffer = (BufferedImage)canvas.createImage(screenSize.width, screenSize.height);
         	else buffer = (BufferedImage)canvas.createImage(width, height);
+        	if(App.PIPELINED) presentedBuffer = (BufferedImage)canvas.createImage(buffer.getWidth(), buffer.getHeight());
         	
-        	// Create a graphics context from the image, and set the anti-aliasing flags for quality.
-        	graphics = buffer.createGraphics();
-        	graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        	graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-        	graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
-        	graphics.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_SPEED);
-        	graphics.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED);        
-
-        	// Clear the canvas
-        	graphics.setBackground(java.awt.Color.black);
-        	graphics.clearRect(0, 0, screenSize.width, screenSize.height);        
-
-		// No damage yet
-		damagedArea = null;
+        	createGraphics();
 
 		// Note that we add the component listener to this window, and NOT
 		// any other components. This is because we want to be notified of window
@@ -288,8 +424,11 @@ public class Window extends View {
 			public void windowClosing(WindowEvent e) { 
 				
 				if(Debug.window()) System.err.println("WINDOW Closing");
-				App.enqueue(new App.Closing(Window.this, System.currentTimeMillis()));
-				App.remove(Window.this);
+				final long when = System.currentTimeMillis();
+				App.enqueue(new App.Input() { protected Event toEvent() { 
+					App.remove(Window.this);
+					return new App.Closing(Window.this, when);
+				}});
 				
 			}
 			public void windowIconified(WindowEvent e) { if(Debug.window()) System.err.println("WINDOW Iconified"); }
@@ -303,67 +442,72 @@ public class Window extends View {
 			public void windowDeactivated(WindowEvent e) { if(Debug.window()) System.err.println("WINDOW Deactivated"); }
 		});
 
+		// The input listeners only keep what AWT tells them, and make their events in toEvent(),
+		// which the worker calls when pipelined.
 		frame.addKeyListener(new KeyListener() {
 			public void keyTyped(KeyEvent e) { 
 
 				//shift, control, alt, meta
-				App.enqueue(new Keyboard.Typed(Window.this, e.getWhen(), App.keyboard, 
-						new Char(e.getKeyChar()),
-						App.keyboard.SHIFT.get(KeyboardKey.down),
-						App.keyboard.CONTROL.get(KeyboardKey.down),
-						App.keyboard.ALT.get(KeyboardKey.down),
-						App.keyboard.COMMAND.get(KeyboardKey.down))); 
+				final char c = e.getKeyChar();
+				App.enqueue(new KeyInput(e) { protected Event toEvent() {
+					return new Keyboard.Typed(Window.this, when, App.keyboard, 
+						new Char(c), Bool.valueOf(shift), Bool.valueOf(control), Bool.valueOf(alt), Bool.valueOf(meta)); 
+				}});
 				
 			}
 			public void keyPressed(KeyEvent e) { 
-				KeyboardKey key = App.keyboard.getKeyboardKeyByKeycode(e.getKeyCode());
+				final KeyboardKey key = App.keyboard.getKeyboardKeyByKeycode(e.getKeyCode());
 				if(key == null) return;
-				App.enqueue(new Keyboard.Pressed(Window.this, e.getWhen(), 
-						key.get(KeyboardKey.name),
-						App.keyboard.SHIFT.get(KeyboardKey.down),
-						App.keyboard.CONTROL.get(KeyboardKey.down),
-						App.keyboard.ALT.get(KeyboardKey.down),
-						App.keyboard.COMMAND.get(KeyboardKey.down))); 	
+				App.enqueue(new KeyInput(e) { protected Event toEvent() {
+					return new Keyboard.Pressed(Window.this, when, key.get(KeyboardKey.name),
+						Bool.valueOf(shift), Bool.valueOf(control), Bool.valueOf(alt), Bool.valueOf(meta)); 	
+				}});
 			}
 			public void keyReleased(KeyEvent e) { 
-				KeyboardKey key = App.keyboard.getKeyboardKeyByKeycode(e.getKeyCode());
+				final KeyboardKey key = App.keyboard.getKeyboardKeyByKeycode(e.getKeyCode());
 				if(key == null) return;
-				App.enqueue(new Keyboard.Released(Window.this, e.getWhen(), 
-						key.get(KeyboardKey.name),
-						App.keyboard.SHIFT.get(KeyboardKey.down),
-						App.keyboard.CONTROL.get(KeyboardKey.down),
-						App.keyboard.ALT.get(KeyboardKey.down),
-						App.keyboard.COMMAND.get(KeyboardKey.down))); 
+				App.enqueue(new KeyInput(e) { protected Event toEvent() {
+					return new Keyboard.Released(Window.this, when, key.get(KeyboardKey.name),
+						Bool.valueOf(shift), Bool.valueOf(control), Bool.valueOf(alt), Bool.valueOf(meta)); 
+				}});
 			}
 		});
 
 		// Add the mouse listeners
 		canvas.addMouseListener(new MouseAdapter() {
 			public void mousePressed(MouseEvent e) { 
-				MouseButton mb = App.mouse.getMouseButtonByCode(e.getButton());
+				final MouseButton mb = App.mouse.getMouseButtonByCode(e.getButton());
 				if(mb == null) return;
-				App.enqueue(new MouseButton.Pressed(Window.this, e.getWhen(), mb, new Point(e.getX(), e.getY()))); 
+				App.enqueue(new MouseInput(e) { protected Event toEvent() {
+					return new MouseButton.Pressed(Window.this, when, mb, new Point(x, y)); 
+				}});
 			}
 			public void mouseReleased(MouseEvent e) { 	
-				MouseButton mb = App.mouse.getMouseButtonByCode(e.getButton());
+				final MouseButton mb = App.mouse.getMouseButtonByCode(e.getButton());
 				if(mb == null) return;
-				App.enqueue(new MouseButton.Released(Window.this, e.getWhen(), mb, new Point(e.getX(), e.getY()))); 
+				App.enqueue(new MouseInput(e) { protected Event toEvent() {
+					return new MouseButton.Released(Window.this, when, mb, new Point(x, y)); 
+				}});
 			}
 			public void mouseExited(MouseEvent e) { setCursorTo(Cursor.DEFAULT_CURSOR); }
 		});
 
 		canvas.addMouseMotionListener(new MouseMotionAdapter() {
-			public void mouseMoved(MouseEvent e) { 
-				App.enqueue(new MousePointer.Moved(Window.this, e.getWhen(), App.mouse.pointer, new Real(e.getX()), new Real(e.getY())));
-			}
-			public void mouseDragged(MouseEvent e) { 
-				App.enqueue(new MousePointer.Moved(Window.this, e.getWhen(), App.mouse.pointer, new Real(e.getX()), new Real(e.getY())));
+			public void mouseMoved(MouseEvent e) { moved(e); }
+			public void mouseDragged(MouseEvent e) { moved(e); }
+			private void moved(MouseEvent e) {
+				App.enqueue(new MouseInput(e) { protected Event toEvent() {
+					return new MousePointer.Moved(Window.this, when, App.mouse.pointer, new Real(x), new Real(y));
+				}});
 			}
 		});
 		
 		canvas.addMouseWheelListener(new MouseWheelListener() {
 			public void mouseWheelMoved(MouseWheelEvent e) { 
-				App.enqueue(new MouseWheel.Moved(Window.this, e.getWhen(), App.mouse.wheel, new Int(e.getUnitsToScroll())));
+				final int units = e.getUnitsToScroll();
+				App.enqueue(new MouseInput(e) { protected Event toEvent() {
+					return new MouseWheel.Moved(Window.this, when, App.mouse.wheel, new Int(units));
+				}});
 			}
 		});
 		
@@ -382,11 +526,17 @@ public class Window extends View {
                     try {
                         
                         fileList = (java.util.List<java.io.File>)e.getTransferable().getTransferData(DataFlavor.javaFileListFlavor);
-                        Element newElement = XMLParser.readXMLFrom(new Text(fileList.get(0).getAbsolutePath()));
-                        if(newElement != null) {
-                        	App.enqueue(new ElementDropped(Window.this, newElement));  
-                        }
-                        else System.err.println("Didn't drop an xml file with an element");
+                        final String path = fileList.get(0).getAbsolutePath();
+                        App.enqueue(new App.Input() { protected Event toEvent() {
+                        	try {
+                        		Element newElement = XMLParser.readXMLFrom(new Text(path));
+                        		if(newElement != null) return new ElementDropped(Window.this, newElement);
+                        		System.err.println("Didn't drop an xml file with an element");
+                        	} catch(Exception ex) {
+                        		System.err.println("I couldn't read the data because " + ex);
+                        	}
+                        	return null;
+                        }});
                         
                     } catch(Exception ex) {
                         
@@ -404,52 +554,7 @@ public class Window extends View {
         });
         frame.getContentPane().setDropTarget(fileTarget);
 
-		// Update the dimensions. 
-		set(Window.width, new Real(width));
-		set(Window.height, new Real(height));
-		
-		get(behaviors).append(new Behavior(App.keyboard.typed, new Action() { public boolean evaluate(View t) {
-				
-			if(App.keyboard.COMMAND.isDown()) {
-				char lastCharacter = App.keyboard.character(Keyboard.lastChar);
-				if(lastCharacter == 'c') {
-					debug("Copying focus");
-					View focus = getFocus();
-					if(focus instanceof ElementView) {
-						
-						Element e = focus.get(ElementView.model);
-						if(e != null) {
-							
-							clipboard = e.duplicate();
-							return true;
-							
-						} debug("Focus has no element");
-						
-					} else debug("Focus is not an element view: " + focus);
-
-				}
-				else if(lastCharacter == 'v') {
-
-					View focus = getFocus();
-					if(focus != null && !(focus instanceof ElementView)) focus = focus.getParent();
-					if(focus instanceof ElementView) {
-						
-						Element duplicate = clipboard.duplicate();
-						debug("Replacing " + ((ElementView)focus).getModel() + " with " + duplicate);
-						((ElementView)focus).getModel().replaceWith(null, duplicate, getStyle().getQuickTransition());
-						return true;
-						
-					} else debug("Focus is not an element view: " + focus);
-					
-				}
-			}
-			return false;
-				
-		}}));
-		
-		getPropertyByDeclaration(focus).addListener(focusChangeListener);
-		
-    }
+	}
     
     private Element clipboard;
 
@@ -507,6 +612,7 @@ public class Window extends View {
 
     public void centerOnScreen() {
     	
+        	if(frame == null) return;
         	java.awt.Dimension screenSize = java.awt.Toolkit.getDefaultToolkit().getScreenSize();
         	frame.setLocation((screenSize.width - frame.getWidth()) / 2, (screenSize.height - frame.getHeight()) / 2);
     	
@@ -514,13 +620,24 @@ public class Window extends View {
     
     public void setSize(int w, int h) {
     	
+    		// Without a frame to tell us it was resized, resize the image and update immediately.
+    		if(frame == null) {
+    			headlessWidth = w;
+    			headlessHeight = h;
+    			if(w > buffer.getWidth() || h > buffer.getHeight()) {
+    				buffer = new BufferedImage(Math.max(w, buffer.getWidth()), Math.max(h, buffer.getHeight()), BufferedImage.TYPE_INT_RGB);
+    				createGraphics();
+    			}
+    			quicklyResize();
+    			return;
+    		}
     		frame.setSize(w, h);
     		frame.validate();
     		
     }
     
-    public int getWindowWidth() { return frame.getWidth(); }
-    public int getWindowHeight() { return frame.getHeight(); }
+    public int getWindowWidth() { return frame == null ? headlessWidth : frame.getWidth(); }
+    public int getWindowHeight() { return frame == null ? headlessHeight : frame.getHeight(); }
     
         
     /////////////////////////////////////////////////////////////////////
@@ -536,24 +653,29 @@ public class Window extends View {
 		Real w = get(Window.width);
 		set(width, new Real(0.0));
 		quicklyResize();
-		damagedArea = new Rectangle2D.Double(0, 0, getCanvasWidth(), getCanvasHeight());
-		damagedAreas = new LinkedList<Rectangle2D>();
+		synchronized(this) {
+			damagedArea = null;
+			damagedAreas = new LinkedList<Rectangle2D>();
+		}
+		childIsDamaged(new Rectangle2D.Double(0, 0, getCanvasWidth(), getCanvasHeight()));
 		repairDamagedArea();
-		frame.setVisible(true);
+		if(frame != null) frame.setVisible(true);
 
 		if(Debug.threads()) System.err.println("" + Thread.currentThread().getName() + ": DONE SHOWING " + this);
 		
 		return null;
     
     }
-    public void hide() { frame.setVisible(false); }
-    public void setLocation(int x, int y) { frame.setLocation(x, y); }
-    public int getCanvasWidth() { return frame.getContentPane().getWidth(); }
-    public int getCanvasHeight() { return frame.getContentPane().getHeight(); }
+    public void hide() { if(frame != null) frame.setVisible(false); }
+    public void setLocation(int x, int y) { if(frame != null) frame.setLocation(x, y); }
+    public int getCanvasWidth() { return frame == null ? headlessWidth : frame.getContentPane().getWidth(); }
+    public int getCanvasHeight() { return frame == null ? headlessHeight : frame.getContentPane().getHeight(); }
     public Graphics2D getGraphicsContext() { return graphics; }
-	public void setCursorTo(int cursor) { canvas.setCursor(Cursor.getPredefinedCursor(cursor)); }	
-	public void setCursorTo(Cursor cursor) { canvas.setCursor(cursor); }	
-	public java.awt.Cursor getCursor() { return canvas.getCursor(); }	
+    public BufferedImage getImage() { return buffer; }
+    public boolean isHeadless() { return frame == null; }
+	public void setCursorTo(int cursor) { if(canvas != null) canvas.setCursor(Cursor.getPredefinedCursor(cursor)); }	
+	public void setCursorTo(Cursor cursor) { if(canvas != null) canvas.setCursor(cursor); }	
+	public java.awt.Cursor getCursor() { return canvas == null ? Cursor.getDefaultCursor() : canvas.getCursor(); }	
 
 	//////////////////////////////////////////////
 	//
@@ -583,12 +705,17 @@ public class Window extends View {
 
 		if(Debug.threads()) System.err.println("" + Thread.currentThread().getName() + ": QUICKLY RESIZING...");
 	
-		// Update the dimensions. 
-		set(width, new Real(getCanvasWidth()));
-		set(height, new Real(getCanvasHeight()));
+		// If the worker is pipelined, it may be in the middle of a frame.
+		synchronized(App.model) {
+
+			// Update the dimensions. 
+			set(width, new Real(getCanvasWidth()));
+			set(height, new Real(getCanvasHeight()));
+	
+			// Update the screen
+			App.work();
 
-		// Update the screen
-		App.work();
+		}
 
 		if(Debug.threads()) 
 			System.err.println("" + Thread.currentThread().getName() + ": DONE QUICKLY RESIZING.");
@@ -610,7 +737,35 @@ public class Window extends View {
 		for(View t : hoistedTiles) t.whichViewsContain(testPoint, tiles);
 
 		// Now check all of the tiles below the hoisted tiles.
-		super.whichViewsContain(testPoint, tiles);	
+		if(index == null) super.whichViewsContain(testPoint, tiles);	
+		else {
+			indexNewSubtrees();
+			index.whichViewsContain(this, testPoint, tiles);
+		}
+		
+	}
+
+	// Views tell us when their painted boundaries change, and when they leave, so that the spatial index stays current.
+	void reindex(View view) { if(index != null && view != this) index.update(view, view.getIndexedBoundaries()); }
+	void unindex(View view) { if(index != null) index.removeTree(view); }
+
+	// Views tell us when they join this window. Their descendants may never post damage of their own,
+	// so before the index is next used, we index the whole subtree.
+	void indexLater(View view) { if(index != null) subtreesToIndex.add(view); }
+	
+	private void indexNewSubtrees() {
+		
+		while(!subtreesToIndex.isEmpty()) {
+			View view = subtreesToIndex.remove(subtreesToIndex.size() - 1);
+			if(view == this || view.getWindow() == this) indexSubtree(view);
+		}
+		
+	}
+	
+	private void indexSubtree(View view) {
+		
+		reindex(view);
+		for(View child : view.get(children)) indexSubtree(child);
 		
 	}
 
@@ -619,150 +774,172 @@ public class Window extends View {
 	
 	public AffineTransform getParentsVisibleCumulativeTransform() { return getPropertyByDeclaration(contentTransform).getVisible().value; }
 
+	// The most clusters we'll repair one at a time. Each cluster walks the whole view tree
+	// inside its own clip, so past this many it's cheaper to repaint their union once.
+	public static final int MAXIMUM_DAMAGE_CLUSTERS = Integer.getInteger("citrus.maximumDamageClusters", 8);
+
 	// Views report damage to this window by sending their damage here.
-	public void childIsDamaged(Rectangle2D newDamage) {
+	public void childIsDamaged(Rectangle2D damage) {
 		
-		if(damagedAreas == null) damagedAreas = new LinkedList<Rectangle2D>();
+		// Views send us their own painted boundaries, so we copy the damage before
+		// growing it. Empty damage doesn't cover any pixels, so there's nothing to repair.
+		if(damage.isEmpty()) return;
+		Rectangle2D newDamage = (Rectangle2D)damage.clone();
 
 		synchronized(this) {
     
+			if(damagedAreas == null) damagedAreas = new LinkedList<Rectangle2D>();
+
 			// If there is no damage, set it to this.
-			if(damagedArea == null) damagedArea = newDamage;
+			if(damagedArea == null) damagedArea = (Rectangle2D)newDamage.clone();
 			// Otherwise, union the damage.
 			else damagedArea.add(newDamage);
 			
-			ListIterator<Rectangle2D> listIterator = damagedAreas.listIterator();
-			while(listIterator.hasNext()) {
-
-				Rectangle2D area = listIterator.next();
-
-				// Compute A's area, B's area, the union's area, and the intersection's area.
-				double areaOfA = area.getWidth() * area.getHeight();
-				double areaOfB = newDamage.getWidth() * newDamage.getHeight();
-				Rectangle2D union = area.createUnion(newDamage);
-				Rectangle2D intersection = area.createIntersection(newDamage);
-				double areaOfUnion = union.getWidth() * union.getHeight();
-				double areaOfIntersection = intersection.isEmpty() ? 0 : intersection.getWidth() * intersection.getHeight();
-
-				// Compute the number of unnecessarily painted pixels
-				double unnecessaryArea = areaOfUnion - ((areaOfA + areaOfB) - areaOfIntersection);
-				
-				// If there are no unecessarily painted pixels, or the ratio of the number of redundant
-				// pixels to the unecessarily painted pixels is greater than 1, cluster the damage.
-				if(unnecessaryArea == 0.0 || (areaOfIntersection / unnecessaryArea) > 1.0) {
+			// Absorb every cluster that the new damage overlaps enough. Absorbing a cluster grows 
+			// the new damage, which may make it overlap clusters we've already passed, so we keep
+			// scanning until a pass absorbs nothing.
+			boolean absorbed = true;
+			while(absorbed) {
+
+				absorbed = false;
+				ListIterator<Rectangle2D> listIterator = damagedAreas.listIterator();
+				while(listIterator.hasNext()) {
+
+					Rectangle2D area = listIterator.next();
+					if(shouldCluster(area, newDamage)) {
 					
-					newDamage.add(area);
-					listIterator.remove();
+						newDamage.add(area);
+						listIterator.remove();
+						absorbed = true;
 					
+					}
+
 				}
 
 			}
 
 			// Now add the accumulated new cluster to the beginning of the list.
-			// TODO For some reason, if we don't clone this, the damage that's added
-			// gets subsequently modified, which messes with the damage.
-			damagedAreas.addFirst((Rectangle2D)newDamage.clone());
+			damagedAreas.addFirst(newDamage);
 			
 		}
 
 	}
 
-	// If there's any damage, repaint inside of the damaged area.	
+	// Two damaged rectangles belong in the same cluster if painting their union wouldn't
+	// paint any pixels that neither covers, or if they share more pixels than their union would waste.
+	private static boolean shouldCluster(Rectangle2D a, Rectangle2D b) {
+
+		// Compute A's area, B's area, the union's area, and the intersection's area.
+		double areaOfA = a.getWidth() * a.getHeight();
+		double areaOfB = b.getWidth() * b.getHeight();
+		Rectangle2D union = a.createUnion(b);
+		Rectangle2D intersection = a.createIntersection(b);
+		double areaOfUnion = union.getWidth() * union.getHeight();
+		double areaOfIntersection = intersection.isEmpty() ? 0 : intersection.getWidth() * intersection.getHeight();
+
+		// Compute the number of unnecessarily painted pixels
+		double unnecessaryArea = areaOfUnion - ((areaOfA + areaOfB) - areaOfIntersection);
+		
+		// If there are no unecessarily painted pixels, or the ratio of the number of redundant
+		// pixels to the unecessarily painted pixels is greater than 1, cluster the damage.
+		return unnecessaryArea <= 0.0 || (areaOfIntersection / unnecessaryArea) > 1.0;
+
+	}
+
+	// If there's any damage, repaint inside of each damaged cluster.	
 	public void repairDamagedArea() {
 		
 		synchronized(this) {
 		
 		if(damagedArea != null) {	
 
-			if(Debug.threads()) System.err.println("" + Thread.currentThread().getName() + ": Repairing " + damagedArea + " in " + this);
+			if(Debug.threads()) System.err.println("" + Thread.currentThread().getName() + ": Repairing " + damagedAreas.size() + " clusters in " + damagedArea + " in " + this);
 			
-			// A version of repainting that just repaints the single rectangle
-			// Set the affine transform to an identify transform
-			graphics.setTransform(new AffineTransform());
+			// Repair each cluster with its own clip, so that damage in opposite corners of the window
+			// doesn't repaint everything between them. If there are too many clusters, or none
+			// were recorded, repair the union instead.
+			LinkedList<Rectangle2D> areasToRepair = damagedAreas;
+			if(damagedAreas.isEmpty() || damagedAreas.size() > MAXIMUM_DAMAGE_CLUSTERS) {
+				areasToRepair = new LinkedList<Rectangle2D>();
+				areasToRepair.add(damagedArea);
+			}
 
-			// Set the clip to the damaged rectangle.
-			graphics.setClip(damagedArea);
+			for(Rectangle2D area : areasToRepair)
+				repairArea(area);
+			
+			// Have the window repaint the damaged parts of the image buffer.
+			repaintCanvas(damagedArea, areasToRepair);
 
-			// Set the composite to 1.
-			graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
+			// There's no more damage!
+			damagedArea = null;
 
-			graphics.setColor(java.awt.Color.white);
-			graphics.fill(damagedArea);
+			damagedAreas.clear();
+		
+			if(Debug.threads()) System.err.println("" + Thread.currentThread().getName() + ": DONE repairing " + this);
 			
-			// Paint the root, allowing it to paint or not paint its children, depending on their damaged state
-			paint(graphics, false);
-
-/*			
-			// Paint each damaged cluster
-			ListIterator<Rectangle2D> areaIterator = damagedAreas.listIterator();
-			Rectangle2D area = null;
-			while(areaIterator.hasNext()) {
-				
-				area = areaIterator.next();
-				area = area.createIntersection(new Rectangle2D.Double(0, 0, getCanvasWidth(), getCanvasHeight()));
-				
-				// Set the affine transform to an identify transform
-				graphics.setTransform(new AffineTransform());
+		}
+		
+		}
+		
+	}
 
-				// Set the clip to the damaged rectangle.
-				graphics.setClip(area);
+	// Repaints the given rectangle of the image buffer. Views whose painted boundaries
+	// fall outside of the rectangle skip their paints.
+	private void repairArea(Rectangle2D area) {
 
-				// Set the composite to 1.
-				graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
+		// Set the affine transform to an identify transform
+		graphics.setTransform(new AffineTransform());
 
-				graphics.setColor(java.awt.Color.white);
-				graphics.fill(area);
-				
-				// Paint the root, allowing it to paint or not paint its children, depending on their damaged state
-				paint(graphics, false);
-				
-			}
-*/
-			// Paint all of the hoisted tiles last
-			Iterator<View> i = hoistedTiles.iterator();
-			while(i.hasNext()) {
-        
-				// Get the next child
-				View hoistedTile = i.next();
+		// Set the clip to the damaged rectangle.
+		graphics.setClip(area);
 
-				// If this isn't in a window, unset its hoisted and remove it.
-				if(hoistedTile.getWindow() == null) {
-					debug("Warning: " + hoistedTile + " was hoisted but not in a window");
-					i.remove();
-				}
-				// Apply the local transform and paint the hoisted tile
-				else if(hoistedTile.getParentsCumulativeTransform() != null) {
-				
-					// Reset the composite
-					graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
+		// Set the composite to 1.
+		graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
 
-					// Reset the clip to the damaged rectangle.
-					graphics.setClip(damagedArea);
+		graphics.setColor(java.awt.Color.white);
+		graphics.fill(area);
+		
+		// If we have an index, only visit the views that intersect the area.
+		int paintStampToPaint = 0;
+		if(index != null) {
+			indexNewSubtrees();
+			paintStampToPaint = index.markViewsIntersecting(area);
+		}
 
-					// Set the transform
-					graphics.setTransform(hoistedTile.getParentsCumulativeTransform());
+		// Paint the root, allowing it to paint or not paint its children, depending on their damaged state
+		paint(graphics, false, paintStampToPaint, null);
 
-					// Paint the hoisted tile.
-					hoistedTile.paint(graphics, true);
-					
-				}
-        
+		// Paint all of the hoisted tiles last
+		Iterator<View> i = hoistedTiles.iterator();
+		while(i.hasNext()) {
+    
+			// Get the next child
+			View hoistedTile = i.next();
+
+			// If this isn't in a window, unset its hoisted and remove it.
+			if(hoistedTile.getWindow() == null) {
+				debug("Warning: " + hoistedTile + " was hoisted but not in a window");
+				i.remove();
 			}
+			// Apply the local transform and paint the hoisted tile
+			else if(hoistedTile.getParentsCumulativeTransform() != null) {
 			
-			// Have the window repaint the damaged part of the image buffer.
-			repaintCanvas(damagedArea, damagedAreas);
+				// Reset the composite
+				graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
 
-			// There's no more damage!
-			damagedArea = null;
+				// Reset the clip to the damaged rectangle.
+				graphics.setClip(area);
 
-			damagedAreas.removeAll(damagedAreas);
-		
-			if(Debug.threads()) System.err.println("" + Thread.currentThread().getName() + ": DONE repairing " + this);
-			
-		}
-		
+				// Set the transform
+				graphics.setTransform(hoistedTile.getParentsCumulativeTransform());
+
+				// Paint the hoisted tile.
+				hoistedTile.paint(graphics, true, paintStampToPaint, null);
+				
+			}
+    
 		}
-		
+
 	}
 		
 	/////////////////////////////////////////////////////////////////////
@@ -772,14 +949,126 @@ public class Window extends View {
 	/////////////////////////////////////////////////////////////////////
 	public void repaintCanvas(Rectangle2D damagedRectangle, LinkedList<Rectangle2D> damagedAreas) {
 
+		// Headless windows have no canvas; the image is all there is.
+		if(frame == null) {
+			if(App.inputAwaitingPixels != 0) App.recordLatency(App.inputAwaitingPixels);
+			return;
+		}
+
+		// When pipelined, this is the worker, so leave the copying to the AWT thread.
+		if(App.PIPELINED) {
+			present(damagedRectangle, damagedAreas);
+			return;
+		}
+
+		copyToCanvas(buffer, damagedRectangle, damagedAreas);
+		if(App.inputAwaitingPixels != 0) App.recordLatency(App.inputAwaitingPixels);
+
+	}
+
+	// Copies the repaired areas of the buffer into the presented buffer, and asks the AWT
+	// thread to copy them to the canvas once the frame budget has passed since it last did.
+	// Frames that finish before then are merged with this one.
+	private void present(Rectangle2D damagedRectangle, LinkedList<Rectangle2D> damagedAreas) {
+
+		synchronized(presentation) {
+
+			LinkedList<Rectangle2D> areas = damagedAreas;
+			if(Debug.damage() || damagedAreas == null || damagedAreas.isEmpty()) {
+				areas = new LinkedList<Rectangle2D>();
+				areas.add(damagedRectangle);
+			}
+
+			// Copy whole pixels, so that the presented buffer matches the buffer everywhere outside
+			// of the areas that will be repaired next.
+			Graphics2D g = presentedBuffer.createGraphics();
+			for(Rectangle2D area : areas) {
+
+				java.awt.Rectangle pixels = area.getBounds();
+				g.setClip(pixels);
+				g.drawImage(buffer, 0, 0, null);
+				areasToPresent.add(pixels);
+				if(areaToPresent == null) areaToPresent = pixels.getBounds2D();
+				else areaToPresent.add(pixels);
+
+			}
+			g.dispose();
+
+			// If the areas waiting have piled up over several frames, just copy their union.
+			if(areasToPresent.size() > MAXIMUM_DAMAGE_CLUSTERS) {
+				areasToPresent.clear();
+				areasToPresent.add(areaToPresent.getBounds());
+			}
+
+			if(App.inputAwaitingPixels != 0 && (inputToPresent == 0 || App.inputAwaitingPixels < inputToPresent))
+				inputToPresent = App.inputAwaitingPixels;
+
+			// If this is the first frame waiting, schedule the copy.
+			framesToPresent++;
+			if(framesToPresent == 1) {
+
+				long wait = App.FRAME_BUDGET - (System.currentTimeMillis() - lastPresented);
+				if(wait <= 0) EventQueue.invokeLater(copyPresentedBuffer);
+				else {
+					javax.swing.Timer timer = new javax.swing.Timer((int)wait, new ActionListener() {
+						public void actionPerformed(ActionEvent e) { copyPresentedBuffer.run(); }
+					});
+					timer.setRepeats(false);
+					timer.start();
+				}
+
+			}
+
+		}
+
+	}
+
+	// Runs on the AWT thread, copying whatever has been presented since it last ran.
+	private final Runnable copyPresentedBuffer = new Runnable() {
+		public void run() {
+
+			synchronized(presentation) {
+
+				if(framesToPresent == 0) return;
+
+				copyToCanvas(presentedBuffer, areaToPresent, areasToPresent);
+				if(inputToPresent != 0) App.recordLatency(inputToPresent);
+				App.recordPresentation(framesToPresent);
+
+				areasToPresent = new LinkedList<Rectangle2D>();
+				areaToPresent = null;
+				framesToPresent = 0;
+				inputToPresent = 0;
+				lastPresented = System.currentTimeMillis();
+
+			}
+
+		}
+	};
+
+	private void copyToCanvas(BufferedImage image, Rectangle2D damagedRectangle, LinkedList<Rectangle2D> damagedAreas) {
+
 		Graphics2D g = (Graphics2D)frame.getContentPane().getGraphics();
 
 		// Clip the rectangle and draw the buffer.
-		if(Debug.damage()) g.setClip(0, 0, getCanvasWidth(), getCanvasHeight());
-		else g.setClip(damagedRectangle);
-		
-		// Draw the clipped buffer
-		g.drawRenderedImage(buffer, new AffineTransform());
+		if(Debug.damage() || damagedAreas == null || damagedAreas.isEmpty()) {
+
+			if(Debug.damage()) g.setClip(0, 0, getCanvasWidth(), getCanvasHeight());
+			else g.setClip(damagedRectangle);
+
+			// Draw the clipped buffer
+			g.drawRenderedImage(image, new AffineTransform());
+
+		}
+		// Otherwise, only copy the clusters that were repaired.
+		else {
+
+			for(Rectangle2D area : damagedAreas) {
+				g.setClip(area);
+				g.drawRenderedImage(image, new AffineTransform());
+			}
+
+		}
 
 		// Paint the damaged rectangle for debugging
 		if(Debug.damage() && damagedAreas != null) {
@@ -788,7 +1077,7 @@ public class Window extends View {
 			g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float).5));
 
 			g.setColor(java.awt.Color.green);
-			g.fillRect((int) damagedArea.getX(), (int) damagedArea.getY(), (int) damagedArea.getWidth(), (int) damagedArea.getHeight());
+			g.fillRect((int) damagedRectangle.getX(), (int) damagedRectangle.getY(), (int) damagedRectangle.getWidth(), (int) damagedRectangle.getHeight());
 
 			g.setColor(java.awt.Color.red);
 			for(Rectangle2D r : damagedAreas) {
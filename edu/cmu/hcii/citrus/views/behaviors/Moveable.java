@@ -58,7 +58,7 @@ public class Moveable extends Behavior {
 		}}),
 
 		new Behavior(App.mouse.pointer.released, new Action() { public boolean evaluate(View t) {
-			t.set(View.hoisted, new Bool(false));
+			t.set(View.hoisted, Bool.valueOf(false));
 			t.removeBackgroundPaint(App.getGlobalStyle().getDragShadow());
 			return true;
 		}})
@@ -48,7 +48,7 @@ public class Navigable extends Behavior {
 		new Behavior(new Keyboard.Typed('\t'), false,new BaseElement<Bool>() { public Bool evaluate(Element<?> t) {
 			return focus((View)t, Bool.TRUE);
 		}}),
-		new Behavior(new Keyboard.Typed(null, 0, null, new Char('\t'), new Bool(true), null, null, null), false,new BaseElement<Bool>() { public Bool evaluate(Element<?> t) {
+		new Behavior(new Keyboard.Typed(null, 0, null, new Char('\t'), Bool.valueOf(true), null, null, null), false,new BaseElement<Bool>() { public Bool evaluate(Element<?> t) {
 			return focus((View)t, Bool.FALSE);
 		}}),
 		new Behavior(new Keyboard.Typed(' '), false,new BaseElement<Bool>() { public Bool evaluate(Element<?> t) {
@@ -66,7 +66,7 @@ public class Navigable extends Behavior {
 		
 		// If none of this view's children have the focus (how is this possible?), don't handle it.
 		if(childWithFocus == null) {
-			return new Bool(false);
+			return Bool.valueOf(false);
 		}
 
 		// Get the next focusable sibling of the child with the focus.
@@ -81,7 +81,7 @@ public class Replaceable extends Behavior {
 
 	public static Bool isCompatible(Element<?> elementPicked, Element<?> elementOver) {
 		
-		return new Bool(elementPicked != elementOver && 
+		return Bool.valueOf(elementPicked != elementOver && 
 						elementOver.getPropertyOwner() != null && 
 						elementOver.getPropertyOwner().getTypeExpression().canBeAssignedA(elementPicked.getType()).value);
 		
@@ -148,16 +148,16 @@ public class Keyboard extends Device {
 	// The last character typed in a typed event.
 	public static final Dec<Char> lastChar = new Dec<Char>();
 
-	public final Event typed = new Typed(null, 0, this, null, null, new Bool(false), new Bool(false), new Bool(false));
+	public final Event typed = new Typed(null, 0, this, null, null, Bool.valueOf(false), Bool.valueOf(false), Bool.valueOf(false));
 	
 	public static class Typed extends Event {
 
 		public static final Dec<Char> character = new Dec<Char>();
 		public static final Dec<Keyboard> keyboard = new Dec<Keyboard>((Element)null, true);
 		public static final Dec<Bool> shift = new Dec<Bool>();
-		public static final Dec<Bool> control = new Dec<Bool>(new Bool(false));
-		public static final Dec<Bool> alt = new Dec<Bool>(new Bool(false));
-		public static final Dec<Bool> meta = new Dec<Bool>(new Bool(false));
+		public static final Dec<Bool> control = new Dec<Bool>(Bool.valueOf(false));
+		public static final Dec<Bool> alt = new Dec<Bool>(Bool.valueOf(false));
+		public static final Dec<Bool> meta = new Dec<Bool>(Bool.valueOf(false));
 		
 		public Typed(ArgumentList args) { super(args); }
 		public Typed() { super(null, 0); }
@@ -196,17 +196,17 @@ public class Keyboard extends Device {
 		public boolean isNegligible() { return false; }
 		public Bool isEquivalentTo(Element<?> e) { 
 			
-			if(!super.isEquivalentTo(e).value) return new Bool(false);
+			if(!super.isEquivalentTo(e).value) return Bool.valueOf(false);
 			
 			// If they both specify a character, the characters must be equal
-			if(get(control) != null && e.get(control) != null && get(control).value != e.get(control).value) return new Bool(false); 
-			if(get(shift) != null && e.get(shift) != null && get(shift).value != e.get(shift).value) return new Bool(false); 
-			if(get(alt) != null && e.get(alt) != null && get(alt).value != e.get(alt).value) return new Bool(false); 
-			if(get(meta) != null && e.get(meta) != null && get(meta).value != e.get(meta).value) return new Bool(false); 
+			if(get(control) != null && e.get(control) != null && get(control).value != e.get(control).value) return Bool.valueOf(false); 
+			if(get(shift) != null && e.get(shift) != null && get(shift).value != e.get(shift).value) return Bool.valueOf(false); 
+			if(get(alt) != null && e.get(alt) != null && get(alt).value != e.get(alt).value) return Bool.valueOf(false); 
+			if(get(meta) != null && e.get(meta) != null && get(meta).value != e.get(meta).value) return Bool.valueOf(false); 
 
 			if(get(character) != null && e.get(character) != null)
 				return get(character).isEquivalentTo(e.get(character));
-			else return new Bool(true);
+			else return Bool.valueOf(true);
 			
 		}
 		
@@ -249,13 +249,13 @@ public class Keyboard extends Device {
 		public boolean isNegligible() { return false; }
 		public Bool isEquivalentTo(Element<?> e) { 
 			
-			if(!super.isEquivalentTo(e).value) return new Bool(false);
-			if(get(key) != null && e.get(key) != null && !get(key).isEquivalentTo(e.get(key)).value) return new Bool(false);
-			if(get(control) != null && e.get(control) != null && get(control).value != e.get(control).value) return new Bool(false); 
-			if(get(shift) != null && e.get(shift) != null && get(shift).value != e.get(shift).value) return new Bool(false); 
-			if(get(alt) != null && e.get(alt) != null && get(alt).value != e.get(alt).value) return new Bool(false); 
-			if(get(meta) != null && e.get(meta) != null && get(meta).value != e.get(meta).value) return new Bool(false); 			
-			return new Bool(true);	
+			if(!super.isEquivalentTo(e).value) return Bool.valueOf(false);
+			if(get(key) != null && e.get(key) != null && !get(key).isEquivalentTo(e.get(key)).value) return Bool.valueOf(false);
+			if(get(control) != null && e.get(control) != null && get(control).value != e.get(control).value) return Bool.valueOf(false); 
+			if(get(shift) != null && e.get(shift) != null && get(shift).value != e.get(shift).value) return Bool.valueOf(false); 
+			if(get(alt) != null && e.get(alt) != null && get(alt).value != e.get(alt).value) return Bool.valueOf(false); 
+			if(get(meta) != null && e.get(meta) != null && get(meta).value != e.get(meta).value) return Bool.valueOf(false); 			
+			return Bool.valueOf(true);	
 		}
 		
 		public Text toText() { return new Text(toString()); }
@@ -287,7 +287,7 @@ public class Keyboard extends Device {
 			
 			KeyboardKey keyboardKey = App.keyboard.getKeyNamed(get(key));
 			if(keyboardKey == null) return;
-			keyboardKey.set(KeyboardKey.down, new Bool(true));
+			keyboardKey.set(KeyboardKey.down, Bool.valueOf(true));
 			Keyboard own = keyboardKey.getOwnerOfType(Keyboard.class);
 			if(own != null)
 				own.handleKeyboardEvent(window, this);
@@ -307,7 +307,7 @@ public class Keyboard extends Device {
 			
 			KeyboardKey keyboardKey = App.keyboard.getKeyNamed(get(key));
 			if(keyboardKey == null) return;
-			keyboardKey.set(KeyboardKey.down, new Bool(false));
+			keyboardKey.set(KeyboardKey.down, Bool.valueOf(false));
 			keyboardKey.getOwnerOfType(Keyboard.class).handleKeyboardEvent(window, this);
 
 		}
@@ -564,7 +564,7 @@ public class Keyboard extends Device {
 	// Returns true if the event was handled.
 	public boolean handleKeyboardEvent(Window window, Event event) {
 
-		window.set(Window.paintCaret, new Bool(true));
+		window.set(Window.paintCaret, Bool.valueOf(true));
 		
 		// If we're focused on a tile that's in a window, then have it handle it.
 		// Otherwise, let the window handle it.
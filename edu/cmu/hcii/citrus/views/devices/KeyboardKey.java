@@ -32,7 +32,7 @@ public class KeyboardKey extends Device {
 	public final Event pressed;
 	public final Event released;
 
-	public final static Dec<Bool> down = new Dec<Bool>(new Bool(false));
+	public final static Dec<Bool> down = new Dec<Bool>(Bool.valueOf(false));
 	
 	private Keyboard keyboard;
 	
@@ -41,8 +41,8 @@ public class KeyboardKey extends Device {
 		super(name);
 		
 		keyboard = owner;
-		pressed = new Keyboard.Pressed(null, 0, new Text(name), new Bool(false), new Bool(false), new Bool(false), new Bool(false));
-		released = new Keyboard.Released(null, 0, new Text(name), new Bool(false), new Bool(false), new Bool(false), new Bool(false));
+		pressed = new Keyboard.Pressed(null, 0, new Text(name), Bool.valueOf(false), Bool.valueOf(false), Bool.valueOf(false), Bool.valueOf(false));
+		released = new Keyboard.Released(null, 0, new Text(name), Bool.valueOf(false), Bool.valueOf(false), Bool.valueOf(false), Bool.valueOf(false));
 	
 	}
 	
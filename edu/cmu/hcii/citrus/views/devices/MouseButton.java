@@ -60,7 +60,7 @@ public class MouseButton extends Device {
 
 		public void handle() {
 			
-			get(button).set(down, new Bool(true));
+			get(button).set(down, Bool.valueOf(true));
 			get(button).getOwnerOfType(Mouse.class).handle(this);
 			
 		}
@@ -76,7 +76,7 @@ public class MouseButton extends Device {
 
 		public void handle() {
 			
-			get(button).set(down, new Bool(false));
+			get(button).set(down, Bool.valueOf(false));
 			get(button).getOwnerOfType(Mouse.class).handle(this);
 			
 			App.enqueue(new Clicked(window, timeStamp, get(button), get(point)));
@@ -128,7 +128,7 @@ public class MouseButton extends Device {
 	}
 	
 	// Whether the button is down or not.
-	public final static Dec<Bool> down = new Dec<Bool>(new Bool(false));
+	public final static Dec<Bool> down = new Dec<Bool>(Bool.valueOf(false));
 	
 	// The time of the last click.
 	private long lastClick;
@@ -228,13 +228,13 @@ public class MousePointer extends Device {
 		pick(t); return true; }};
 
 	public Action pickAndHoist = new Action() { public boolean evaluate(View t) { 
-		pick(t); t.set(View.hoisted, new Bool(true)); return true; }};
+		pick(t); t.set(View.hoisted, Bool.valueOf(true)); return true; }};
 
 	public Action release = new Action() { public boolean evaluate(View t) { 
 		if(isPicked(t)) { release(); return true; } else return false; }};
 
 	public Action releaseAndUnhoist = new Action() { public boolean evaluate(View t) { 
-		t.set(View.hoisted, new Bool(false)); release(); return true; }};
+		t.set(View.hoisted, Bool.valueOf(false)); release(); return true; }};
 
 	public MousePointer(ArgumentList args) { super(args); init(); }
 	public MousePointer(Mouse owner, String name) {
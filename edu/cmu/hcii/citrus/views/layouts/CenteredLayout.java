@@ -43,14 +43,14 @@ public class CenteredLayout extends Layout {
         
 	public Real getLeft(View child) {
 		
-		return child.getParent().get(View.width).minus(child.paddedWidth().divide(new Real(2)));
+		return child.getParent().get(View.width).minus(child.paddedWidth().divide(Real.valueOf(2)));
 		
 	}
 
 	public Real getTop(View child) {
 
 		return child.getPreviousSibling() == null ? 
-					child.getParent().get(View.height).minus(child.getParent().totalHeightOfChildren().divide(new Real(2))) : 
+					child.getParent().get(View.height).minus(child.getParent().totalHeightOfChildren().divide(Real.valueOf(2))) : 
 					child.getPreviousSibling().get(View.bottom).plus(get(spacing));
 	
 	}
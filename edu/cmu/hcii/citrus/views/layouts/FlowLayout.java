@@ -54,10 +54,10 @@ public class FlowLayout extends Layout {
 		// If this would be past parent's right (previous sibling's right + width > parent's right), return 0
 		// Otherwise, return previous sibling's right.
 
-		if(child.getPreviousSibling() == null) return new Real(0);
+		if(child.getPreviousSibling() == null) return Real.valueOf(0);
 
 		View view = get(viewToWrapInside);
-		if(view == null) return new Real(child.getPreviousSibling().real(View.right) + peek(hSpacing).value);
+		if(view == null) return Real.valueOf(child.getPreviousSibling().real(View.right) + peek(hSpacing).value);
 		else {
 			Real localRight = right;//child.localRightOf(view);
 			if(child.getPreviousSibling().real(View.right) + peek(hSpacing).value + child.paddedWidth().value > localRight.value)
@@ -73,7 +73,7 @@ public class FlowLayout extends Layout {
 		// If this would be past parent's right (previous sibling's right + width > parent's right)
 		//		return previous sibling's bottom + spacing
 		// Otherwise, return previous sibling's top.
-		if(child.getPreviousSibling() == null) return new Real(0);
+		if(child.getPreviousSibling() == null) return Real.valueOf(0);
 		
 		View view = get(viewToWrapInside);
 		if(view == null) {
@@ -62,7 +62,7 @@ public class HorizontalLayout extends Layout {
     // Return 0 if this is the first child, and the previous child's right + spacing for the rest.
 	public Real getLeft(View child) {
 		
-		return child.getPreviousSibling() == null ? new Real(0.0) : 
+		return child.getPreviousSibling() == null ? Real.valueOf(0.0) : 
 				child.getPreviousSibling().get(View.right).plus(peek(spacing));
 	
 	}
@@ -71,12 +71,12 @@ public class HorizontalLayout extends Layout {
 	public Real getTop(View child) {
 		
 		Text align = peek(alignment);
-		if(align.equals(TOP)) return new Real(0.0);
+		if(align.equals(TOP)) return Real.valueOf(0.0);
 		else if(align.equals(BOTTOM)) return child.getParent().get(View.height).minus(child.paddedHeight());     
 		else {
 			View par = child.getParent();
-			if(par == null) return new Real(0.0);
-			else return par.get(View.height).minus(child.paddedHeight()).divide(new Real(2.0));
+			if(par == null) return Real.valueOf(0.0);
+			else return par.get(View.height).minus(child.paddedHeight()).divide(Real.valueOf(2.0));
 		}
 		
 	}
@@ -59,10 +59,10 @@ public class HorizontalTabbedLayout extends Layout {
 		
 		// The first child is at 0.
 		// Subsequent siblings are at the next closest interval defined by the spacing, right of the previous sibling.
-		if(child.getPreviousSibling() == null) return new Real(0.0);
+		if(child.getPreviousSibling() == null) return Real.valueOf(0.0);
 		else if(child.getPreviousSibling().getPreviousSibling() == null && 
 				child.getPreviousSibling().real(View.right) < sp)
-			return new Real(sp);
+			return Real.valueOf(sp);
 		else return child.getPreviousSibling().get(View.right).plus(peek(spacing));
 	
 	}
@@ -71,9 +71,9 @@ public class HorizontalTabbedLayout extends Layout {
 	public Real getTop(View child) {
 		
 		Text align = peek(alignment);
-		if(align.equals(TOP)) return 	child.getPreviousSibling() == null ? new Real(0.0) : child.getPreviousSibling().get(View.top);
+		if(align.equals(TOP)) return 	child.getPreviousSibling() == null ? Real.valueOf(0.0) : child.getPreviousSibling().get(View.top);
 		else if(align.equals(BOTTOM)) return child.getParent().get(View.height).minus(child.paddedHeight());     
-		else return child.getParent().get(View.height).minus(child.paddedHeight()).divide(new Real(2));
+		else return child.getParent().get(View.height).minus(child.paddedHeight()).divide(Real.valueOf(2));
 		
 	}
 
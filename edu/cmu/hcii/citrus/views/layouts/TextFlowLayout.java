@@ -39,10 +39,10 @@ public class TextFlowLayout extends Layout {
 	public Real getLeft(View child) {
 		
 		View sib = child.getPreviousSibling();
-		if(sib == null) return new Real(0.0);
+		if(sib == null) return Real.valueOf(0.0);
 		View second = sib.get(View.children).second();
 		if(!(second instanceof TextField)) return sib.get(View.right);
-		return new Real(second.get(View.right).value + sib.get(View.left).value);
+		return Real.valueOf(second.get(View.right).value + sib.get(View.left).value);
 	
 	}
 
@@ -50,7 +50,7 @@ public class TextFlowLayout extends Layout {
 	public Real getTop(View child) {
 		
 		View sib = child.getPreviousSibling();
-		if(sib == null) return new Real(0.0);
+		if(sib == null) return Real.valueOf(0.0);
 		View second = sib.get(View.children).second();
 		if(!(second instanceof TextField)) return sib.get(View.bottom).minus(child.paddedHeight());
 		return second.get(View.bottom).minus(child.paddedHeight());
@@ -69,13 +69,13 @@ public class VerticalLayout extends Layout {
 		Text al = peek(alignment);
 		if(al.equals(LEFT)) return peek(indentation);
 		else if(alignment.equals(RIGHT)) return child.getParent().get(View.width).minus(child.paddedWidth());
-		else return child.getParent().get(View.width).minus(child.paddedWidth()).divide(new Real(2));
+		else return child.getParent().get(View.width).minus(child.paddedWidth()).divide(Real.valueOf(2));
 		
 	}
 
 	public Real getTop(View child) {
 
-		return 	child.getPreviousSibling() == null ? new Real(0.0) : 
+		return 	child.getPreviousSibling() == null ? Real.valueOf(0.0) : 
 				child.getPreviousSibling().get(View.bottom).plus(peek(spacing));
 		
 	}
@@ -35,8 +35,8 @@ import edu.cmu.hcii.citrus.views.*;
 
 public class LinePaint extends Paint {
 	
-	public static final Dec<Bool> solid = new Dec<Bool>(new Bool(true));
-	public static final Dec<Bool> arrow = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> solid = new Dec<Bool>(Bool.valueOf(true));
+	public static final Dec<Bool> arrow = new Dec<Bool>(Bool.valueOf(false));
 	public static final Dec<Real> stroke = new Dec<Real>(new Real(1.0));
 	public static final Dec<Real> x1 = new Dec<Real>(new Real(0.0));
 	public static final Dec<Real> y1 = new Dec<Real>(new Real(0.0));
@@ -53,7 +53,7 @@ public class LinePaint extends Paint {
 
 		super(newColor, newColor, newAlpha, 0, 0, 0, 0);
 		set(stroke, new Real(newStrokeWidth));
-		set(solid, new Bool(newSolid));
+		set(solid, Bool.valueOf(newSolid));
 		set(x1, new Real(newX1Offset));
 		set(x2, new Real(newX2Offset));
 		set(y1, new Real(newY1Offset));
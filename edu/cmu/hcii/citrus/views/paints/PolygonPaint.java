@@ -36,7 +36,7 @@ import java.awt.Rectangle;
 public class PolygonPaint extends Paint {
 
 	public static final Dec<List<Point>> points = new Dec<List<Point>>(new NewList<Point>());
-	public static final Dec<Bool> fill = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> fill = new Dec<Bool>(Bool.valueOf(true));
 	public static final Dec<Real> stroke = new Dec<Real>(new Real(1.0));
 	
 	public PolygonPaint(Namespace subtype, ArgumentList arguments) { super(subtype, arguments); }
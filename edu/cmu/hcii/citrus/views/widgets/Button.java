@@ -56,14 +56,14 @@ public class Button extends View {
 	}};
 
 	public static final Dec<List<Paint>> background = new Dec<List<Paint>>(View.<List<Paint>>parseExpression("[(this getStyle).buttonUpPaint]"));
-	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> focusable = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> focusable = new Dec<Bool>(Bool.valueOf(true));
 
 	public static final Dec<Real> width = new Dec<Real>("(this widestChildsWidth)");
 	public static final Dec<Real> height = new Dec<Real>("(this firstChildsBottom)");
 	public static final Dec<Real> vPad = new Dec<Real>(new Real(5));
 	public static final Dec<Real> hPad = new Dec<Real>(new Real(5));
-	public static final Dec<Bool> enabled = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> enabled = new Dec<Bool>(Bool.valueOf(true));
 	public static final Dec<Real> transparency = new Dec<Real>(true, "(if enabled 1.0 0.5)");
 
 	public static final Dec<Layout> layout = new Dec<Layout>(new VerticalLayout(0, 0, 0));
@@ -76,9 +76,9 @@ public class Button extends View {
 			if(App.keyboard.getLastCharacterTyped().value == ' ') {
 				setUpPaint.evaluate(t);
 				((Button)t).executeAction((View)t);
-				return new Bool(true);
+				return Bool.valueOf(true);
 			}
-			else return new Bool(false);
+			else return Bool.valueOf(false);
 		}}),
 		new Behavior(App.mouse.pointer.entered, setDownInPaint),
 		new Behavior(App.mouse.pointer.exited, setDownOutPaint),
@@ -86,7 +86,7 @@ public class Button extends View {
 			if(!t.get(enabled).value) return Bool.TRUE;
 			App.mouse.pointer.pick((View)t);
 			setDownInPaint.evaluate(t);
-			return new Bool(true); 
+			return Bool.valueOf(true); 
 		}}),
 		new Behavior(App.mouse.leftButton.released, new Expression<Bool>() { public Bool evaluate(Element<?> t) {
 			if(App.mouse.pointer.isPicked((View)t)) {
@@ -94,8 +94,8 @@ public class Button extends View {
 				if(((View)t).contains(App.mouse.pointer.getPosition()).value)
 					((Button)t).executeAction((View)t);
 				App.mouse.pointer.release();
-				return new Bool(true);
-			} else return new Bool(false);
+				return Bool.valueOf(true);
+			} else return Bool.valueOf(false);
 		}})
 	));
 
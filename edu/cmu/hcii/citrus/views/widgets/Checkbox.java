@@ -36,7 +36,7 @@ public class Checkbox extends ElementView {
 
 	public static final Dec<Real> width = new Dec<Real>(true, "(this lastChildsRight)");
 	public static final Dec<Real> height = new Dec<Real>(true, "(this tallestChildsHeight)");
-	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 
 	public static final Dec<List<Behavior>> behaviors = new Dec<List<Behavior>>(new List<Behavior>(
 		new Behavior(App.mouse.leftButton.pressed, App.mouse.pointer.pick),
@@ -60,7 +60,7 @@ public class Checkbox extends ElementView {
 
 	public static class Box extends View {
 		
-		public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+		public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 		public static final Dec<Real> width = new Dec<Real>(new Real(13));
 		public static final Dec<Real> height = new Dec<Real>(new Real(13));
 
@@ -87,13 +87,13 @@ public class Checkbox extends ElementView {
 	
 	public static class Checkmark extends View {
 		
-		public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+		public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 		public static final Dec<Real> width = new Dec<Real>(true, View.<Real>parseExpression("(this parentsWidth)"));
 		public static final Dec<Real> height = new Dec<Real>(true, View.<Real>parseExpression("(this parentsHeight)"));
 		public static final Dec<List<Paint>> content = new Dec<List<Paint>>(View.<List<Paint>>parseExpression("[(this getStyle).checkmarkPaint]"));
 
 		public static final Dec<Bool> hidden = new Dec<Bool>(true, new Expression<Bool>() { public Bool evaluate(Element<?> env) {
-			if(env.get(property) == null) return new Bool(true);
+			if(env.get(property) == null) return Bool.valueOf(true);
 			else return env.get(property).get().not(); }});
 
 		public Checkmark() { super(); }
@@ -33,7 +33,7 @@ public class CollapsableListView extends ListView {
 
 	public static final Dec<List> property = new Dec<List>();
 
-	public static final Dec<Bool> collapsed = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> collapsed = new Dec<Bool>(Bool.valueOf(false));
 	public static final Dec<View> label = new Dec<View>(true, new Parameter<View>());
 
 	public static final Dec<Layout> layout = new Dec<Layout>(new VerticalLayout(-1, 0, 0));
@@ -30,7 +30,7 @@ import edu.cmu.hcii.citrus.views.paints.FilledRectanglePaint;
 // Given a Type, creates an instance when clicked and prepares for dragging.
 public class Duplicator extends View {
 
-	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 
 	public static final Dec<Element> elementToDuplicate = new Dec<Element>(false, new Parameter());
 	
@@ -73,8 +73,8 @@ public class FancyTextField extends TextField {
 
 				// Position the view below the text field, hoist it and reveal it.
 				setView.set(top, t.paddedHeight());
-				setView.set(hoisted, new Bool(true));
-				setView.set(hidden, new Bool(false));
+				setView.set(hoisted, Bool.valueOf(true));
+				setView.set(hidden, Bool.valueOf(false));
 
 				result = true;
 
@@ -83,8 +83,8 @@ public class FancyTextField extends TextField {
 				if(setView != null && !setView.get(hidden).value) {
 					View selection = setView.get(Menu.selection);
 					if(selection != null) t.set(text, (Text)selection.get(ElementView.model));
-					setView.set(hoisted, new Bool(false));
-					setView.set(hidden, new Bool(true));		
+					setView.set(hoisted, Bool.valueOf(false));
+					setView.set(hidden, Bool.valueOf(true));		
 					t.getWindow().focusOn(t, "previous");
 					result = true;
 				}
@@ -94,8 +94,8 @@ public class FancyTextField extends TextField {
 			else if(App.keyboard.ESCAPE.isDown()) {
 				
 				if(setView != null && setView.bool(hidden)) {
-					setView.set(hidden, new Bool(true));
-					setView.set(hoisted, new Bool(true));
+					setView.set(hidden, Bool.valueOf(true));
+					setView.set(hoisted, Bool.valueOf(true));
 					result = true;
 				}
 				result = false;
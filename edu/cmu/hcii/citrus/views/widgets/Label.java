@@ -39,7 +39,7 @@ public class Label extends ElementView {
 	public static final Dec<Real> width = new Dec<Real>(true, "textLayout.rightExtent");
 	public static final Dec<Real> height = new Dec<Real>(true, "(textLayout.bottomExtent minus textLayout.font.descent)");
 
-	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 	public static final Dec<Bool> focusable = new Dec<Bool>("false");
 
 	public static final Dec<FontFace> font = new Dec<FontFace>("(this getStyle).plainFont");
@@ -85,8 +85,8 @@ public class PopupMenu extends ElementView {
 	private static Action hideAction = new Action() { 
 		public boolean evaluate(View t) {
 			App.mouse.pointer.release();
-			t.set(hoisted, new Bool(false));
-			t.set(hidden, new Bool(true));
+			t.set(hoisted, Bool.valueOf(false));
+			t.set(hidden, Bool.valueOf(true));
 			return true; 
 		}
 	};
@@ -40,7 +40,7 @@ public class ScrollBar extends View {
 	public static final Dec<Property<Real>> partialLength = new Dec<Property<Real>>();
 	public static final Dec<Property<Real>> totalLength = new Dec<Property<Real>>();
 	
-	public static final Dec<Bool> vertical = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> vertical = new Dec<Bool>(Bool.valueOf(true));
 
 	public static final Dec<Real> vPad = new Dec<Real>(new Real(1.0));
 	public static final Dec<Real> hPad = new Dec<Real>(new Real(1.0));
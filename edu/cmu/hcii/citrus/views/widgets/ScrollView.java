@@ -53,7 +53,7 @@ public class ScrollView extends View {
 	public static final Dec<Real> maxX = new Dec<Real>(true, maxXFunction);
 	public static final Dec<Real> maxY = new Dec<Real>(true, maxYFunction);
 
-	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(true));
 
 	public static final Dec<Real> width = new Dec<Real>(true, "(this parentsWidth)");
 	public static final Dec<Real> height = new Dec<Real>(true, "(this parentsRemainingHeight)");
@@ -237,7 +237,7 @@ public class ScrollView extends View {
 				if(sv == null || sv.getHorizontalScrollBar() == null) return new Real(0.0);
 				return new Real(sv.paddedHeight().value - sv.getHorizontalScrollBar().paddedHeight().value - 1); }});
 	    	
-	    	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(true));
+	    	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(true));
 	
 	    	public static final Dec<List<View>> children = new Dec<List<View>>("[(a ViewerViewer)]");
 	
@@ -265,7 +265,7 @@ public class ScrollView extends View {
 
 	    	}
 	
-	    	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+	    	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 	
 	    	public static final Dec<List<View>> children = new Dec<List<View>>("[viewToScroll]");
 	    	
@@ -50,7 +50,7 @@ public class SelectionHandles extends View {
 	public static final Dec<Real> top = new Dec<Real>(true, "(this selectionsTop)");
 	public static final Dec<Real> height = new Dec<Real>(true, "(this selectionsHeight)");
 	
-	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 	public static final Dec<Bool> hidden = new Dec<Bool>(true, "(selection is nothing)");
 	
 	public static final Dec<List<View>> children = new Dec<List<View>>(
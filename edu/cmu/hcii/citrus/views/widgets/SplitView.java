@@ -50,7 +50,7 @@ public class SplitView extends View {
 	));
 
 	// Whether the divider is vertical or horizontal.
-	public static final Dec<Bool> vertical = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> vertical = new Dec<Bool>(Bool.valueOf(true));
 
 	public SplitView(ArgumentList arguments) { super(arguments); }
 	public SplitView(Namespace subType, ArgumentList arguments) { super(subType, arguments); }
@@ -123,7 +123,7 @@ public class SplitView extends View {
 	
 	public static class One extends View {
 		
-		public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(true));
+		public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(true));
 		public static final Dec<Real> left = new Dec<Real>(true, new Real(0.0));
 		public static final Dec<Real> top = new Dec<Real>(true, new Real(0.0));
 
@@ -163,7 +163,7 @@ public class SplitView extends View {
 
 	public static class Two extends View {
 		
-		public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(true));
+		public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(true));
 
 		public static final Dec<Real> left = new Dec<Real>(true, new BaseElement<Real>() { public Real evaluate(Element<?> env) {
 			SplitView sv = (SplitView)((View)env).getParent();
@@ -61,8 +61,8 @@ public class TextField extends ElementView {
 	}
 
 	// Whether the label has a fixed width or height
-	public static final Dec<Bool> fitToWidth = new Dec<Bool>(new Bool(false));
-	public static final Dec<Bool> fitToHeight = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> fitToWidth = new Dec<Bool>(Bool.valueOf(false));
+	public static final Dec<Bool> fitToHeight = new Dec<Bool>(Bool.valueOf(true));
 	
 	public static final Dec<Color> color = new Dec<Color>(Color.black);
 
@@ -77,9 +77,9 @@ public class TextField extends ElementView {
 	public static final Dec<Real> width = new Dec<Real>(true, "(80.0 max textLayout.rightExtent)");
 	public static final Dec<Real> height = new Dec<Real>(true, "(textLayout.bottomExtent minus font.descent)");
 
-	public static final Dec<Bool> clipsChildren = new Dec<Bool>(new Bool(false));
+	public static final Dec<Bool> clipsChildren = new Dec<Bool>(Bool.valueOf(false));
 	
-	public static final Dec<Bool> focusable = new Dec<Bool>(new Bool(true));
+	public static final Dec<Bool> focusable = new Dec<Bool>(Bool.valueOf(true));
 
 	public static final Dec<Real> hPad = new Dec<Real>("(this getStyle).textFieldPadding");
 	public static final Dec<Real> vPad = new Dec<Real>("(this getStyle).textFieldPadding");
@@ -116,8 +116,8 @@ public class TextField extends ElementView {
 			else if(type == Reflection.getJavaType(Char.class)) valueToSet = new Char(((Text)newValue).value.charAt(0));
 			else if(type == Reflection.getJavaType(Bool.class)) {
 				valueToSet = ((Text)newValue).value.equals("true") ? 
-						new Bool(true) : ((Text)newValue).value.equals("false") ? 
-								new Bool(false) : new Nothing();
+						Bool.valueOf(true) : ((Text)newValue).value.equals("false") ? 
+								Bool.valueOf(false) : new Nothing();
 			}
 
 			// Set the property to the parsed value.
@@ -131,8 +131,8 @@ public class TextField extends ElementView {
 	private static Action hideAction = new Action() { 
 		public boolean evaluate(View t) {
 			if(App.mouse.pointer.isPicked(t)) App.mouse.pointer.release();
-			t.set(hoisted, new Bool(false));
-			t.set(hidden, new Bool(true));
+			t.set(hoisted, Bool.valueOf(false));
+			t.set(hidden, Bool.valueOf(true));
 			return true; 
 		}
 	};
@@ -250,8 +250,8 @@ public class TextField extends ElementView {
 		new Behavior(App.focusLost, new Action() { public boolean evaluate(View t) {
 			View setView = t.get(children).nth(new Int(2));
 			if(setView != null) {
-				setView.set(hoisted, new Bool(false));
-				setView.set(hidden, new Bool(true));
+				setView.set(hoisted, Bool.valueOf(false));
+				setView.set(hidden, Bool.valueOf(true));
 			}
 			return false;
 		}}),
@@ -367,7 +367,7 @@ public class TextField extends ElementView {
 				boolean result = set(text, newText, getStyle().getQuickestTransition());
 				set(caretIndex, new Int(leftIndex));
 				set(endIndex, new Int(leftIndex));
-				return new Bool(result);
+				return Bool.valueOf(result);
 			}
 			else if(index > 0) {
 				Text newText = get(text).withoutCharacterAt(get(caretIndex));
@@ -376,7 +376,7 @@ public class TextField extends ElementView {
 					set(caretIndex, new Int(index - 1));
 					set(endIndex, get(caretIndex));
 				}
-				return new Bool(result);
+				return Bool.valueOf(result);
 			} 
 			else return Bool.FALSE;
 		} else return Bool.FALSE;
@@ -389,7 +389,7 @@ public class TextField extends ElementView {
 		if(getText().length().value > 0) {
 			if(index < getText().length().value) {
 				Text newText = get(text).withoutCharacterAt(new Int(get(caretIndex).value + 1));		
-				if(!valueWillBeSet(newText)) return new Bool(false);		
+				if(!valueWillBeSet(newText)) return Bool.valueOf(false);		
 				if(set(text, newText, getStyle().getQuickestTransition())) {
 					return Bool.TRUE;
 				} else return Bool.FALSE;
@@ -403,7 +403,7 @@ public class TextField extends ElementView {
 	public Bool insertIfValid(Char c) {
 		
 		if(!valueWillBeSet(get(text).withCharacterAt(get(caretIndex), c))) 
-			return new Bool(false);
+			return Bool.valueOf(false);
 		else return insert(c);
 		
 	}
@@ -418,7 +418,7 @@ public class TextField extends ElementView {
 			set(caretIndex, new Int(getCaretIndex() + 1));
 			set(endIndex, get(caretIndex));
 		}
-		return new Bool(success);
+		return Bool.valueOf(success);
 
 	}
 	
@@ -432,8 +432,8 @@ public class TextField extends ElementView {
 		else if(type == Reflection.getJavaType(Real.class)) valueToSet = new Real(Double.parseDouble(newValue.value));
 		else if(type == Reflection.getJavaType(Bool.class)) 
 			valueToSet = newValue.value.equals("true") ? 
-					new Bool(true) : newValue.value.equals("false") ? 
-							new Bool(false) : new Nothing();
+					Bool.valueOf(true) : newValue.value.equals("false") ? 
+							Bool.valueOf(false) : new Nothing();
 
 		// Set the property to the parsed value.
 		if(valueToSet != null) {
@@ -42,7 +42,7 @@ public class Toggle extends ElementView {
 	public static final Dec<Real> vPad = new Dec<Real>(new Real(3));
 	public static final Dec<Real> hPad = new Dec<Real>(new Real(3));
 
-//	public static final Dec<Bool> focusable = new Dec<Bool>(new Bool(true));
+//	public static final Dec<Bool> focusable = new Dec<Bool>(Bool.valueOf(true));
 
 	public static final BaseElement<Real> toggleWidth = new BaseElement<Real>() { 
 		public Real evaluate(Element<?> env) {